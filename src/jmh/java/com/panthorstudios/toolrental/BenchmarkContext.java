@@ -0,0 +1,72 @@
+package com.panthorstudios.toolrental;
+
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Starts the application context without the CLI, so benchmarks run against the tool catalog and
+ * holiday rules in application.yml. Reservations are off, so a benchmark can check out the same tool
+ * for the same dates on every iteration.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ToolRentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--app.mode=web", "--app.reservations.enabled=false");
+    }
+
+    /**
+     * Starts the application with its web server on a random port
+     * @param args extra application arguments, e.g. --spring.threads.virtual.enabled=true
+     * @return the application context; the port is available from {@link #port(ConfigurableApplicationContext)}
+     */
+    public static ConfigurableApplicationContext startWeb(String... args) {
+        String[] allArgs = new String[args.length + 3];
+        allArgs[0] = "--app.mode=web";
+        allArgs[1] = "--server.port=0";
+        allArgs[2] = "--app.reservations.enabled=false";
+        System.arraycopy(args, 0, allArgs, 3, args.length);
+        return new SpringApplicationBuilder(ToolRentalApplication.class)
+                .logStartupInfo(false)
+                .run(allArgs);
+    }
+
+    /**
+     * @param context an application context started by {@link #startWeb(String...)}
+     * @return the port the web server is listening on
+     */
+    public static int port(ConfigurableApplicationContext context) {
+        return ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Returns the code of the first tool (in code order) of the given type, so a tool type @Param that
+     * application.yml no longer has fails the trial's setup instead of benchmarking something else
+     * @param context the application context
+     * @param typeCode the tool type code
+     * @return the tool code
+     * @throws IllegalArgumentException if no tool has the type; the message lists the types that do
+     */
+    public static String toolCodeForType(ConfigurableApplicationContext context, String typeCode) {
+        Collection<Tool> tools = context.getBean(AppProperties.class).getToolsMap().values();
+        return tools.stream()
+                .filter(tool -> tool.typeCode().equals(typeCode))
+                .map(Tool::code)
+                .sorted()
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No tool of type " + typeCode + "; tool types in application.yml: "
+                        + tools.stream().map(Tool::typeCode).distinct().sorted().collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,99 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the web tier on platform and virtual request threads at increasing concurrency.
+ * One operation sends a burst of {@code concurrency} requests at once and waits for all of them.
+ * <p>
+ * The fork runs with -Djdk.tracePinnedThreads=short, so any virtual thread pinned to its carrier
+ * while serving a request prints its stack in the benchmark output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+@State(Scope.Benchmark)
+public class CheckoutLoadBenchmark {
+
+    private static final String CHECKOUT_BODY =
+            "{\"toolCode\":\"LADW\",\"checkoutDate\":\"2024-06-28\",\"rentalDays\":30,\"discountPercent\":10}";
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"1", "16", "64", "256", "1024"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest checkoutRequest;
+    private HttpRequest toolsRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startWeb("--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--server.tomcat.accept-count=" + (concurrency * 2));
+        String baseUrl = "http://localhost:" + BenchmarkContext.port(context);
+        // The client runs on virtual threads either way so only the server's threads vary
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        checkoutRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/checkout"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CHECKOUT_BODY))
+                .build();
+        toolsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/tools")).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int checkoutBurst() {
+        return burst(checkoutRequest);
+    }
+
+    @Benchmark
+    public int toolsBurst() {
+        return burst(toolsRequest);
+    }
+
+    /**
+     * Sends the request concurrency times at once
+     * @return the sum of the response status codes
+     */
+    private int burst(HttpRequest request) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<HttpResponse<Void>>[] responses = new CompletableFuture[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        int statusSum = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            statusSum += response.join().statusCode();
+        }
+        if (statusSum != 200 * concurrency) {
+            throw new IllegalStateException("Unexpected response status in burst: " + statusSum);
+        }
+        return statusSum;
+    }
+}
@@ -0,0 +1,61 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.api.service.CheckoutService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for rendering a rental agreement as text
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalAgreementBenchmark {
+
+    @Param({"LADDER", "CHAINSAW", "JACKHAMMER"})
+    private String typeCode;
+
+    private RentalAgreement rentalAgreement;
+    private final StringBuilder text = new StringBuilder(1024);
+    private final ByteBuffer bytes = ByteBuffer.allocate(1024);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            rentalAgreement = context.getBean(CheckoutService.class)
+                    .toolRentalCheckout(BenchmarkContext.toolCodeForType(context, typeCode), LocalDate.of(2024, 6, 28), 1000, 15);
+        }
+    }
+
+    @Benchmark
+    public String renderToString() {
+        return rentalAgreement.toString();
+    }
+
+    /**
+     * Rendering into a StringBuilder that is reused for every receipt
+     */
+    @Benchmark
+    public StringBuilder renderToAppendable() {
+        text.setLength(0);
+        return ReceiptRenderer.render(rentalAgreement, text);
+    }
+
+    /**
+     * Rendering into a ByteBuffer that is reused for every receipt, as when writing to a channel
+     */
+    @Benchmark
+    public ByteBuffer renderToByteBuffer() {
+        bytes.clear();
+        ReceiptRenderer.render(rentalAgreement, bytes);
+        return bytes;
+    }
+}
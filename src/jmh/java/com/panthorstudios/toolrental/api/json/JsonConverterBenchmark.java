@@ -0,0 +1,74 @@
+package com.panthorstudios.toolrental.api.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.service.CheckoutService;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for writing JSON responses with Jackson and with the pre-encoded converter
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonConverterBenchmark {
+
+    private static final Type TOOL_LIST = new ParameterizedTypeReference<List<Tool>>() {}.getType();
+
+    @Param({"jackson", "pre-encoded"})
+    private String writer;
+
+    private GenericHttpMessageConverter<Object> converter;
+    private RentalAgreement rentalAgreement;
+    private List<Tool> tools;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            rentalAgreement = context.getBean(CheckoutService.class)
+                    .toolRentalCheckout(BenchmarkContext.toolCodeForType(context, "LADDER"), LocalDate.of(2024, 6, 28), 5, 10);
+            tools = context.getBean(ToolService.class).getAllTools();
+            converter = "jackson".equals(writer)
+                    ? new MappingJackson2HttpMessageConverter(context.getBean(ObjectMapper.class))
+                    : new PreEncodedJsonConverter();
+        }
+    }
+
+    /**
+     * The response to a checkout
+     */
+    @Benchmark
+    public MockHttpOutputMessage writeAgreement() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(rentalAgreement, RentalAgreement.class, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    /**
+     * The response to a request for all tools
+     */
+    @Benchmark
+    public MockHttpOutputMessage writeTools() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(tools, TOOL_LIST, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+}
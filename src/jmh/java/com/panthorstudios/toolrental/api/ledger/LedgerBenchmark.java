@@ -0,0 +1,76 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.service.CheckoutService;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for appending rental agreements to the ledger.
+ * One operation appends a batch of agreements and waits until all of them are on disk, so the score
+ * includes the group commit flushes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"64", "512"})
+    private int fsyncBatchSize;
+
+    private RentalAgreement rentalAgreement;
+    private Path directory;
+    private RentalLedger ledger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            rentalAgreement = context.getBean(CheckoutService.class)
+                    .toolRentalCheckout("LADW", LocalDate.of(2024, 6, 28), 30, 10);
+        }
+        directory = Files.createTempDirectory("ledger-benchmark");
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getLedger().setEnabled(true);
+        appProperties.getLedger().setDirectory(directory.toString());
+        appProperties.getLedger().setFsyncBatchSize(fsyncBatchSize);
+        ledger = new RentalLedger(appProperties);
+        ledger.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ledger.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long appendDurable() {
+        CompletableFuture<Long> last = null;
+        for (int i = 0; i < BATCH; i++) {
+            last = ledger.append(rentalAgreement);
+        }
+        return last.join();
+    }
+}
@@ -0,0 +1,67 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the checkout hot path, parameterized by the tool types in application.yml.
+ * Charges are calculated for the default country, as for a checkout at a store that is not listed.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    @Param({"LADDER", "CHAINSAW", "JACKHAMMER"})
+    private String typeCode;
+
+    @Param({"1", "30", "365", "3650"})
+    private int rentalDays;
+
+    private ConfigurableApplicationContext context;
+    private CheckoutService checkoutService;
+    private String countryCode;
+    private String toolCode;
+    private ToolCatalog.Entry entry;
+    private LocalDate checkoutDate;
+    private LocalDate dueDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        checkoutService = context.getBean(CheckoutService.class);
+        HolidayService holidayService = context.getBean(HolidayService.class);
+        countryCode = holidayService.getDefaultCountryCode();
+        if (!holidayService.getCountryCodes().contains(countryCode)) {
+            throw new IllegalStateException("Default country " + countryCode + " has no holiday rules; countries with rules: "
+                    + holidayService.getCountryCodes());
+        }
+        toolCode = BenchmarkContext.toolCodeForType(context, typeCode);
+        entry = context.getBean(ToolService.class).getCatalog().getEntry(toolCode);
+        checkoutDate = LocalDate.of(2024, 6, 28);
+        dueDate = checkoutDate.plusDays(rentalDays);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RentalAgreement toolRentalCheckout() {
+        return checkoutService.toolRentalCheckout(toolCode, checkoutDate, rentalDays, 10);
+    }
+
+    @Benchmark
+    public CheckoutService.ChargeDetails calculateCharges() {
+        return checkoutService.calculateCharges(countryCode, entry, checkoutDate, rentalDays, dueDate);
+    }
+}
@@ -0,0 +1,66 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for holiday lookups over spans of years, from the cache and from scratch
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HolidayServiceBenchmark {
+
+    @Param({"1", "2", "10", "100"})
+    private int years;
+
+    private ConfigurableApplicationContext context;
+    private HolidayService holidayService;
+    private int startYear;
+    private int endYear;
+    private HolidayRules holidayRules;
+    private long[] epochDays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        holidayService = context.getBean(HolidayService.class);
+        startYear = 2024;
+        endYear = startYear + years - 1;
+        holidayRules = HolidayRules.compile(context.getBean(AppProperties.class).getHolidayRulesList());
+        epochDays = new long[holidayRules.size()];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Set<LocalDate> getHolidaysCached() {
+        return holidayService.getHolidays(startYear, endYear);
+    }
+
+    @Benchmark
+    public Set<LocalDate> getHolidaysUncached() {
+        holidayService.invalidateCache();
+        return holidayService.getHolidays(startYear, endYear);
+    }
+
+    @Benchmark
+    public long[] evaluateCompiledRules() {
+        for (int year = startYear; year <= endYear; year++) {
+            holidayRules.evaluate(year, epochDays);
+        }
+        return epochDays;
+    }
+}
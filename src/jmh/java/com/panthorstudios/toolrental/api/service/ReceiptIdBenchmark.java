@@ -0,0 +1,49 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for receipt ID generation
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceiptIdBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ReceiptIdGenerator receiptIdGenerator;
+    private int storeId;
+    private int terminalId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        receiptIdGenerator = context.getBean(ReceiptIdGenerator.class);
+        AppProperties appProperties = context.getBean(AppProperties.class);
+        storeId = appProperties.getStoreId();
+        terminalId = appProperties.getTerminalId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String nextReceiptId() {
+        return receiptIdGenerator.nextReceiptId(storeId, terminalId);
+    }
+
+    @Benchmark
+    public String formatReceiptId() {
+        return receiptIdGenerator.format(System.currentTimeMillis(), storeId, terminalId);
+    }
+}
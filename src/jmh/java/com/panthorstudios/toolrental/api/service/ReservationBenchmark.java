@@ -0,0 +1,85 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Reservation;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for booking tools and checking their availability, from 8 threads at once, against 10,000 tools
+ * that are each booked for 3 days of every week for two years
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReservationBenchmark {
+
+    private static final int TOOLS = 10_000;
+    private static final int WEEKS = 104;
+    private static final LocalDate FIRST_MONDAY = LocalDate.of(2024, 1, 1);
+
+    private ReservationService reservations;
+    private String[] toolCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Tool> tools = new HashMap<>();
+        toolCodes = new String[TOOLS];
+        for (int i = 0; i < TOOLS; i++) {
+            toolCodes[i] = String.format("LAD%05d", i);
+            tools.put(toolCodes[i], new Tool(toolCodes[i], "LADDER", "Werner"));
+        }
+        AppProperties appProperties = new AppProperties(tools,
+                Map.of("LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false)));
+        reservations = new ReservationService(new ToolService(appProperties), appProperties, new SimpleMeterRegistry(), () -> FIRST_MONDAY);
+        for (String toolCode : toolCodes) {
+            for (int week = 0; week < WEEKS; week++) {
+                LocalDate monday = FIRST_MONDAY.plusWeeks(week);
+                reservations.reserve(toolCode, monday, monday.plusDays(2), toolCode + "-" + week);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isAvailable() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate from = FIRST_MONDAY.plusDays(random.nextInt(WEEKS * 7));
+        return reservations.isAvailable(toolCodes[random.nextInt(TOOLS)], from, from.plusDays(random.nextInt(4)));
+    }
+
+    /**
+     * Books Thursday to Saturday of a random week, which is free unless another thread holds it, and cancels it again
+     */
+    @Benchmark
+    public Reservation reserveAndRelease() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate thursday = FIRST_MONDAY.plusWeeks(random.nextInt(WEEKS)).plusDays(3);
+        try {
+            Reservation reservation = reservations.reserve(toolCodes[random.nextInt(TOOLS)], thursday, thursday.plusDays(2), "benchmark");
+            reservations.release(reservation);
+            return reservation;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public ToolPage findAvailable() {
+        LocalDate monday = FIRST_MONDAY.plusWeeks(ThreadLocalRandom.current().nextInt(WEEKS));
+        return reservations.findAvailable("LADDER", monday.plusDays(3), monday.plusDays(5), null, 50);
+    }
+}
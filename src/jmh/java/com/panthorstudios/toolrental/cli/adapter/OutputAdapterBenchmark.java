@@ -0,0 +1,82 @@
+package com.panthorstudios.toolrental.cli.adapter;
+
+import com.panthorstudios.toolrental.BenchmarkContext;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.service.CheckoutService;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for console output, written to /dev/null through a stream set up like System.out
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputAdapterBenchmark {
+
+    @Param({"console", "buffered"})
+    private String output;
+
+    private PrintStream originalOut;
+    private OutputAdapter outputAdapter;
+    private RentalAgreement rentalAgreement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            rentalAgreement = context.getBean(CheckoutService.class)
+                    .toolRentalCheckout(BenchmarkContext.toolCodeForType(context, "LADDER"), LocalDate.of(2024, 6, 28), 5, 10);
+        }
+        originalOut = System.out;
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128), true));
+        outputAdapter = "buffered".equals(output)
+                ? new BufferedOutputAdapter(new AppProperties(Map.of(), Map.of()))
+                : new ConsoleOutputAdapter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (outputAdapter instanceof BufferedOutputAdapter buffered) {
+            buffered.close();
+        }
+        System.setOut(originalOut);
+    }
+
+    /**
+     * One interactive checkout: the agreement printed line by line, then the prompt for the next one
+     */
+    @Benchmark
+    public void agreementThenPrompt() {
+        outputAdapter.printLine();
+        outputAdapter.printLine("Rental Agreement");
+        outputAdapter.printLine("----------------");
+        for (String line : rentalAgreement.toString().split("\n")) {
+            outputAdapter.printLine(line);
+        }
+        outputAdapter.print("Hit Return for another Rental Agreement or 'q' to quit: ");
+    }
+
+    /**
+     * Lines with no prompt between them, as when output is piped
+     */
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void bulkLines() {
+        for (int i = 0; i < 1000; i++) {
+            outputAdapter.printLine("Rental agreement ID: 2024062800101-00042");
+        }
+        outputAdapter.flush();
+    }
+}
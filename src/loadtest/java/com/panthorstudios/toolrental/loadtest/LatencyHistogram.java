@@ -0,0 +1,88 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram in the style of HdrHistogram, recorded in microseconds from any number of threads.
+ * <p>
+ * Values below 128 get a bucket each. Above that, each power of two is split into 64 buckets, so a value is
+ * placed to within 1.6% wherever it falls, from a microsecond to hours, in a fixed 30 KB of counters.
+ * Percentiles are reported as the highest value of their bucket, so they are never understated.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int BUCKETS = LINEAR_BUCKETS + (Long.SIZE - 8) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros the latency in microseconds; negative values are recorded as 0
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in microseconds that the percentile of recorded values are at or below, or 0 if none were recorded
+     */
+    long getValueAtPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) {
+                return Math.min(highestInBucket(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // value is in [2^power, 2^(power+1)); its top 7 bits pick one of the 64 buckets of that power
+        int power = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = power - 6;
+        return LINEAR_BUCKETS + (power - 7) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestInBucket(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int power = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 7;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = power - 6;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,161 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whatever the application's response times: an open model, as real
+ * clients arrive without waiting for each other.
+ * <p>
+ * Each request is due at a fixed point in the schedule and is sent on its own virtual thread. Its latency is
+ * measured from when it was due rather than when it was sent, so time a request spends waiting behind a slow
+ * scheduler or a full connection pool is counted instead of hidden (coordinated omission).
+ */
+final class LoadGenerator {
+
+    private static final String DROPPED = "dropped";
+    private static final String TIMEOUT = "timeout";
+
+    // The outcomes and latencies of one request type
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        void recordResponse(int status, long latencyMicros) {
+            latency.record(latencyMicros);
+            if ((status >= 200 && status < 300) || status == 304) {
+                successes.increment();
+            } else if (status == 409) {
+                conflicts.increment();
+            } else {
+                errors.increment();
+            }
+            recordOutcome(Integer.toString(status));
+        }
+
+        void recordFailure(String outcome, long latencyMicros) {
+            if (latencyMicros >= 0) {
+                latency.record(latencyMicros);
+            }
+            errors.increment();
+            recordOutcome(outcome);
+        }
+
+        private void recordOutcome(String outcome) {
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            requests.increment();
+        }
+    }
+
+    private final HttpClient client;
+    private final RequestMix mix;
+    private final int maxInFlight;
+    private final long drainTimeoutNanos;
+
+    LoadGenerator(HttpClient client, RequestMix mix, int maxInFlight, int timeoutSeconds) {
+        this.client = client;
+        this.mix = mix;
+        this.maxInFlight = maxInFlight;
+        // Every request has finished or timed out by then
+        this.drainTimeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds + 5L);
+    }
+
+    /**
+     * Sends requests at a rate for a time, and waits for them all to be answered
+     *
+     * @param rate the requests per second
+     * @param durationSeconds how long to send requests for
+     * @return the results
+     * @throws InterruptedException if interrupted while sending or waiting
+     */
+    LoadReport.Stage run(int rate, int durationSeconds) throws InterruptedException {
+        Map<String, Stats> statsByType = new LinkedHashMap<>();
+        mix.getTypes().forEach(type -> statsByType.put(type, new Stats()));
+        Stats total = new Stats();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RequestMix.Request request = mix.next();
+            Stats stats = statsByType.get(request.type());
+            if (!inFlight.tryAcquire()) {
+                stats.recordFailure(DROPPED, -1);
+                total.recordFailure(DROPPED, -1);
+                continue;
+            }
+            Thread.ofVirtual().start(() -> {
+                try {
+                    send(request, due, stats, total);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, drainTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("Requests still outstanding after their timeout");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<LoadReport.Result> results = new ArrayList<>();
+        statsByType.forEach((type, stats) -> results.add(result(type, stats, seconds)));
+        return new LoadReport.Stage(rate, durationSeconds, result("total", total, seconds), results);
+    }
+
+    private void send(RequestMix.Request request, long due, Stats stats, Stats total) {
+        try {
+            HttpResponse<Void> response = client.send(request.request(), HttpResponse.BodyHandlers.discarding());
+            long latencyMicros = (System.nanoTime() - due) / 1000;
+            stats.recordResponse(response.statusCode(), latencyMicros);
+            total.recordResponse(response.statusCode(), latencyMicros);
+        } catch (HttpTimeoutException e) {
+            long latencyMicros = (System.nanoTime() - due) / 1000;
+            stats.recordFailure(TIMEOUT, latencyMicros);
+            total.recordFailure(TIMEOUT, latencyMicros);
+        } catch (IOException e) {
+            long latencyMicros = (System.nanoTime() - due) / 1000;
+            stats.recordFailure(e.getClass().getSimpleName(), latencyMicros);
+            total.recordFailure(e.getClass().getSimpleName(), latencyMicros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LoadReport.Result result(String type, Stats stats, double seconds) {
+        long requests = stats.requests.sum();
+        long errors = stats.errors.sum();
+        Map<String, Long> outcomes = new TreeMap<>();
+        stats.outcomes.forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+        long answered = outcomes.entrySet().stream()
+                .filter(outcome -> Character.isDigit(outcome.getKey().charAt(0)))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return new LoadReport.Result(type, requests, answered / seconds, stats.successes.sum(), stats.conflicts.sum(), errors,
+                requests == 0 ? 0 : (double) errors / requests, LoadReport.Latency.of(stats.latency), outcomes);
+    }
+}
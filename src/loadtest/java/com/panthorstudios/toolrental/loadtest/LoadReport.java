@@ -0,0 +1,85 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of a load test run, written as text for reading and as JSON for comparing runs
+ *
+ * @param startedAt when the run started, as an ISO-8601 instant
+ * @param target the URL of the application under test
+ * @param javaVersion the Java version of the load test
+ * @param mix the weight of each request type
+ * @param seed the seed of the request mix
+ * @param stages the result of each arrival rate, in the order they were run
+ */
+record LoadReport(String startedAt, String target, String javaVersion, Map<String, Integer> mix, long seed, List<Stage> stages) {
+
+    /**
+     * The results of running one arrival rate
+     *
+     * @param targetRate the arrival rate, in requests per second
+     * @param durationSeconds how long requests were sent for
+     * @param total the results over every request type
+     * @param requestTypes the results of each request type
+     */
+    record Stage(int targetRate, double durationSeconds, Result total, List<Result> requestTypes) {}
+
+    /**
+     * The results of one request type, or of all of them
+     *
+     * @param type the request type, or "total"
+     * @param requests the requests sent, or due to be sent and dropped
+     * @param throughput the requests answered per second, whatever the status
+     * @param successes the requests answered with 2xx or 304
+     * @param conflicts the checkouts answered with 409 because the tool was already out
+     * @param errors every other outcome: other statuses, timeouts, failed connections and dropped requests
+     * @param errorRate errors as a fraction of requests
+     * @param latencyMillis percentiles of the latency in milliseconds, measured from when each request was due to be sent
+     * @param outcomes the count of each status code, or of each kind of failure
+     */
+    record Result(String type, long requests, double throughput, long successes, long conflicts, long errors, double errorRate,
+                  Latency latencyMillis, Map<String, Long> outcomes) {}
+
+    /**
+     * Latency percentiles in milliseconds
+     */
+    record Latency(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(LatencyHistogram histogram) {
+            return new Latency(Math.round(histogram.getMean()) / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMax() / 1000.0);
+        }
+    }
+
+    /**
+     * @return the report as a table per stage
+     */
+    String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("Load test of ").append(target).append(" started ").append(startedAt).append(", Java ").append(javaVersion).append('\n');
+        text.append("Mix ").append(mix).append(", seed ").append(seed).append('\n');
+        for (Stage stage : stages) {
+            text.append('\n').append(String.format("%d req/s for %.1f s: %.1f req/s answered, error rate %.3f%%%n",
+                    stage.targetRate(), stage.durationSeconds(), stage.total().throughput(), stage.total().errorRate() * 100));
+            text.append(String.format("%-14s %9s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                    "type", "requests", "req/s", "409", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+            for (Result result : stage.requestTypes()) {
+                appendRow(text, result);
+            }
+            appendRow(text, stage.total());
+        }
+        return text.toString();
+    }
+
+    private static void appendRow(StringBuilder text, Result result) {
+        Latency latency = result.latencyMillis();
+        text.append(String.format("%-14s %9d %9.1f %8d %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                result.type(), result.requests(), result.throughput(), result.conflicts(), result.errors(),
+                latency.p50(), latency.p90(), latency.p99(), latency.p999(), latency.max()));
+    }
+}
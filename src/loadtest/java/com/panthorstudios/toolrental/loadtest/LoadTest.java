@@ -0,0 +1,127 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.panthorstudios.toolrental.ToolRentalApplication;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Load test for the checkout and catalog endpoints. Run with:
+ * <pre>
+ *   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=100,200,400 --duration=30"
+ * </pre>
+ * Unless --url is given, the application is started in web mode in this JVM on a free port. Each rate is run in
+ * turn after a warmup, and the report is printed and written as JSON to --out, target/loadtest-result.json by
+ * default. See {@link LoadTestOptions} for every option.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        ConfigurableApplicationContext context = options.url() == null ? startApplication(options.appArgs()) : null;
+        LoadReport report;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String baseUrl = context != null
+                    ? "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort()
+                    : options.url();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(options.timeoutSeconds()))
+                    .executor(executor)
+                    .build();
+            report = run(options, client, baseUrl);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+
+        System.out.println();
+        System.out.print(report.toText());
+        writeJson(report, options.out());
+        System.out.println();
+        System.out.println("Report written to " + options.out());
+        if (options.maxErrorRate() >= 0 && report.stages().stream().anyMatch(stage -> stage.total().errorRate() > options.maxErrorRate())) {
+            System.err.println("Error rate above " + options.maxErrorRate());
+            System.exit(1);
+        }
+    }
+
+    private static LoadReport run(LoadTestOptions options, HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        String startedAt = Instant.now().toString();
+        RequestMix mix = new RequestMix(baseUrl, Duration.ofSeconds(options.timeoutSeconds()), fetchTools(client, baseUrl),
+                options.mix(), options.seed());
+        LoadGenerator generator = new LoadGenerator(client, mix, options.maxInFlight(), options.timeoutSeconds());
+        if (options.warmupSeconds() > 0) {
+            System.out.println("Warming up at " + options.rates().get(0) + " req/s for " + options.warmupSeconds() + " s");
+            generator.run(options.rates().get(0), options.warmupSeconds());
+        }
+        List<LoadReport.Stage> stages = new ArrayList<>();
+        for (int rate : options.rates()) {
+            System.out.println("Running " + rate + " req/s for " + options.durationSeconds() + " s");
+            stages.add(generator.run(rate, options.durationSeconds()));
+        }
+        return new LoadReport(startedAt, baseUrl, Runtime.version().toString(), options.mix(), options.seed(), stages);
+    }
+
+    /**
+     * Starts the application in web mode on a free port. Its logging is quietened to warnings and errors unless
+     * the arguments set it, so the log does not slow the checkouts it is measuring.
+     */
+    private static ConfigurableApplicationContext startApplication(List<String> appArgs) {
+        List<String> args = new ArrayList<>(List.of("--app.mode=web", "--server.port=0"));
+        if (appArgs.stream().noneMatch(arg -> arg.startsWith("--logging.level.com.panthorstudios.toolrental="))) {
+            args.add("--logging.level.com.panthorstudios.toolrental=ERROR");
+        }
+        args.addAll(appArgs);
+        System.out.println("Starting the application with " + args);
+        return new SpringApplicationBuilder(ToolRentalApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    private static List<Tool> fetchTools(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/tools")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET /api/tools returned " + response.statusCode());
+        }
+        return Arrays.asList(new ObjectMapper().readValue(response.body(), Tool[].class));
+    }
+
+    private static void writeJson(LoadReport report, Path out) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+    }
+}
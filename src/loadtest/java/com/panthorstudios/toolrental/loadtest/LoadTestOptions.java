@@ -0,0 +1,108 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The load test settings, read from --name=value arguments. Arguments for the application itself, those starting
+ * with --app., --spring., --server. or --logging., are passed through to it when the load test starts it.
+ *
+ * @param rates the arrival rates to run in turn, in requests per second
+ * @param durationSeconds how long each rate is run for
+ * @param warmupSeconds how long the first rate is run for, unrecorded, before the first stage
+ * @param timeoutSeconds how long a request may take before it counts as an error
+ * @param maxInFlight the most requests outstanding at once; a request due beyond that is dropped and counts as an error
+ * @param url the application to test, or null to start it in this JVM
+ * @param out where the JSON report is written
+ * @param seed the seed of the request mix, so runs send the same requests
+ * @param mix the weight of each request type
+ * @param maxErrorRate the error rate above which the run fails, or a negative number to never fail
+ * @param appArgs the arguments for the application
+ */
+record LoadTestOptions(List<Integer> rates, int durationSeconds, int warmupSeconds, int timeoutSeconds, int maxInFlight,
+                       String url, Path out, long seed, Map<String, Integer> mix, double maxErrorRate, List<String> appArgs) {
+
+    static final String DEFAULT_MIX = "checkout:50,tool:20,tools:10,tool-types:5,search:10,availability:5";
+
+    private static final List<String> APP_PREFIXES = List.of("--app.", "--spring.", "--server.", "--logging.");
+
+    static LoadTestOptions parse(String... args) {
+        List<Integer> rates = List.of(100);
+        int durationSeconds = 30;
+        int warmupSeconds = 5;
+        int timeoutSeconds = 10;
+        int maxInFlight = 10_000;
+        String url = null;
+        Path out = Path.of("target", "loadtest-result.json");
+        long seed = 1;
+        Map<String, Integer> mix = parseMix(DEFAULT_MIX);
+        double maxErrorRate = -1;
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (APP_PREFIXES.stream().anyMatch(arg::startsWith)) {
+                appArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            try {
+                switch (name) {
+                    case "rate" -> rates = Arrays.stream(value.split(",")).map(String::trim).map(Integer::parseInt).toList();
+                    case "duration" -> durationSeconds = Integer.parseInt(value);
+                    case "warmup" -> warmupSeconds = Integer.parseInt(value);
+                    case "timeout" -> timeoutSeconds = Integer.parseInt(value);
+                    case "max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                    case "url" -> url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    case "out" -> out = Path.of(value);
+                    case "seed" -> seed = Long.parseLong(value);
+                    case "mix" -> mix = parseMix(value);
+                    case "max-error-rate" -> maxErrorRate = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Unknown option: --" + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + name + ": " + value, e);
+            }
+        }
+        if (rates.isEmpty() || rates.stream().anyMatch(rate -> rate <= 0)) {
+            throw new IllegalArgumentException("Rates must be greater than zero: " + rates);
+        }
+        if (durationSeconds <= 0 || warmupSeconds < 0 || timeoutSeconds <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Duration, timeout and max in flight must be greater than zero, and warmup zero or more");
+        }
+        return new LoadTestOptions(rates, durationSeconds, warmupSeconds, timeoutSeconds, maxInFlight, url, out, seed, mix,
+                maxErrorRate, List.copyOf(appArgs));
+    }
+
+    /**
+     * @param mix request types and weights, e.g. checkout:50,tool:20
+     * @return the weights by request type, in the order given
+     */
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || !RequestMix.TYPES.contains(parts[0])) {
+                throw new IllegalArgumentException("Expected one of " + RequestMix.TYPES + " and a weight: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must be zero or more: " + entry);
+            }
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one request type: " + mix);
+        }
+        return weights;
+    }
+}
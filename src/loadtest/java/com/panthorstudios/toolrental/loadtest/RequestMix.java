@@ -0,0 +1,128 @@
+package com.panthorstudios.toolrental.loadtest;
+
+import com.panthorstudios.toolrental.api.domain.Tool;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Picks the next request of a load test by weight, with tools, dates and discounts drawn at random.
+ * <p>
+ * The tools are the catalog of the application under test, as it lists them at GET /api/tools, so a local run
+ * uses the tools in application.yml. Checkout dates are spread over a century starting in 2024, which keeps
+ * the tools mostly free; a checkout that lands on a tool already out for those dates gets 409 Conflict and is
+ * counted as a conflict rather than an error.
+ */
+final class RequestMix {
+
+    static final List<String> TYPES = List.of("checkout", "tool", "tools", "tool-types", "search", "availability");
+
+    private static final LocalDate FIRST_CHECKOUT_DATE = LocalDate.of(2024, 1, 1);
+    private static final int CHECKOUT_DATE_RANGE_DAYS = 100 * 365;
+
+    /**
+     * A request to send
+     *
+     * @param type the request type, which its latency is recorded under
+     * @param request the HTTP request
+     */
+    record Request(String type, HttpRequest request) {}
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final List<Tool> tools;
+    private final List<String> typeCodes;
+    private final String[] types;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+
+    RequestMix(String baseUrl, Duration timeout, List<Tool> tools, Map<String, Integer> weights, long seed) {
+        if (tools.isEmpty()) {
+            throw new IllegalArgumentException("The application under test has no tools");
+        }
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.tools = List.copyOf(tools);
+        this.typeCodes = tools.stream().map(Tool::typeCode).distinct().sorted().toList();
+        this.types = weights.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[types.length];
+        int total = 0;
+        for (int i = 0; i < types.length; i++) {
+            total += weights.get(types[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return the request types in the mix, in the order they were given
+     */
+    List<String> getTypes() {
+        return List.of(types);
+    }
+
+    /**
+     * Not thread safe: requests are drawn on the thread that schedules them, so the same seed gives the same requests
+     *
+     * @return the next request
+     */
+    Request next() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        String type = types[index];
+        return new Request(type, switch (type) {
+            case "checkout" -> checkout();
+            case "tool" -> get("/api/tools/" + encode(randomTool().code()));
+            case "tools" -> get("/api/tools");
+            case "tool-types" -> get("/api/tool-types");
+            case "search" -> get("/api/tools?type=" + encode(randomTypeCode()) + "&limit=20");
+            case "availability" -> {
+                LocalDate from = randomDate();
+                yield get("/api/availability?type=" + encode(randomTypeCode()) + "&from=" + from + "&to=" + from.plusDays(1 + random.nextInt(7)));
+            }
+            default -> throw new IllegalStateException("Unknown request type: " + type);
+        });
+    }
+
+    private HttpRequest checkout() {
+        // Most rentals are undiscounted; the rest get up to half off
+        int discountPercent = random.nextInt(10) < 7 ? 0 : 1 + random.nextInt(50);
+        String body = "{\"toolCode\":\"" + randomTool().code() + "\",\"checkoutDate\":\"" + randomDate()
+                + "\",\"rentalDays\":" + (1 + random.nextInt(14)) + ",\"discountPercent\":" + discountPercent + "}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/checkout"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).GET().build();
+    }
+
+    private Tool randomTool() {
+        return tools.get(random.nextInt(tools.size()));
+    }
+
+    private String randomTypeCode() {
+        return typeCodes.get(random.nextInt(typeCodes.size()));
+    }
+
+    private LocalDate randomDate() {
+        return FIRST_CHECKOUT_DATE.plusDays(random.nextInt(CHECKOUT_DATE_RANGE_DAYS));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,8 @@
 package com.panthorstudios.toolrental;
 
+import com.panthorstudios.toolrental.cli.controller.BatchCliController;
 import com.panthorstudios.toolrental.cli.controller.CliController;
+import com.panthorstudios.toolrental.properties.AppProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
@@ -12,10 +14,14 @@ import org.springframework.stereotype.Component;
 @Component
 public class AppRunner implements CommandLineRunner {
     private final CliController cliController;
+    private final BatchCliController batchCliController;
+    private final AppProperties appProperties;
 
     @Autowired
-    public AppRunner(CliController cliController) {
+    public AppRunner(CliController cliController, BatchCliController batchCliController, AppProperties appProperties) {
         this.cliController = cliController;
+        this.batchCliController = batchCliController;
+        this.appProperties = appProperties;
     }
 
     @Value("${app.mode}")
@@ -33,6 +39,11 @@ public class AppRunner implements CommandLineRunner {
         // Check command-line arguments to decide the mode
         if ("web".equals(mode)) {
             System.out.println("Running as a web service on port " + serverPort);
+        } else if ("batch".equals(mode)) {
+            // Run the application over a file of requests
+            if (!batchCliController.execute(appProperties.getBatch().getInput(), appProperties.getBatch().getOutput())) {
+                System.exit(1);
+            }
         } else {
             // Run the application in CLI mode
             System.out.println();
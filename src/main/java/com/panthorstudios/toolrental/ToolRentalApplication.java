@@ -31,7 +31,7 @@ public class ToolRentalApplication {
 
 		Options options = new Options();
 
-		Option modeOption = new Option("m", "mode", true, "Operating mode (web or cli)");
+		Option modeOption = new Option("m", "mode", true, "Operating mode (web, cli or batch)");
 		modeOption.setRequired(false); // Not required because it has a default value
 		options.addOption(modeOption);
 
@@ -45,18 +45,37 @@ public class ToolRentalApplication {
 		terminalIdOption.setRequired(false); // Not required because it has a default value
 		options.addOption(terminalIdOption);
 
+		Option threadsOption = new Option(null, "threads", true, "Web request threads (platform or virtual); with virtual, add -Djdk.tracePinnedThreads=short to the java command to report pinned threads");
+		threadsOption.setRequired(false); // Not required because it has a default value
+		options.addOption(threadsOption);
+
+		Option inputOption = new Option("i", "input", true, "Batch mode input file (CSV or JSON)");
+		inputOption.setRequired(false);
+		options.addOption(inputOption);
+
+		Option outputOption = new Option("o", "output", true, "Batch mode output file (newline-delimited JSON)");
+		outputOption.setRequired(false);
+		options.addOption(outputOption);
+
 		CommandLineParser parser = new DefaultParser();
 		HelpFormatter formatter = new HelpFormatter();
 
 		String mode = null;
 		String storeId = null;
 		String terminalId = null;
+		String threads = null;
+		String input = null;
+		String output = null;
 
 		try {
-			CommandLine cmd = parser.parse(options, args);
+			// Stop at the first unknown token so Spring properties such as --app.batch.threads=8 can follow
+			CommandLine cmd = parser.parse(options, args, true);
 			mode = cmd.getOptionValue("mode", null);
 			storeId = cmd.getOptionValue("store", null);
 			terminalId = cmd.getOptionValue("terminal", null);
+			threads = cmd.getOptionValue("threads", null);
+			input = cmd.getOptionValue("input", null);
+			output = cmd.getOptionValue("output", null);
 
 		} catch (ParseException e) {
 			formatter.printHelp("tool-rental", options);
@@ -65,11 +84,31 @@ public class ToolRentalApplication {
 		if (mode!=null) {
 			System.setProperty("app.mode", mode);
 		}
+		if ("batch".equals(mode) && System.getProperty("app.agreement-store.enabled")==null) {
+			// Batch agreements are written to the output file and the process then exits, so don't keep them in memory
+			System.setProperty("app.agreement-store.enabled", "false");
+		}
+		if ("batch".equals(mode) && System.getProperty("app.reservations.enabled")==null) {
+			// A batch file is checked out as written, so rows for the same tool may overlap, and its bookings would only grow
+			System.setProperty("app.reservations.enabled", "false");
+		}
 		if (storeId!=null) {
 			System.setProperty("app.store-id", storeId);
 		}
 		if (terminalId!=null) {
 			System.setProperty("app.terminal-id", terminalId);
 		}
+		if (threads!=null) {
+			if (!"virtual".equalsIgnoreCase(threads) && !"platform".equalsIgnoreCase(threads)) {
+				throw new IllegalArgumentException("Invalid --threads value '" + threads + "', expected platform or virtual");
+			}
+			System.setProperty("spring.threads.virtual.enabled", String.valueOf("virtual".equalsIgnoreCase(threads)));
+		}
+		if (input!=null) {
+			System.setProperty("app.batch.input", input);
+		}
+		if (output!=null) {
+			System.setProperty("app.batch.output", output);
+		}
 	}
 }
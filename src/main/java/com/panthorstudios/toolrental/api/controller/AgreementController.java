@@ -0,0 +1,69 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.api.domain.AgreementPage;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.service.AgreementStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api")
+public class AgreementController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgreementController.class);
+    private final AgreementStore agreementStore;
+
+    public AgreementController(AgreementStore agreementStore) {
+        this.agreementStore = agreementStore;
+    }
+
+    @GetMapping("/agreements/{id}")
+    public ResponseEntity<RentalAgreement> getAgreement(@PathVariable("id") String id) {
+        RentalAgreement agreement = agreementStore.get(id);
+        if (agreement != null) {
+            return ResponseEntity.ok(agreement);
+        }
+        logger.warn("Rental agreement not found: {}", id);
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Finds agreements by tool code, or by store and terminal, or by checkout date alone.
+     * The from and to dates narrow any of these; results are paged in checkout date order.
+     */
+    @GetMapping("/agreements")
+    public ResponseEntity<AgreementPage> findAgreements(@RequestParam(value = "toolCode", required = false) String toolCode,
+                                                        @RequestParam(value = "storeId", required = false) Integer storeId,
+                                                        @RequestParam(value = "terminalId", required = false) Integer terminalId,
+                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if ((storeId == null) != (terminalId == null) || (toolCode != null && storeId != null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            AgreementPage page;
+            if (toolCode != null) {
+                page = agreementStore.findByToolCode(toolCode, from, to, cursor, limit);
+            } else if (storeId != null) {
+                page = agreementStore.findByTerminal(storeId, terminalId, from, to, cursor, limit);
+            } else {
+                page = agreementStore.findByCheckoutDate(from, to, cursor, limit);
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid agreement query: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.api.domain.CatalogStatus;
+import com.panthorstudios.toolrental.api.service.CatalogReloader;
+import com.panthorstudios.toolrental.api.service.HolidayService;
+import com.panthorstudios.toolrental.api.service.ToolCatalog;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+
+/**
+ * Replaces the tools, tool types and holiday rules without a restart.
+ * Every request needs the X-Admin-Token header to match app.catalog.admin-token; without a configured token
+ * the endpoint is not served.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class CatalogAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogAdminController.class);
+
+    static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private final CatalogReloader catalogReloader;
+    private final ToolService toolService;
+    private final HolidayService holidayService;
+    private final AppProperties appProperties;
+
+    public CatalogAdminController(CatalogReloader catalogReloader, ToolService toolService, HolidayService holidayService, AppProperties appProperties) {
+        this.catalogReloader = catalogReloader;
+        this.toolService = toolService;
+        this.holidayService = holidayService;
+        this.appProperties = appProperties;
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<CatalogStatus> getCatalog(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        return authorized(token, () -> ResponseEntity.ok(status(toolService.getCatalog(), holidayService.getRulesGeneration(), false, null)));
+    }
+
+    /**
+     * Replaces the catalog with a YAML or JSON document using the keys of application.yml:
+     * tools-map, tool-types-map and holiday-rules-list. Sections left out are kept.
+     */
+    @PutMapping("/catalog")
+    public ResponseEntity<CatalogStatus> replaceCatalog(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+                                                        @RequestBody String document) {
+        return authorized(token, () -> reload(() -> catalogReloader.reload(document, "admin request")));
+    }
+
+    /**
+     * Reloads the catalog file set in app.catalog.file
+     */
+    @PostMapping("/catalog/reload")
+    public ResponseEntity<CatalogStatus> reloadCatalog(@RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        return authorized(token, () -> reload(catalogReloader::reloadFile));
+    }
+
+    private ResponseEntity<CatalogStatus> reload(Supplier<CatalogReloader.Result> reload) {
+        try {
+            CatalogReloader.Result result = reload.get();
+            return ResponseEntity.ok(status(result.catalog(), result.rulesGeneration(), result.changed(), null));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Catalog not replaced: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(status(toolService.getCatalog(), holidayService.getRulesGeneration(), false, e.getMessage()));
+        } catch (IllegalStateException | UncheckedIOException e) {
+            logger.warn("Catalog not reloaded: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(status(toolService.getCatalog(), holidayService.getRulesGeneration(), false, e.getMessage()));
+        }
+    }
+
+    private static CatalogStatus status(ToolCatalog catalog, long rulesGeneration, boolean changed, String error) {
+        return new CatalogStatus(catalog.getVersion(), rulesGeneration, catalog.getToolCodes().size(), catalog.getToolTypes().size(), changed, error);
+    }
+
+    private ResponseEntity<CatalogStatus> authorized(String token, Supplier<ResponseEntity<CatalogStatus>> handler) {
+        AppProperties.Catalog settings = appProperties.getCatalog() != null ? appProperties.getCatalog() : new AppProperties.Catalog();
+        String adminToken = settings.getAdminToken();
+        if (adminToken == null || adminToken.isBlank()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Compared in constant time so the token cannot be guessed from response times
+        if (token == null || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Rejected catalog admin request without a valid token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return handler.get();
+    }
+}
@@ -0,0 +1,143 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.service.ToolCatalog;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The tool and tool type responses, serialized once for each catalog version.
+ * <p>
+ * Whenever the catalog changes, every response is written to JSON and gzipped, and given a strong ETag derived
+ * from its bytes, so the same content always has the same ETag, across catalog versions and restarts. Serving
+ * a response is then a map lookup; nothing is read from the tool service or serialized per request.
+ */
+@Component
+public class CatalogResponses {
+
+    /**
+     * One response body and its gzipped form
+     *
+     * @param json the JSON bytes
+     * @param gzip the gzipped JSON, or null if gzip does not make it smaller
+     * @param etag the quoted ETag of the JSON
+     * @param gzipEtag the quoted ETag of the gzipped JSON
+     */
+    public record Body(byte[] json, byte[] gzip, String etag, String gzipEtag) {}
+
+    // The responses for one catalog version
+    private record Snapshot(long version, Body tools, Body toolTypes, Map<String, Body> toolsByCode) {}
+
+    // Responses this small fit in a packet either way, so are not worth gzipping
+    private static final int MIN_GZIP_SIZE = 256;
+
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    public CatalogResponses(ToolService toolService, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        toolService.addCatalogListener(this::update);
+        update(toolService.getCatalog());
+    }
+
+    /**
+     * @return the response to a request for all tools
+     */
+    public Body tools() {
+        return snapshot.tools();
+    }
+
+    /**
+     * @return the response to a request for all tool types
+     */
+    public Body toolTypes() {
+        return snapshot.toolTypes();
+    }
+
+    /**
+     * @param code the tool code
+     * @return the response to a request for the tool, or null if there is no such tool
+     */
+    public Body tool(String code) {
+        return code == null ? null : snapshot.toolsByCode().get(code);
+    }
+
+    /**
+     * @return the version of the catalog the responses were written from
+     */
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Writes the responses for a catalog, unless newer ones are already in place
+     *
+     * @param catalog the catalog
+     */
+    void update(ToolCatalog catalog) {
+        updateLock.lock();
+        try {
+            if (snapshot != null && snapshot.version() >= catalog.getVersion()) {
+                return;
+            }
+            Map<String, Body> toolsByCode = new HashMap<>();
+            for (Tool tool : catalog.getTools()) {
+                toolsByCode.put(tool.code(), body(tool));
+            }
+            snapshot = new Snapshot(catalog.getVersion(), body(catalog.getTools()), body(catalog.getToolTypes()), Map.copyOf(toolsByCode));
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private Body body(Object value) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write catalog response", e);
+        }
+        String hash = hash(json);
+        byte[] gzip = json.length >= MIN_GZIP_SIZE ? gzip(json) : null;
+        if (gzip != null && gzip.length >= json.length) {
+            gzip = null;
+        }
+        return new Body(json, gzip, "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+    }
+
+    // The first 128 bits of the SHA-256 of the bytes, in URL-safe base64
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
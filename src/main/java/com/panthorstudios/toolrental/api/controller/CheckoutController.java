@@ -1,31 +1,94 @@
 package com.panthorstudios.toolrental.api.controller;
 
 import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.RentalAgreementRequest;
+import com.panthorstudios.toolrental.api.exception.IdempotencyKeyReusedException;
+import com.panthorstudios.toolrental.api.exception.ToolUnavailableException;
+import com.panthorstudios.toolrental.api.service.BatchCheckoutService;
 import com.panthorstudios.toolrental.api.service.CheckoutService;
-import org.springframework.format.annotation.DateTimeFormat;
+import com.panthorstudios.toolrental.api.service.IdempotencyCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api")
 public class CheckoutController {
 
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutController.class);
+
     private final CheckoutService checkoutService;
+    private final BatchCheckoutService batchCheckoutService;
+    private final IdempotencyCache idempotencyCache;
 
-    protected record RentalAgreementRequest(String toolCode, @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)LocalDate checkoutDate, int rentalDays, int discountPercent){};
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
-    public CheckoutController(CheckoutService checkoutService) {
+    public CheckoutController(CheckoutService checkoutService, BatchCheckoutService batchCheckoutService, IdempotencyCache idempotencyCache) {
         this.checkoutService = checkoutService;
+        this.batchCheckoutService = batchCheckoutService;
+        this.idempotencyCache = idempotencyCache;
     }
+
+    /**
+     * Checks out a tool. When the request carries an Idempotency-Key header, a retry with the same key
+     * returns the agreement issued the first time instead of checking out again. A different request with
+     * a key already in use gets 422 Unprocessable Entity.
+     */
     @PostMapping("/checkout")
-    public ResponseEntity<RentalAgreement> toolRentalCheckoutGetHandler(@RequestBody RentalAgreementRequest rentalAgreementRequest) {
-        RentalAgreement rentalAgreement = checkoutService.toolRentalCheckout(rentalAgreementRequest.toolCode(),
+    public ResponseEntity<RentalAgreement> toolRentalCheckoutGetHandler(@RequestBody RentalAgreementRequest rentalAgreementRequest,
+                                                                        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(checkout(rentalAgreementRequest));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(idempotencyCache.getOrCheckout(idempotencyKey, rentalAgreementRequest, () -> checkout(rentalAgreementRequest)));
+    }
+
+    private RentalAgreement checkout(RentalAgreementRequest rentalAgreementRequest) {
+        return checkoutService.toolRentalCheckout(rentalAgreementRequest.toolCode(),
                 rentalAgreementRequest.checkoutDate(),
                 rentalAgreementRequest.rentalDays(),
                 rentalAgreementRequest.discountPercent());
+    }
+
+    /**
+     * A checkout of a tool that is already rented for some of its dates gets 409 Conflict
+     */
+    @ExceptionHandler(ToolUnavailableException.class)
+    public ResponseEntity<Void> toolUnavailableHandler(ToolUnavailableException e) {
+        logger.warn("Checkout rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * A checkout that reuses an Idempotency-Key for a different request gets 422 Unprocessable Entity
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Void> idempotencyKeyReusedHandler(IdempotencyKeyReusedException e) {
+        logger.warn("Checkout rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+    }
 
-        return ResponseEntity.ok(rentalAgreement);
+    /**
+     * Checks out a JSON array or newline-delimited JSON stream of rental requests.
+     * Results are streamed back as newline-delimited JSON in request order, one line per request.
+     */
+    @PostMapping(value = "/checkout/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void toolRentalBatchCheckoutHandler(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        batchCheckoutService.checkout(request.getInputStream(), response.getOutputStream());
     }
 }
@@ -0,0 +1,44 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.service.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api")
+public class ReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+    private final ReservationService reservationService;
+
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Finds the tools of a type that are not rented on any day from the from date to the to date, both included.
+     * Results are paged in tool code order.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ToolPage> findAvailable(@RequestParam(value = "type", required = false) String type,
+                                                  @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(reservationService.findAvailable(type, from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid availability query: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
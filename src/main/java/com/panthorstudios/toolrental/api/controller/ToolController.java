@@ -1,51 +1,162 @@
 package com.panthorstudios.toolrental.api.controller;
 
-import com.panthorstudios.toolrental.api.domain.Tool;
-import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
 import com.panthorstudios.toolrental.api.service.ToolService;
+import com.panthorstudios.toolrental.properties.AppProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.Duration;
 
+/**
+ * Serves the tools and tool types from responses written once per catalog version by {@link CatalogResponses}.
+ * Each response carries a strong ETag; a request whose If-None-Match already names it gets 304 with no body.
+ * Clients that accept gzip get the gzipped bytes, which have their own ETag.
+ * <p>
+ * A request for tools with any search parameter is answered a page at a time from the catalog's indexes instead.
+ */
 @RestController
 @RequestMapping("/api")
 public class ToolController {
 
     private static final Logger logger = LoggerFactory.getLogger(ToolController.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private final CatalogResponses catalogResponses;
     private final ToolService toolService;
+    private final CacheControl cacheControl;
 
-    public ToolController(ToolService toolService) {
+    public ToolController(CatalogResponses catalogResponses, ToolService toolService, AppProperties appProperties) {
+        this.catalogResponses = catalogResponses;
         this.toolService = toolService;
+        AppProperties.Catalog settings = appProperties.getCatalog() != null ? appProperties.getCatalog() : new AppProperties.Catalog();
+        this.cacheControl = settings.getResponseMaxAgeSeconds() > 0
+                ? CacheControl.maxAge(Duration.ofSeconds(settings.getResponseMaxAgeSeconds())).mustRevalidate()
+                : CacheControl.noCache();
     }
 
     @GetMapping("/tools")
-    public ResponseEntity<List<Tool>> getAllTools() {
-        List<Tool> tools = toolService.getAllTools();
-        return ResponseEntity.ok(tools);
+    public ResponseEntity<?> getAllTools(@RequestParam(value = "type", required = false) String type,
+                                         @RequestParam(value = "brand", required = false) String brand,
+                                         @RequestParam(value = "codePrefix", required = false) String codePrefix,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (type == null && brand == null && codePrefix == null && cursor == null && limit == null) {
+            return respond(catalogResponses.tools(), ifNoneMatch, acceptEncoding);
+        }
+        try {
+            ToolPage page = toolService.searchTools(type, brand, codePrefix, cursor, limit != null ? limit : DEFAULT_PAGE_SIZE);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid tool search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/tool-types")
-    public ResponseEntity<List<ToolType>> getAllToolTypes() {
-        List<ToolType> toolTypes = toolService.getAllToolTypes();
-        return ResponseEntity.ok(toolTypes);
+    public ResponseEntity<byte[]> getAllToolTypes(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return respond(catalogResponses.toolTypes(), ifNoneMatch, acceptEncoding);
     }
-    @GetMapping("/tools/{code}")
-    public ResponseEntity<Tool> getTool(@PathVariable("code") String code) {
 
-        Optional<Tool> toolOptional = toolService.getToolByCode(code);
-        if (toolOptional.isPresent()) {
-            return ResponseEntity.ok(toolOptional.get());
+    @GetMapping("/tools/{code}")
+    public ResponseEntity<byte[]> getTool(@PathVariable("code") String code,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogResponses.Body body = catalogResponses.tool(code);
+        if (body != null) {
+            return respond(body, ifNoneMatch, acceptEncoding);
         }
         logger.warn("Tool not found: {}", code);
         return ResponseEntity.notFound().build();
     }
-}
 
+    private ResponseEntity<byte[]> respond(CatalogResponses.Body body, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = body.gzip() != null && acceptsGzip(acceptEncoding);
+        String etag = gzip ? body.gzipEtag() : body.etag();
+        if (ifNoneMatch != null && (matches(ifNoneMatch, body.etag()) || (body.gzip() != null && matches(ifNoneMatch, body.gzipEtag())))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Checks an If-None-Match header for an ETag, comparing weakly as the header requires
+     *
+     * @param ifNoneMatch the header: *, or a comma-separated list of ETags, each possibly weak
+     * @param etag the quoted ETag of the current response
+     * @return true if the client already has the response
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * @param acceptEncoding the Accept-Encoding header, or null
+     * @return true if gzip is listed without q=0; a q value that is not a number from 0 to 1 also means not acceptable
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && !(qValue(parameter.substring(2)) > 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the q value, or NaN if it is not a number from 0 to 1
+     */
+    private static double qValue(String value) {
+        try {
+            double q = Double.parseDouble(value);
+            return q >= 0 && q <= 1 ? q : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import java.util.List;
+
+/**
+ * One page of rental agreements from an agreement query
+ *
+ * @param agreements the agreements on this page, in checkout date order
+ * @param nextCursor pass as the cursor to fetch the next page, or null if this is the last page
+ */
+public record AgreementPage(List<RentalAgreement> agreements, String nextCursor) {}
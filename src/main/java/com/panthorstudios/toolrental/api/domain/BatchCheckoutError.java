@@ -0,0 +1,4 @@
+package com.panthorstudios.toolrental.api.domain;
+
+// Result line for a batch item that could not be checked out
+public record BatchCheckoutError(long index, String error, String message) {}
@@ -0,0 +1,13 @@
+package com.panthorstudios.toolrental.api.domain;
+
+/**
+ * The catalog in use, as reported by the admin endpoint
+ *
+ * @param catalogVersion the version of the tool catalog, recorded on every agreement it prices
+ * @param rulesGeneration the generation of the holiday rules
+ * @param tools the number of tools
+ * @param toolTypes the number of tool types
+ * @param changed true if the request replaced the catalog
+ * @param error why the request did not replace the catalog, or null
+ */
+public record CatalogStatus(long catalogVersion, long rulesGeneration, int tools, int toolTypes, boolean changed, String error) {}
@@ -1,5 +1,15 @@
 package com.panthorstudios.toolrental.api.domain;
 
-// Constructor for fixed-date holidays with weekend adjustment
-public record HolidayRule(String countryCode, String type, String name, Integer month, Integer day, Integer dayOfWeek, Integer occurrence, String weekendFunctionCode) {}
-
+/**
+ * A holiday rule as configured in app.holiday-rules-list. The fields used depend on the type:
+ * <ul>
+ *     <li>FIXED_DATE: month and day</li>
+ *     <li>FIXED_WEEKDAY: month, dayOfWeek (1 = Monday) and occurrence (1 to 4), e.g. the first Monday of September</li>
+ *     <li>LAST_WEEKDAY: month and dayOfWeek, e.g. the last Monday of May</li>
+ *     <li>EASTER_RELATIVE: offsetDays from Western Easter Sunday, e.g. -2 for Good Friday</li>
+ *     <li>RELATIVE_TO_HOLIDAY: offsetDays from the observed date of the holiday named by relativeTo in the same country</li>
+ * </ul>
+ * Any type may set weekendFunctionCode to move the holiday off a weekend.
+ */
+public record HolidayRule(String countryCode, String type, String name, Integer month, Integer day, Integer dayOfWeek,
+                          Integer occurrence, String weekendFunctionCode, Integer offsetDays, String relativeTo) {}
@@ -0,0 +1,68 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A fixed-point amount of money held as a whole number of cents.
+ * All arithmetic is exact and throws {@link ArithmeticException} on overflow.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    /**
+     * Converts a decimal amount to money
+     *
+     * @param amount the amount, with at most two decimal places
+     * @return the money
+     * @throws ArithmeticException if the amount has more than two decimal places or does not fit in a long
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long multiplier) {
+        return new Money(Math.multiplyExact(cents, multiplier));
+    }
+
+    /**
+     * Calculates a percentage of this amount, rounded to the nearest cent with ties away from zero (HALF_UP)
+     *
+     * @param percent the percentage
+     * @return the percentage of this amount
+     */
+    public Money percent(int percent) {
+        long hundredths = Math.multiplyExact(cents, (long) percent);
+        long magnitude = Math.absExact(hundredths);
+        long rounded = magnitude / 100 + (magnitude % 100 >= 50 ? 1 : 0);
+        return new Money(hundredths < 0 ? -rounded : rounded);
+    }
+
+    /**
+     * @return the amount as a BigDecimal with two decimal places
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static com.panthorstudios.toolrental.util.FormattingTools.*;
+
+/**
+ * Renders a rental agreement as its text receipt, one "Label: value" line per field.
+ * <p>
+ * Numbers, money and dates are written by the append methods in FormattingTools rather than String.format,
+ * so rendering into a reused Appendable or ByteBuffer allocates next to nothing. The String-returning methods
+ * build into a per-thread StringBuilder, which is only reused on pooled threads, not on a virtual thread per task.
+ */
+public final class ReceiptRenderer {
+
+    // A builder grown past this by an unusually long receipt is not kept for the next one
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> TEXT = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private ReceiptRenderer() {
+    }
+
+    /**
+     * Renders a receipt into an Appendable
+     *
+     * @param agreement the rental agreement
+     * @param out where the receipt is appended
+     * @return out
+     * @throws UncheckedIOException if out throws an IOException
+     */
+    public static <A extends Appendable> A render(RentalAgreement agreement, A out) {
+        try {
+            out.append("Tool code: ").append(agreement.toolCode()).append('\n');
+            out.append("Tool type: ").append(agreement.toolType()).append('\n');
+            out.append("Tool brand: ").append(agreement.toolBrand()).append('\n');
+            out.append("Rental days: ");
+            appendIntegerWithCommas(out, agreement.rentalDays());
+            out.append('\n').append("Check out date: ");
+            appendShortDate(out, agreement.checkoutDate());
+            out.append('\n').append("Due date: ");
+            appendShortDate(out, agreement.dueDate());
+            out.append('\n').append("Daily rental charge: ");
+            appendMoney(out, agreement.dailyRentalCharge());
+            out.append('\n').append("Charge days: ");
+            appendIntegerWithCommas(out, agreement.chargeDays());
+            out.append('\n').append("Pre-discount charge: ");
+            appendMoney(out, agreement.preDiscountCharge());
+            out.append('\n').append("Discount percent: ");
+            appendPercentage(out, agreement.discountPercent());
+            out.append('\n').append("Discount amount: ");
+            appendMoney(out, agreement.discountAmount());
+            out.append('\n').append("Final charge: ");
+            appendMoney(out, agreement.finalCharge());
+            out.append('\n');
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders a receipt into a ByteBuffer as UTF-8, starting at its position
+     *
+     * @param agreement the rental agreement
+     * @param out where the receipt is written; its position is advanced past the receipt. A buffer without a
+     *            backing array, or with little room to spare, is written through a temporary array.
+     * @throws BufferOverflowException if the receipt does not fit in the remaining bytes; nothing is written
+     */
+    public static void render(RentalAgreement agreement, ByteBuffer out) {
+        StringBuilder text = render(agreement, text());
+        // A character takes at most three bytes; a surrogate pair takes four for its two characters
+        if (out.hasArray() && out.remaining() >= text.length() * 3) {
+            int position = encode(text, out.array(), out.arrayOffset() + out.position());
+            out.position(position - out.arrayOffset());
+            return;
+        }
+        byte[] bytes = new byte[text.length() * 3];
+        out.put(bytes, 0, encode(text, bytes, 0));
+    }
+
+    /**
+     * Encodes text as UTF-8
+     *
+     * @return the index after the last byte written
+     */
+    private static int encode(CharSequence text, byte[] out, int position) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out[position++] = (byte) c;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out[position++] = (byte) (0xF0 | (codePoint >> 18));
+                out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // As String.getBytes encodes a lone surrogate
+                out[position++] = '?';
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Renders a receipt to a string, using this thread's reusable builder
+     *
+     * @param agreement the rental agreement
+     * @return the receipt
+     */
+    public static String render(RentalAgreement agreement) {
+        return render(agreement, text()).toString();
+    }
+
+    private static StringBuilder text() {
+        StringBuilder text = TEXT.get();
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            text = new StringBuilder(512);
+            TEXT.set(text);
+        }
+        text.setLength(0);
+        return text;
+    }
+}
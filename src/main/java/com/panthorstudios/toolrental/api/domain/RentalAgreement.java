@@ -5,8 +5,11 @@ import com.panthorstudios.toolrental.cli.adapter.OutputAdapter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
-import static com.panthorstudios.toolrental.util.FormattingTools.*;
-
+/**
+ * A rental agreement as issued at checkout.
+ * The catalog version is the version of the tool catalog that priced the rental, see ToolService, and the
+ * holiday rules generation that of the holiday rules it was charged by, see HolidayService.
+ */
 public record RentalAgreement(String rentalAgreementId,
                               String toolCode,
                               String toolType,
@@ -19,33 +22,21 @@ public record RentalAgreement(String rentalAgreementId,
                               BigDecimal dailyRentalCharge,
                               BigDecimal preDiscountCharge,
                               BigDecimal discountAmount,
-                              BigDecimal finalCharge) {
+                              BigDecimal finalCharge,
+                              long catalogVersion,
+                              long holidayRulesGeneration) {
 
     /**
      * Print the rental agreement to a string
      * @return the rental agreement as a string
      */
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Tool code: ").append(this.toolCode()).append("\n")
-                .append("Tool type: ").append(this.toolType()).append("\n")
-                .append("Tool brand: ").append(this.toolBrand()).append("\n")
-                .append("Rental days: ").append(formatIntegerWithCommas(this.rentalDays())).append("\n")
-                .append("Check out date: ").append(this.checkoutDate().format(SHORT_DATE_FORMATTER)).append("\n")
-                .append("Due date: ").append(this.dueDate().format(SHORT_DATE_FORMATTER)).append("\n")
-                .append("Daily rental charge: ").append(formatMoney(this.dailyRentalCharge())).append("\n")
-                .append("Charge days: ").append(formatIntegerWithCommas(this.chargeDays())).append("\n")
-                .append("Pre-discount charge: ").append(formatMoney(this.preDiscountCharge())).append("\n")
-                .append("Discount percent: ").append(formatPercentage(this.discountPercent())).append("\n")
-                .append("Discount amount: ").append(formatMoney(this.discountAmount())).append("\n")
-                .append("Final charge: ").append(formatMoney(this.finalCharge())).append("\n");
-
-        return sb.toString();
+        return ReceiptRenderer.render(this);
     }
     /**
      * Print the rental agreement an output service (e.g. the console)
      */
     public void print(OutputAdapter outputAdapter) {
-        outputAdapter.printLine(this.toString());
+        outputAdapter.printLine(ReceiptRenderer.render(this));
     }
 }
@@ -0,0 +1,7 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+public record RentalAgreementRequest(String toolCode, @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkoutDate, int rentalDays, int discountPercent) {}
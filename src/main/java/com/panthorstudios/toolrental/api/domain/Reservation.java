@@ -0,0 +1,14 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import java.time.LocalDate;
+
+/**
+ * The dates a tool is booked for by a rental agreement. The tool is out from the checkout date up to and
+ * including the due date, so no other rental of it may touch any of those days.
+ *
+ * @param rentalAgreementId the agreement that holds the booking
+ * @param toolCode the tool booked
+ * @param checkoutDate the first day booked
+ * @param dueDate the last day booked
+ */
+public record Reservation(String rentalAgreementId, String toolCode, LocalDate checkoutDate, LocalDate dueDate) {}
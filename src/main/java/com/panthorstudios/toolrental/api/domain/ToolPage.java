@@ -0,0 +1,11 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import java.util.List;
+
+/**
+ * One page of tools from a tool search
+ *
+ * @param tools the tools on this page, in tool code order
+ * @param nextCursor pass as the cursor to fetch the next page, or null if this is the last page
+ */
+public record ToolPage(List<Tool> tools, String nextCursor) {}
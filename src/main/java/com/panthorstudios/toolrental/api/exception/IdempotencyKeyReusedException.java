@@ -0,0 +1,17 @@
+package com.panthorstudios.toolrental.api.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Idempotency key was already used for a different request.";
+
+    public IdempotencyKeyReusedException() {
+        super(DEFAULT_MESSAGE);
+    }
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+
+    public IdempotencyKeyReusedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.panthorstudios.toolrental.api.exception;
+
+public class ToolUnavailableException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Tool is already rented for those dates.";
+
+    public ToolUnavailableException() {
+        super(DEFAULT_MESSAGE);
+    }
+    public ToolUnavailableException(String message) {
+        super(message);
+    }
+
+    public ToolUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
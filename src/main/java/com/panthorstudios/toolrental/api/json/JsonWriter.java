@@ -0,0 +1,225 @@
+package com.panthorstudios.toolrental.api.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A growable UTF-8 byte buffer with JSON value writers that match Jackson's default output.
+ * <p>
+ * Strings are escaped as Jackson escapes them: quote, backslash and the control characters \b, \t, \n, \f and \r
+ * get a short escape, other control characters and each half of a surrogate pair a six-character hex escape,
+ * and everything else is written as UTF-8.
+ * Numbers and dates are written digit by digit, without creating strings.
+ */
+final class JsonWriter {
+
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // For each ASCII character: 0 = written as is, -1 = hex escape, otherwise the character after the backslash
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        Arrays.fill(ESCAPES, 0, 32, (byte) -1);
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+    }
+
+    private byte[] bytes;
+    private int length;
+
+    JsonWriter(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Writes bytes that are already encoded, such as a field name with its quotes and colon
+     */
+    void raw(byte[] encoded) {
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    void raw(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+    }
+
+    void nullValue() {
+        raw(NULL);
+    }
+
+    void bool(boolean value) {
+        raw(value ? TRUE : FALSE);
+    }
+
+    void number(int value) {
+        number((long) value);
+    }
+
+    void number(long value) {
+        if (value == Long.MIN_VALUE) {
+            // The one value whose magnitude does not fit in a long
+            raw(ascii(Long.toString(value)));
+            return;
+        }
+        ensureCapacity(20);
+        long remaining = value;
+        if (remaining < 0) {
+            bytes[length++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long rest = remaining / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length = end;
+    }
+
+    /**
+     * Writes a decimal as Jackson does, by its {@link BigDecimal#toString()}
+     */
+    void number(BigDecimal value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        // The string is cached by the BigDecimal, and is plain ASCII
+        String text = value.toString();
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            bytes[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    /**
+     * Writes a date as an ISO-8601 string, e.g. "2024-06-28"
+     */
+    void date(LocalDate value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Signed and extended years are rare enough to format the slow way
+            string(value.toString());
+            return;
+        }
+        ensureCapacity(12);
+        bytes[length++] = '"';
+        digits(year, 4);
+        bytes[length++] = '-';
+        digits(value.getMonthValue(), 2);
+        bytes[length++] = '-';
+        digits(value.getDayOfMonth(), 2);
+        bytes[length++] = '"';
+    }
+
+    /**
+     * Writes a quoted, escaped string
+     */
+    void string(String value) {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        // Six bytes per character covers the longest escape, and the quotes
+        ensureCapacity(value.length() * 6 + 2);
+        byte[] out = bytes;
+        int position = length;
+        out[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                if (escape == 0) {
+                    out[position++] = (byte) c;
+                } else if (escape > 0) {
+                    out[position++] = '\\';
+                    out[position++] = escape;
+                } else {
+                    position = hexEscape(out, position, c);
+                }
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes each half of a surrogate pair rather than encoding the code point
+                position = hexEscape(out, position, c);
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[position++] = '"';
+        length = position;
+    }
+
+    private static int hexEscape(byte[] out, int position, char c) {
+        out[position++] = '\\';
+        out[position++] = 'u';
+        out[position++] = HEX[c >> 12];
+        out[position++] = HEX[(c >> 8) & 0xF];
+        out[position++] = HEX[(c >> 4) & 0xF];
+        out[position++] = HEX[c & 0xF];
+        return position;
+    }
+
+    // Writes a non-negative number zero-padded to the given number of digits
+    private void digits(int value, int count) {
+        for (int i = length + count - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += count;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records in a ledger directory, oldest first.
+ * Each segment is mapped read-only and its records are visited in place, without copying them to the heap.
+ */
+public final class LedgerReader {
+
+    private LedgerReader() {
+    }
+
+    /**
+     * Visits every valid record in the ledger.
+     * Reading a segment stops at its end marker or at the first record that is torn or fails its checksum.
+     *
+     * @param directory the ledger directory
+     * @param visitor receives a view of each record; the view is reused, so copy anything needed after the call
+     * @return the number of records visited
+     * @throws IOException if a segment cannot be read
+     */
+    public static long forEach(Path directory, Consumer<LedgerRecord> visitor) throws IOException {
+        long[] count = {0};
+        List<Path> segments = LedgerSegment.list(directory);
+        for (Path path : segments) {
+            ByteBuffer buffer = LedgerSegment.mapReadOnly(path);
+            LedgerSegment.scan(buffer, record -> {
+                visitor.accept(record);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+}
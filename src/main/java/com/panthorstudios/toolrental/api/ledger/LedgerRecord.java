@@ -0,0 +1,178 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary layout of one rental agreement in the ledger, and a reusable view over a record in place.
+ * <p>
+ * A record is an 8-byte header followed by the payload:
+ * <pre>
+ *   header   int length of the payload, written last so a reader never sees a partial record as complete
+ *            int CRC-32C of the payload
+ *   payload  long sequence, long recorded-at time in ms,
+ *            int checkout date and int due date as epoch days, int rental days, int charge days, int discount percent,
+ *            long daily charge, pre-discount charge, discount and final charge in cents,
+ *            then the agreement ID, tool code, tool type and brand, each a short length and UTF-8 bytes,
+ *            then long catalog version and long holiday rules generation
+ * </pre>
+ * All values are little-endian. A zero length marks the end of the records in a segment.
+ * Records written before the catalog version or holiday rules generation were added end before them, and read them as 0.
+ */
+public final class LedgerRecord {
+
+    static final int HEADER_SIZE = 8;
+    static final int FIXED_PAYLOAD_SIZE = 68;
+    static final int MAX_STRING_BYTES = 0xFFFF;
+    static final int MAX_PAYLOAD_SIZE = FIXED_PAYLOAD_SIZE + 4 * (2 + MAX_STRING_BYTES) + 8 + 8;
+
+    private static final int SEQUENCE = 0;
+    private static final int RECORDED_AT = 8;
+    private static final int CHECKOUT_DATE = 16;
+    private static final int DUE_DATE = 20;
+    private static final int RENTAL_DAYS = 24;
+    private static final int CHARGE_DAYS = 28;
+    private static final int DISCOUNT_PERCENT = 32;
+    private static final int DAILY_CHARGE = 36;
+    private static final int PRE_DISCOUNT_CHARGE = 44;
+    private static final int DISCOUNT_AMOUNT = 52;
+    private static final int FINAL_CHARGE = 60;
+
+    private ByteBuffer buffer;
+    private int payloadOffset;
+    private int payloadLength;
+
+    /**
+     * Points this view at a record's payload. The buffer is read in place, never copied.
+     *
+     * @param buffer a little-endian buffer holding the record
+     * @param payloadOffset the absolute offset of the payload
+     * @param payloadLength the length of the payload
+     * @return this view
+     */
+    LedgerRecord wrap(ByteBuffer buffer, int payloadOffset, int payloadLength) {
+        this.buffer = buffer;
+        this.payloadOffset = payloadOffset;
+        this.payloadLength = payloadLength;
+        return this;
+    }
+
+    public long sequence() {
+        return buffer.getLong(payloadOffset + SEQUENCE);
+    }
+
+    public long recordedAtMs() {
+        return buffer.getLong(payloadOffset + RECORDED_AT);
+    }
+
+    public long finalChargeCents() {
+        return buffer.getLong(payloadOffset + FINAL_CHARGE);
+    }
+
+    /**
+     * @return a read-only view of the payload, sharing the underlying buffer
+     */
+    public ByteBuffer payload() {
+        return buffer.slice(payloadOffset, payloadLength).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes the record into a rental agreement
+     *
+     * @return the rental agreement
+     */
+    public RentalAgreement toRentalAgreement() {
+        int position = payloadOffset + FIXED_PAYLOAD_SIZE;
+        String[] strings = new String[4];
+        for (int i = 0; i < strings.length; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            byte[] bytes = new byte[length];
+            buffer.get(position + 2, bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+        int end = payloadOffset + payloadLength;
+        long catalogVersion = position + 8 <= end ? buffer.getLong(position) : 0;
+        long holidayRulesGeneration = position + 16 <= end ? buffer.getLong(position + 8) : 0;
+        return new RentalAgreement(strings[0],
+                strings[1],
+                strings[2],
+                strings[3],
+                buffer.getInt(payloadOffset + RENTAL_DAYS),
+                LocalDate.ofEpochDay(buffer.getInt(payloadOffset + CHECKOUT_DATE)),
+                buffer.getInt(payloadOffset + DISCOUNT_PERCENT),
+                LocalDate.ofEpochDay(buffer.getInt(payloadOffset + DUE_DATE)),
+                buffer.getInt(payloadOffset + CHARGE_DAYS),
+                amount(DAILY_CHARGE),
+                amount(PRE_DISCOUNT_CHARGE),
+                amount(DISCOUNT_AMOUNT),
+                amount(FINAL_CHARGE),
+                catalogVersion,
+                holidayRulesGeneration);
+    }
+
+    private BigDecimal amount(int offset) {
+        return new Money(buffer.getLong(payloadOffset + offset)).toBigDecimal();
+    }
+
+    /**
+     * Encodes a rental agreement as a complete record, header included, at the buffer's position
+     *
+     * @param agreement the rental agreement
+     * @param sequence the record's sequence number
+     * @param recordedAtMs the time the record was written
+     * @param target a little-endian buffer with room for {@link #HEADER_SIZE} + {@link #MAX_PAYLOAD_SIZE} bytes;
+     *               its position is advanced past the record
+     * @throws IllegalArgumentException if a string is longer than 65535 bytes in UTF-8
+     * @throws ArithmeticException if an amount has more than two decimal places
+     */
+    static void encode(RentalAgreement agreement, long sequence, long recordedAtMs, ByteBuffer target) {
+        int start = target.position();
+        int payload = start + HEADER_SIZE;
+        target.putLong(payload + SEQUENCE, sequence)
+                .putLong(payload + RECORDED_AT, recordedAtMs)
+                .putInt(payload + CHECKOUT_DATE, Math.toIntExact(agreement.checkoutDate().toEpochDay()))
+                .putInt(payload + DUE_DATE, Math.toIntExact(agreement.dueDate().toEpochDay()))
+                .putInt(payload + RENTAL_DAYS, agreement.rentalDays())
+                .putInt(payload + CHARGE_DAYS, agreement.chargeDays())
+                .putInt(payload + DISCOUNT_PERCENT, agreement.discountPercent())
+                .putLong(payload + DAILY_CHARGE, Money.of(agreement.dailyRentalCharge()).cents())
+                .putLong(payload + PRE_DISCOUNT_CHARGE, Money.of(agreement.preDiscountCharge()).cents())
+                .putLong(payload + DISCOUNT_AMOUNT, Money.of(agreement.discountAmount()).cents())
+                .putLong(payload + FINAL_CHARGE, Money.of(agreement.finalCharge()).cents());
+        target.position(payload + FIXED_PAYLOAD_SIZE);
+        putString(target, agreement.rentalAgreementId());
+        putString(target, agreement.toolCode());
+        putString(target, agreement.toolType());
+        putString(target, agreement.toolBrand());
+        target.putLong(agreement.catalogVersion());
+        target.putLong(agreement.holidayRulesGeneration());
+        int payloadLength = target.position() - payload;
+        target.putInt(start + 4, checksum(target, payload, payloadLength));
+        target.putInt(start, payloadLength);
+    }
+
+    /**
+     * @return the CRC-32C of a range of the buffer
+     */
+    static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Ledger string too long: " + bytes.length + " bytes");
+        }
+        target.putShort((short) bytes.length).put(bytes);
+    }
+}
@@ -0,0 +1,232 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * One memory-mapped ledger file of a fixed size.
+ * <p>
+ * A segment starts with a 16-byte header (magic, format version, sequence of its first record) followed by
+ * records in the {@link LedgerRecord} layout. The file is created at its full size, so the unused tail reads as
+ * zeros and the first zero length marks the end of the records.
+ */
+final class LedgerSegment {
+
+    static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x4C444752; // "LDGR"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".seg";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path path;
+    private final long baseSequence;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int forcedPosition;
+    private long lastSequence;
+
+    private LedgerSegment(Path path, long baseSequence, MappedByteBuffer buffer, int position, long lastSequence) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.buffer = buffer;
+        this.position = position;
+        this.forcedPosition = position;
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Creates a new, empty segment.
+     * The file is written under a temporary name and only renamed into place once its header is on disk, so a
+     * crash part way through never leaves a segment without a header for {@link #recover(Path)} to reject.
+     *
+     * @param directory the ledger directory
+     * @param baseSequence the sequence of the segment's first record
+     * @param size the size of the file
+     * @return the segment, open for appending
+     * @throws IOException if the file exists or cannot be created
+     */
+    static LedgerSegment create(Path directory, long baseSequence, int size) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        if (Files.exists(path)) {
+            throw new FileAlreadyExistsException(path.toString());
+        }
+        // Left over if a previous attempt crashed; it was never a segment, so it is overwritten
+        Path temporary = directory.resolve(fileName(baseSequence) + TEMPORARY_SUFFIX);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, baseSequence);
+        buffer.force(0, HEADER_SIZE);
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(directory);
+        return new LedgerSegment(path, baseSequence, buffer, HEADER_SIZE, baseSequence - 1);
+    }
+
+    /**
+     * Opens an existing segment for appending, truncating any torn or corrupt record at its tail.
+     * Everything from the first record that is incomplete or fails its checksum is zeroed.
+     *
+     * @param path the segment file
+     * @return the segment, positioned after its last valid record
+     * @throws IOException if the file cannot be mapped or is not a ledger segment
+     */
+    static LedgerSegment recover(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long baseSequence = readHeader(path, buffer);
+        long[] lastSequence = {baseSequence - 1};
+        int end = scan(buffer, record -> lastSequence[0] = record.sequence());
+        if (end < buffer.capacity() && !isZero(buffer, end)) {
+            byte[] zeros = new byte[8192];
+            for (int i = end; i < buffer.capacity(); i += zeros.length) {
+                buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.capacity() - i));
+            }
+            buffer.force(end, buffer.capacity() - end);
+        }
+        return new LedgerSegment(path, baseSequence, buffer, end, lastSequence[0]);
+    }
+
+    /**
+     * Maps a segment read-only
+     *
+     * @param path the segment file
+     * @return the mapped file
+     * @throws IOException if the file cannot be mapped or is not a ledger segment
+     */
+    static ByteBuffer mapReadOnly(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        readHeader(path, buffer);
+        return buffer;
+    }
+
+    /**
+     * Visits the valid records in a mapped segment, stopping at the end marker or the first torn or corrupt record
+     *
+     * @param buffer the mapped segment
+     * @param visitor receives a view of each record; the view is reused and only valid during the call
+     * @return the offset just past the last valid record
+     */
+    static int scan(ByteBuffer buffer, Consumer<LedgerRecord> visitor) {
+        LedgerRecord record = new LedgerRecord();
+        int position = HEADER_SIZE;
+        while (position + LedgerRecord.HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int payload = position + LedgerRecord.HEADER_SIZE;
+            if (length < LedgerRecord.FIXED_PAYLOAD_SIZE || length > buffer.capacity() - payload) {
+                break;
+            }
+            if (LedgerRecord.checksum(buffer, payload, length) != buffer.getInt(position + 4)) {
+                break;
+            }
+            visitor.accept(record.wrap(buffer, payload, length));
+            position = payload + length;
+        }
+        return position;
+    }
+
+    /**
+     * @return the segment files in the directory, in sequence order
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Copies an encoded record into the segment
+     *
+     * @param record the record, from position to limit
+     * @param sequence the record's sequence number
+     * @return false if the segment does not have room for the record
+     */
+    boolean append(ByteBuffer record, long sequence) {
+        int length = record.remaining();
+        if (length > buffer.capacity() - position) {
+            return false;
+        }
+        // Copy the payload first and the length last, so the record only becomes visible once complete
+        buffer.put(position + 4, record, record.position() + 4, length - 4);
+        buffer.putInt(position, record.getInt(record.position()));
+        position += length;
+        lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Flushes the records appended since the last force to the storage device
+     */
+    void force() {
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    // Makes the rename durable; not every platform can open a directory, and there it is left to the file system
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The segment itself is on disk; only its name may be lost in a crash
+        }
+    }
+
+    private static long readHeader(Path path, ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a ledger segment: " + path);
+        }
+        return buffer.getLong(8);
+    }
+
+    private static boolean isZero(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX);
+    }
+}
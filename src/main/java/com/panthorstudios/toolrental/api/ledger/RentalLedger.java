@@ -0,0 +1,282 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A durable, append-only ledger of the rental agreements issued by this terminal.
+ * <p>
+ * Checkouts hand their agreements to {@link #append(RentalAgreement)}, which only queues them. A single writer
+ * thread encodes queued agreements into memory-mapped segment files and flushes them to disk in groups: after
+ * every {@code fsyncBatchSize} records or {@code fsyncIntervalMs} milliseconds, whichever comes first. The future
+ * returned by append completes with the record's sequence number once its group is on disk. If the queue stays full
+ * for {@code appendTimeoutMs}, because the disk cannot keep up, the append is rejected: its future fails and it is
+ * counted in {@link #getRejectedCount()}, so a checkout is never held up by the ledger for longer than that.
+ * <p>
+ * When the ledger is disabled every append completes immediately and nothing is written.
+ */
+@Component
+public class RentalLedger {
+    private static final Logger logger = LoggerFactory.getLogger(RentalLedger.class);
+
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+
+    // An agreement waiting to be written, and the future to complete once it is on disk
+    private record PendingAppend(RentalAgreement agreement, CompletableFuture<Long> written) {}
+
+    private final AppProperties.Ledger settings;
+    private final LongSupplier clock;
+    private final BlockingQueue<PendingAppend> queue;
+    private final LongAdder rejected = new LongAdder();
+    private final ByteBuffer scratch = ByteBuffer.allocate(LedgerRecord.HEADER_SIZE + LedgerRecord.MAX_PAYLOAD_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private Path directory;
+    private LedgerSegment segment;
+    private long nextSequence;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile Exception failure;
+
+    @Autowired
+    public RentalLedger(AppProperties appProperties) {
+        this(appProperties, System::currentTimeMillis);
+    }
+
+    /**
+     * @param appProperties the application properties
+     * @param clock supplies the time recorded with each agreement, in milliseconds
+     */
+    RentalLedger(AppProperties appProperties, LongSupplier clock) {
+        this.settings = appProperties.getLedger() != null ? appProperties.getLedger() : new AppProperties.Ledger();
+        this.clock = clock;
+        this.queue = settings.isEnabled() ? new ArrayBlockingQueue<>(settings.getQueueCapacity()) : null;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Opens the ledger, recovering the last segment, and starts the writer thread
+     *
+     * @throws UncheckedIOException if the ledger directory cannot be opened
+     */
+    @PostConstruct
+    public void open() {
+        if (!settings.isEnabled() || running) {
+            return;
+        }
+        if (settings.getSegmentSize() < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Ledger segment size must be at least " + MIN_SEGMENT_SIZE + " bytes: " + settings.getSegmentSize());
+        }
+        try {
+            directory = Path.of(settings.getDirectory());
+            Files.createDirectories(directory);
+            List<Path> segments = LedgerSegment.list(directory);
+            if (segments.isEmpty()) {
+                segment = LedgerSegment.create(directory, 1, settings.getSegmentSize());
+            } else {
+                segment = LedgerSegment.recover(segments.get(segments.size() - 1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open rental ledger in " + settings.getDirectory(), e);
+        }
+        nextSequence = segment.lastSequence() + 1;
+        logger.info("Rental ledger opened in {}: next sequence {}", directory, nextSequence);
+        running = true;
+        writer = new Thread(this::writeLoop, "rental-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a rental agreement to be written. Blocks only if the queue is full, and then for at most
+     * {@code appendTimeoutMs}.
+     *
+     * @param agreement the rental agreement
+     * @return completes with the record's sequence number once it is on disk, or 0 if the ledger is disabled;
+     *         fails if the ledger has failed or is closed, or the queue stayed full
+     */
+    public CompletableFuture<Long> append(RentalAgreement agreement) {
+        if (!settings.isEnabled()) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        CompletableFuture<Long> written = new CompletableFuture<>();
+        Exception currentFailure = failure;
+        if (currentFailure != null || !running) {
+            written.completeExceptionally(currentFailure != null ? currentFailure : new IllegalStateException("Rental ledger is closed"));
+            return written;
+        }
+        try {
+            if (!queue.offer(new PendingAppend(agreement, written), settings.getAppendTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                logger.warn("Rental ledger queue is full; agreement {} not recorded", agreement.rentalAgreementId());
+                written.completeExceptionally(new IllegalStateException("Rental ledger queue is full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            written.completeExceptionally(e);
+        }
+        return written;
+    }
+
+    /**
+     * @return the number of appends rejected because the queue stayed full
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the directory holding the segment files, or null if the ledger is disabled
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes everything already queued, flushes it to disk and stops the writer thread
+     */
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Appends that raced with closing
+        for (PendingAppend pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.written().completeExceptionally(new IllegalStateException("Rental ledger is closed"));
+        }
+        logger.info("Rental ledger closed: next sequence {}", nextSequence);
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(settings.getFsyncBatchSize());
+        List<PendingAppend> unforced = new ArrayList<>(settings.getFsyncBatchSize());
+        long lastForceNanos = System.nanoTime();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFsyncIntervalMs());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(Math.max(1, settings.getFsyncIntervalMs()), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, settings.getFsyncBatchSize() - 1);
+                }
+            } catch (InterruptedException e) {
+                // close() stops the loop; keep draining until then
+            }
+            for (PendingAppend pending : batch) {
+                write(pending, unforced);
+            }
+            batch.clear();
+            if (!unforced.isEmpty() && (unforced.size() >= settings.getFsyncBatchSize()
+                    || System.nanoTime() - lastForceNanos >= intervalNanos || !running)) {
+                forceOrFail(unforced);
+                lastForceNanos = System.nanoTime();
+            }
+        }
+        forceOrFail(unforced);
+    }
+
+    /**
+     * Writes one agreement to the current segment, rolling to a new segment if it is full. A written agreement is
+     * added to unforced to wait for the next flush; when the segment is rolled, those already waiting are flushed
+     * with the old segment.
+     */
+    private void write(PendingAppend pending, List<PendingAppend> unforced) {
+        if (failure != null) {
+            pending.written().completeExceptionally(failure);
+            return;
+        }
+        long sequence = nextSequence;
+        try {
+            scratch.clear();
+            LedgerRecord.encode(pending.agreement(), sequence, clock.getAsLong(), scratch);
+            scratch.flip();
+        } catch (RuntimeException e) {
+            logger.error("Cannot encode rental agreement {} for the ledger", pending.agreement().rentalAgreementId(), e);
+            pending.written().completeExceptionally(e);
+            return;
+        }
+        try {
+            if (!segment.append(scratch, sequence)) {
+                force(unforced);
+                segment = LedgerSegment.create(directory, sequence, settings.getSegmentSize());
+                segment.append(scratch, sequence);
+            }
+        } catch (IOException | RuntimeException e) {
+            // MappedByteBuffer.force reports I/O errors as UncheckedIOException
+            pending.written().completeExceptionally(e);
+            fail(e, unforced);
+            return;
+        }
+        nextSequence++;
+        unforced.add(pending);
+    }
+
+    private void forceOrFail(List<PendingAppend> unforced) {
+        try {
+            force(unforced);
+        } catch (RuntimeException e) {
+            fail(e, unforced);
+        }
+    }
+
+    /**
+     * Stops recording: fails the agreements written but not yet on disk and everything queued, and makes every
+     * later append fail at once
+     */
+    private void fail(Exception e, List<PendingAppend> unforced) {
+        if (failure == null) {
+            logger.error("Rental ledger failed; no further agreements will be recorded", e);
+            failure = e;
+        }
+        for (PendingAppend pending : unforced) {
+            pending.written().completeExceptionally(failure);
+        }
+        unforced.clear();
+        for (PendingAppend pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.written().completeExceptionally(failure);
+        }
+    }
+
+    private void force(List<PendingAppend> unforced) {
+        if (unforced.isEmpty()) {
+            return;
+        }
+        segment.force();
+        // The group was written in order with consecutive sequences ending just before nextSequence
+        long sequence = nextSequence - unforced.size();
+        for (PendingAppend pending : unforced) {
+            pending.written().complete(sequence++);
+        }
+        unforced.clear();
+    }
+}
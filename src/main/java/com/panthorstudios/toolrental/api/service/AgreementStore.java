@@ -0,0 +1,265 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.AgreementPage;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the rental agreements issued by this application in memory, for reprints and customer service.
+ * <p>
+ * Agreements are held by ID in a concurrent map and indexed three ways: by checkout date, by tool code and by
+ * store and terminal. Each index is a skip list ordered by checkout date and then by the order the agreements
+ * were added, so a date range is found without a scan and a page continues from a cursor rather than skipping
+ * over the pages before it.
+ * <p>
+ * Memory use is estimated per agreement. Once the estimate passes the configured cap the oldest agreements
+ * are dropped.
+ */
+@Component
+public class AgreementStore {
+
+    // Rough heap cost of one agreement and its index entries, not counting the characters of its ID
+    static final int ESTIMATED_FIXED_BYTES = 640;
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    // Position of an agreement in an index: checkout date first, then the order it was added
+    private record IndexKey(long checkoutEpochDay, long sequence) implements Comparable<IndexKey> {
+        @Override
+        public int compareTo(IndexKey other) {
+            int byDate = Long.compare(checkoutEpochDay, other.checkoutEpochDay);
+            return byDate != 0 ? byDate : Long.compare(sequence, other.sequence);
+        }
+
+        String toCursor() {
+            return checkoutEpochDay + "." + sequence;
+        }
+
+        static IndexKey fromCursor(String cursor) {
+            int separator = cursor.indexOf('.');
+            try {
+                return new IndexKey(Long.parseLong(cursor, 0, separator, 10),
+                        Long.parseLong(cursor, separator + 1, cursor.length(), 10));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+    }
+
+    private record StoredAgreement(RentalAgreement agreement, IndexKey key, Long terminalKey, long bytes) {}
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final ConcurrentMap<String, StoredAgreement> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<IndexKey, StoredAgreement> byCheckoutDate = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<IndexKey, StoredAgreement>> byToolCode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ConcurrentSkipListMap<IndexKey, StoredAgreement>> byTerminal = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<StoredAgreement> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public AgreementStore(AppProperties appProperties, MeterRegistry registry) {
+        AppProperties.AgreementStore settings = appProperties.getAgreementStore() != null ? appProperties.getAgreementStore() : new AppProperties.AgreementStore();
+        this.enabled = settings.isEnabled();
+        this.maxBytes = settings.getMaxMemoryMb() * 1024L * 1024L;
+        if (enabled && (appProperties.getMetrics() == null || appProperties.getMetrics().isEnabled())) {
+            Gauge.builder("toolrental.agreements.stored", byId, Map::size)
+                    .description("Rental agreements held in memory")
+                    .register(registry);
+            Gauge.builder("toolrental.agreements.memory", bytes, AtomicLong::get)
+                    .description("Estimated heap used by the rental agreements held in memory")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.agreements.evictions", evictions, LongAdder::sum)
+                    .description("Rental agreements dropped to stay within the memory cap")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a rental agreement to the store. An agreement whose ID is already stored is ignored.
+     *
+     * @param agreement the rental agreement
+     */
+    public void add(RentalAgreement agreement) {
+        if (!enabled) {
+            return;
+        }
+        StoredAgreement stored = new StoredAgreement(agreement,
+                new IndexKey(agreement.checkoutDate().toEpochDay(), sequence.incrementAndGet()),
+                terminalKey(agreement.rentalAgreementId()),
+                ESTIMATED_FIXED_BYTES + agreement.rentalAgreementId().length());
+        if (byId.putIfAbsent(agreement.rentalAgreementId(), stored) != null) {
+            return;
+        }
+        byCheckoutDate.put(stored.key(), stored);
+        byToolCode.computeIfAbsent(agreement.toolCode(), code -> new ConcurrentSkipListMap<>()).put(stored.key(), stored);
+        if (stored.terminalKey() != null) {
+            byTerminal.computeIfAbsent(stored.terminalKey(), key -> new ConcurrentSkipListMap<>()).put(stored.key(), stored);
+        }
+        insertionOrder.add(stored);
+        if (bytes.addAndGet(stored.bytes()) > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * @param rentalAgreementId the rental agreement ID
+     * @return the rental agreement, or null if it is not stored
+     */
+    public RentalAgreement get(String rentalAgreementId) {
+        StoredAgreement stored = byId.get(rentalAgreementId);
+        return stored != null ? stored.agreement() : null;
+    }
+
+    /**
+     * Finds agreements by checkout date
+     *
+     * @param from the first checkout date, or null for no lower bound
+     * @param to the last checkout date, or null for no upper bound
+     * @param cursor the next cursor of the previous page, or null for the first page
+     * @param limit the maximum number of agreements to return, at most {@value #MAX_PAGE_SIZE}
+     * @return a page of agreements in checkout date order
+     * @throws IllegalArgumentException if the cursor or limit is invalid
+     */
+    public AgreementPage findByCheckoutDate(LocalDate from, LocalDate to, String cursor, int limit) {
+        return page(byCheckoutDate, from, to, cursor, limit);
+    }
+
+    /**
+     * Finds agreements for a tool, optionally within a range of checkout dates
+     *
+     * @see #findByCheckoutDate(LocalDate, LocalDate, String, int)
+     */
+    public AgreementPage findByToolCode(String toolCode, LocalDate from, LocalDate to, String cursor, int limit) {
+        return page(byToolCode.get(toolCode), from, to, cursor, limit);
+    }
+
+    /**
+     * Finds agreements issued by a store and terminal, optionally within a range of checkout dates
+     *
+     * @see #findByCheckoutDate(LocalDate, LocalDate, String, int)
+     */
+    public AgreementPage findByTerminal(int storeId, int terminalId, LocalDate from, LocalDate to, String cursor, int limit) {
+        return page(byTerminal.get(terminalKey(storeId, terminalId)), from, to, cursor, limit);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return the estimated heap used by the stored agreements, in bytes
+     */
+    public long memoryBytes() {
+        return bytes.get();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private static AgreementPage page(NavigableMap<IndexKey, StoredAgreement> index, LocalDate from, LocalDate to, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
+        IndexKey low = new IndexKey(from != null ? from.toEpochDay() : Long.MIN_VALUE, Long.MIN_VALUE);
+        boolean lowInclusive = true;
+        if (cursor != null) {
+            IndexKey after = IndexKey.fromCursor(cursor);
+            if (after.compareTo(low) >= 0) {
+                low = after;
+                lowInclusive = false;
+            }
+        }
+        IndexKey high = new IndexKey(to != null ? to.toEpochDay() : Long.MAX_VALUE, Long.MAX_VALUE);
+        if (index == null || low.compareTo(high) > 0) {
+            return new AgreementPage(List.of(), null);
+        }
+
+        List<RentalAgreement> agreements = new ArrayList<>(Math.min(limit, 64));
+        IndexKey last = null;
+        Iterator<StoredAgreement> range = index.subMap(low, lowInclusive, high, true).values().iterator();
+        while (range.hasNext() && agreements.size() < limit) {
+            StoredAgreement stored = range.next();
+            agreements.add(stored.agreement());
+            last = stored.key();
+        }
+        return new AgreementPage(agreements, range.hasNext() ? last.toCursor() : null);
+    }
+
+    /**
+     * Drops the oldest agreements until the estimated memory use is back under the cap.
+     * Only one thread evicts at a time; the others carry on without waiting.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (bytes.get() > maxBytes) {
+                StoredAgreement oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                byId.remove(oldest.agreement().rentalAgreementId(), oldest);
+                byCheckoutDate.remove(oldest.key());
+                Map<IndexKey, StoredAgreement> toolIndex = byToolCode.get(oldest.agreement().toolCode());
+                if (toolIndex != null) {
+                    toolIndex.remove(oldest.key());
+                }
+                if (oldest.terminalKey() != null) {
+                    Map<IndexKey, StoredAgreement> terminalIndex = byTerminal.get(oldest.terminalKey());
+                    if (terminalIndex != null) {
+                        terminalIndex.remove(oldest.key());
+                    }
+                }
+                bytes.addAndGet(-oldest.bytes());
+                evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the store and terminal encoded in the agreement ID, or null if the ID is not a receipt ID
+     */
+    private static Long terminalKey(String rentalAgreementId) {
+        try {
+            ReceiptIdGenerator.ReceiptId receiptId = ReceiptIdGenerator.parse(rentalAgreementId);
+            return terminalKey(receiptId.storeId(), receiptId.terminalId());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long terminalKey(int storeId, int terminalId) {
+        return ((long) storeId << 32) | (terminalId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,270 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.panthorstudios.toolrental.api.domain.BatchCheckoutError;
+import com.panthorstudios.toolrental.api.domain.RentalAgreementRequest;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import com.panthorstudios.toolrental.util.OrderedParallelProcessor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service class for checking out many tool rentals in one pass.
+ * Requests are read from JSON or CSV, checked out in parallel on a bounded pool and the results are written as
+ * newline-delimited JSON in the order the requests were read.
+ */
+@Service
+public class BatchCheckoutService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchCheckoutService.class);
+
+    private static final String INVALID_REQUEST = "InvalidRequest";
+    private static final int FLUSH_INTERVAL = 64;
+
+    public record BatchSummary(long items, long errors) {}
+
+    // An input read from the stream, or the error that stopped the stream from being read
+    private record BatchItem<T>(long index, T input, RuntimeException readError) {}
+
+    private final CheckoutService checkoutService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    public BatchCheckoutService(CheckoutService checkoutService, ObjectMapper objectMapper, AppProperties appProperties) {
+        AppProperties.Batch batch = appProperties.getBatch() != null ? appProperties.getBatch() : new AppProperties.Batch();
+        this.checkoutService = checkoutService;
+        this.objectMapper = objectMapper;
+        this.resultWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.executor = Executors.newFixedThreadPool(batch.getThreads(), new BatchThreadFactory());
+        this.maxInFlight = batch.getMaxInFlight();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks out the rental requests in a JSON array or a stream of newline-delimited JSON objects.
+     *
+     * @param in the JSON input
+     * @param out receives one JSON line per request, either the rental agreement or a {@link BatchCheckoutError}
+     * @return the number of requests and errors
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public BatchSummary checkout(InputStream in, OutputStream out) throws IOException {
+        try (MappingIterator<RentalAgreementRequest> requests = objectMapper.readerFor(RentalAgreementRequest.class).readValues(in)) {
+            return checkout(requests, out);
+        }
+    }
+
+    /**
+     * Checks out the rental requests in CSV lines, one request per line; see {@link CsvRequestParser} for the columns.
+     * Blank lines are skipped. A line that cannot be parsed gets an error line in the output and the batch carries on.
+     *
+     * @param in the CSV input, read one line at a time
+     * @param out receives one JSON line per request, either the rental agreement or a {@link BatchCheckoutError}
+     * @return the number of requests and errors
+     * @throws IOException if the input cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if the header is missing one of the columns
+     */
+    public BatchSummary checkoutCsv(BufferedReader in, OutputStream out) throws IOException {
+        String first = in.readLine();
+        while (first != null && first.isBlank()) {
+            first = in.readLine();
+        }
+        if (first == null) {
+            return new BatchSummary(0, 0);
+        }
+        if (first.startsWith("\uFEFF")) {
+            first = first.substring(1);
+        }
+        CsvRequestParser parser;
+        Iterator<String> lines;
+        if (CsvRequestParser.isHeader(first)) {
+            parser = CsvRequestParser.fromHeader(first);
+            lines = in.lines().filter(line -> !line.isBlank()).iterator();
+        } else {
+            parser = CsvRequestParser.withDefaultColumns();
+            lines = Stream.concat(Stream.of(first), in.lines()).filter(line -> !line.isBlank()).iterator();
+        }
+        return checkout(lines, parser::parse, out);
+    }
+
+    /**
+     * Checks out a stream of rental requests.
+     * If a request cannot be parsed, an error line is written for it and no further requests are read.
+     *
+     * @param requests the rental requests, read lazily
+     * @param out receives one JSON line per request, either the rental agreement or a {@link BatchCheckoutError}
+     * @return the number of requests and errors
+     * @throws IOException if the requests cannot be read or the output cannot be written
+     */
+    public BatchSummary checkout(Iterator<RentalAgreementRequest> requests, OutputStream out) throws IOException {
+        return checkout(requests, Function.identity(), out);
+    }
+
+    /**
+     * Checks out a stream of inputs, each parsed into a rental request on the worker that checks it out.
+     * A parse failure is reported as an error line for that input.
+     */
+    private <T> BatchSummary checkout(Iterator<T> inputs, Function<T, RentalAgreementRequest> parser, OutputStream out) throws IOException {
+        long[] errors = {0};
+        long[] written = {0};
+        OrderedParallelProcessor<BatchItem<T>, Object> processor = new OrderedParallelProcessor<>(executor, maxInFlight);
+        long items;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            items = processor.process(new BatchItemIterator<>(inputs), item -> checkoutItem(item, parser), result -> {
+                try {
+                    resultWriter.writeValue(generator, result);
+                    generator.writeRaw('\n');
+                    if (result instanceof BatchCheckoutError) {
+                        errors[0]++;
+                    }
+                    if (++written[0] % FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.debug("Batch checkout complete: {} items, {} errors", items, errors[0]);
+        return new BatchSummary(items, errors[0]);
+    }
+
+    /**
+     * Checks out a single batch item, capturing any failure as a {@link BatchCheckoutError}
+     *
+     * @param item the batch item
+     * @param parser turns the item's input into a rental request
+     * @return the rental agreement or the error
+     */
+    private <T> Object checkoutItem(BatchItem<T> item, Function<T, RentalAgreementRequest> parser) {
+        if (item.readError() != null) {
+            return new BatchCheckoutError(item.index(), INVALID_REQUEST, item.readError().getMessage());
+        }
+        RentalAgreementRequest request;
+        try {
+            request = item.input() != null ? parser.apply(item.input()) : null;
+        } catch (RuntimeException e) {
+            return new BatchCheckoutError(item.index(), INVALID_REQUEST, e.getMessage());
+        }
+        if (request == null) {
+            return new BatchCheckoutError(item.index(), INVALID_REQUEST, "Request is required.");
+        }
+        try {
+            return checkoutService.toolRentalCheckout(request.toolCode(),
+                    request.checkoutDate(),
+                    request.rentalDays(),
+                    request.discountPercent());
+        } catch (RuntimeException e) {
+            logger.debug("Batch item {} failed: {}", item.index(), e.getMessage());
+            return new BatchCheckoutError(item.index(), e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Numbers the inputs and turns a request that cannot be parsed into a final error item. A failure to read the
+     * input itself is thrown instead, so a truncated or unreadable file fails the batch rather than ending it.
+     */
+    private static final class BatchItemIterator<T> implements Iterator<BatchItem<T>> {
+        private final Iterator<T> inputs;
+        private BatchItem<T> next;
+        private long nextIndex;
+        private boolean done;
+
+        BatchItemIterator(Iterator<T> inputs) {
+            this.inputs = inputs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public BatchItem<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BatchItem<T> item = next;
+            next = null;
+            return item;
+        }
+
+        private void advance() {
+            try {
+                if (inputs.hasNext()) {
+                    T input = inputs.next();
+                    next = new BatchItem<>(nextIndex++, input, null);
+                } else {
+                    done = true;
+                }
+            } catch (RuntimeException e) {
+                IOException readFailure = readFailure(e);
+                if (readFailure != null) {
+                    throw e instanceof UncheckedIOException unchecked ? unchecked : new UncheckedIOException(readFailure);
+                }
+                next = new BatchItem<>(nextIndex++, null, e);
+                done = true;
+            }
+        }
+
+        /**
+         * BufferedReader.lines() throws UncheckedIOException, and Jackson's MappingIterator wraps an I/O error in
+         * a RuntimeException; a JsonProcessingException there is malformed input, not a read failure.
+         *
+         * @return the I/O error that stopped the input from being read, or null if the input could not be parsed
+         */
+        private static IOException readFailure(RuntimeException e) {
+            if (e instanceof UncheckedIOException unchecked) {
+                return unchecked.getCause();
+            }
+            if (e.getCause() instanceof IOException cause && !(cause instanceof JsonProcessingException)) {
+                return cause;
+            }
+            return null;
+        }
+    }
+
+    private static final class BatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "batch-checkout-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Precomputed calendar that classifies every day in a range of years as a weekday, weekend day or holiday.
+ * Per-class prefix sums allow the chargeable days between two dates to be counted with a handful of array reads.
+ * <p>
+ * Each country has its own calendar, built the first time the country is asked for and rebuilt on its own when the
+ * holiday rules change, so adding a country does not slow down checkouts in the others.
+ */
+@Component
+public class BusinessCalendar {
+    private static final Logger logger = LoggerFactory.getLogger(BusinessCalendar.class);
+
+    // Day classes
+    public static final int WEEKDAY = 0;
+    public static final int WEEKEND = 1;
+    public static final int WEEKDAY_HOLIDAY = 2;
+    public static final int WEEKEND_HOLIDAY = 3;
+    private static final int DAY_CLASS_COUNT = 4;
+
+    // 1970-01-01 was a Thursday (index 3 with Monday = 0)
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    /**
+     * Day classes and prefix sums for one version of the holiday rules.
+     * classCounts[c][i] is the number of days of class c in the first i days of the horizon.
+     */
+    private record Index(long rulesGeneration, long firstEpochDay, long lastEpochDay, byte[] dayClasses, int[][] classCounts) {}
+
+    // The calendar of one country; building it only blocks checkouts in that country
+    private static final class CountryCalendar {
+        private final ReentrantLock buildLock = new ReentrantLock();
+        private volatile Index index;
+    }
+
+    private final HolidayService holidayService;
+    private final AppProperties appProperties;
+    private final ConcurrentMap<String, CountryCalendar> calendars = new ConcurrentHashMap<>();
+
+    public BusinessCalendar(HolidayService holidayService, AppProperties appProperties) {
+        this.holidayService = holidayService;
+        this.appProperties = appProperties;
+    }
+
+    /**
+     * Compiles the charge flags of a tool type into a bitmask of chargeable day classes
+     * @param toolType The tool type
+     * @return A bitmask with bit n set if day class n is chargeable
+     */
+    public static int chargeMask(ToolType toolType) {
+        int mask = 0;
+        if (toolType.chargeableOnWeekdays()) {
+            mask |= 1 << WEEKDAY;
+        }
+        if (toolType.chargeableOnWeekends()) {
+            mask |= 1 << WEEKEND;
+        }
+        if (toolType.chargeableOnHolidays()) {
+            mask |= 1 << WEEKDAY_HOLIDAY;
+        }
+        // A holiday on a weekend is chargeable if the tool is chargeable on either holidays or weekends
+        if (toolType.chargeableOnHolidays() || toolType.chargeableOnWeekends()) {
+            mask |= 1 << WEEKEND_HOLIDAY;
+        }
+        return mask;
+    }
+
+    /**
+     * Checks whether both dates fall within the calendar's horizon
+     * @param firstDay The first day of the range
+     * @param lastDay The last day of the range
+     * @return true if the range can be answered by the calendar
+     */
+    public boolean covers(LocalDate firstDay, LocalDate lastDay) {
+        return covers(holidayService.getDefaultCountryCode(), firstDay, lastDay);
+    }
+
+    /**
+     * Checks whether both dates fall within a country's calendar horizon
+     * @param countryCode The country whose holidays are used
+     * @param firstDay The first day of the range
+     * @param lastDay The last day of the range
+     * @return true if the range can be answered by the calendar
+     */
+    public boolean covers(String countryCode, LocalDate firstDay, LocalDate lastDay) {
+        Index current = currentIndex(countryCode);
+        return firstDay.toEpochDay() >= current.firstEpochDay() && lastDay.toEpochDay() <= current.lastEpochDay();
+    }
+
+    /**
+     * Counts the chargeable days between two dates, inclusive
+     * @param chargeMask The chargeable day classes, see {@link #chargeMask(ToolType)}
+     * @param firstDay The first day of the range
+     * @param lastDay The last day of the range
+     * @return The number of chargeable days
+     * @throws IllegalArgumentException if the range is outside the calendar's horizon
+     */
+    public int countChargeDays(int chargeMask, LocalDate firstDay, LocalDate lastDay) {
+        return countChargeDays(holidayService.getDefaultCountryCode(), chargeMask, firstDay, lastDay);
+    }
+
+    /**
+     * Counts the chargeable days between two dates in a country, inclusive
+     * @param countryCode The country whose holidays are used
+     * @param chargeMask The chargeable day classes, see {@link #chargeMask(ToolType)}
+     * @param firstDay The first day of the range
+     * @param lastDay The last day of the range
+     * @return The number of chargeable days
+     * @throws IllegalArgumentException if the range is outside the calendar's horizon
+     */
+    public int countChargeDays(String countryCode, int chargeMask, LocalDate firstDay, LocalDate lastDay) {
+        Index current = currentIndex(countryCode);
+        long first = firstDay.toEpochDay();
+        long last = lastDay.toEpochDay();
+        if (first < current.firstEpochDay() || last > current.lastEpochDay()) {
+            throw new IllegalArgumentException("Dates outside calendar range: " + firstDay + " to " + lastDay);
+        }
+        if (last < first) {
+            return 0;
+        }
+        int from = (int) (first - current.firstEpochDay());
+        int to = (int) (last - current.firstEpochDay()) + 1;
+        int[][] classCounts = current.classCounts();
+        int chargeDays = 0;
+        for (int dayClass = 0; dayClass < DAY_CLASS_COUNT; dayClass++) {
+            if ((chargeMask & (1 << dayClass)) != 0) {
+                chargeDays += classCounts[dayClass][to] - classCounts[dayClass][from];
+            }
+        }
+        return chargeDays;
+    }
+
+    /**
+     * Returns the class of a single day
+     * @param day The day
+     * @return One of WEEKDAY, WEEKEND, WEEKDAY_HOLIDAY or WEEKEND_HOLIDAY
+     * @throws IllegalArgumentException if the day is outside the calendar's horizon
+     */
+    public int getDayClass(LocalDate day) {
+        return getDayClass(holidayService.getDefaultCountryCode(), day);
+    }
+
+    /**
+     * Returns the class of a single day in a country
+     * @param countryCode The country whose holidays are used
+     * @param day The day
+     * @return One of WEEKDAY, WEEKEND, WEEKDAY_HOLIDAY or WEEKEND_HOLIDAY
+     * @throws IllegalArgumentException if the day is outside the calendar's horizon
+     */
+    public int getDayClass(String countryCode, LocalDate day) {
+        Index current = currentIndex(countryCode);
+        long epochDay = day.toEpochDay();
+        if (epochDay < current.firstEpochDay() || epochDay > current.lastEpochDay()) {
+            throw new IllegalArgumentException("Date outside calendar range: " + day);
+        }
+        return current.dayClasses()[(int) (epochDay - current.firstEpochDay())];
+    }
+
+    /**
+     * Returns a country's index for the current holiday rules, rebuilding it if the rules have changed
+     * @param countryCode The country
+     * @return The index
+     */
+    private Index currentIndex(String countryCode) {
+        long generation = holidayService.getRulesGeneration();
+        // No country is keyed as "", which like an unknown country has only the rules without a country
+        CountryCalendar calendar = calendars.computeIfAbsent(countryCode != null ? countryCode : "", code -> new CountryCalendar());
+        Index current = calendar.index;
+        if (current != null && current.rulesGeneration() == generation) {
+            return current;
+        }
+        calendar.buildLock.lock();
+        try {
+            current = calendar.index;
+            if (current == null || current.rulesGeneration() != generation) {
+                current = buildIndex(countryCode, generation);
+                calendar.index = current;
+            }
+            return current;
+        } finally {
+            calendar.buildLock.unlock();
+        }
+    }
+
+    private Index buildIndex(String countryCode, long generation) {
+        AppProperties.Calendar range = appProperties.getCalendar() != null ? appProperties.getCalendar() : new AppProperties.Calendar();
+        LocalDate firstDay = LocalDate.of(range.getStartYear(), 1, 1);
+        LocalDate lastDay = LocalDate.of(range.getEndYear(), 12, 31);
+        long firstEpochDay = firstDay.toEpochDay();
+        int dayCount = (int) (lastDay.toEpochDay() - firstEpochDay) + 1;
+        logger.debug("Building business calendar for {} from {} to {}", countryCode, firstDay, lastDay);
+
+        byte[] dayClasses = new byte[dayCount];
+        int firstDayOfWeek = (int) Math.floorMod(firstEpochDay + EPOCH_DAY_OF_WEEK, 7L);
+        for (int i = 0; i < dayCount; i++) {
+            dayClasses[i] = (byte) ((firstDayOfWeek + i) % 7 >= 5 ? WEEKEND : WEEKDAY);
+        }
+        Set<LocalDate> holidays = holidayService.getHolidays(countryCode, range.getStartYear(), range.getEndYear());
+        for (LocalDate holiday : holidays) {
+            if (holiday == null) {
+                continue;
+            }
+            long offset = holiday.toEpochDay() - firstEpochDay;
+            if (offset >= 0 && offset < dayCount) {
+                int i = (int) offset;
+                dayClasses[i] = (byte) (dayClasses[i] == WEEKEND ? WEEKEND_HOLIDAY : WEEKDAY_HOLIDAY);
+            }
+        }
+
+        int[][] classCounts = new int[DAY_CLASS_COUNT][dayCount + 1];
+        for (int i = 0; i < dayCount; i++) {
+            for (int dayClass = 0; dayClass < DAY_CLASS_COUNT; dayClass++) {
+                classCounts[dayClass][i + 1] = classCounts[dayClass][i];
+            }
+            classCounts[dayClasses[i]][i + 1]++;
+        }
+        return new Index(generation, firstEpochDay, firstEpochDay + dayCount - 1, dayClasses, classCounts);
+    }
+}
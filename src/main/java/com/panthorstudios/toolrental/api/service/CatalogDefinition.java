@@ -0,0 +1,114 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tools, tool types and holiday rules read from a catalog file or admin request, before they are published.
+ * <p>
+ * The document uses the keys of the app section of application.yml: tools-map, tool-types-map and
+ * holiday-rules-list, bound exactly as they are at startup. JSON is read as YAML. A section that is missing
+ * leaves the current one in place and is null here, but a document must have at least one.
+ *
+ * @param tools the tools by code, or null to keep the current tools
+ * @param toolTypes the tool types by type code, or null to keep the current tool types
+ * @param holidayRules the holiday rules, or null to keep the current rules
+ */
+public record CatalogDefinition(Map<String, Tool> tools, Map<String, ToolType> toolTypes, List<HolidayRule> holidayRules) {
+
+    /**
+     * Parses a catalog document
+     *
+     * @param content the YAML or JSON document
+     * @param origin where the document came from, for messages
+     * @return the definition
+     * @throws IllegalArgumentException if the document is not valid YAML, has none of the sections, or a value cannot be bound
+     */
+    public static CatalogDefinition parse(String content, String origin) {
+        List<PropertySource<?>> sources;
+        try {
+            sources = new YamlPropertySourceLoader().load(origin, new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8), origin));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Catalog " + origin + " is not valid YAML or JSON: " + e.getMessage(), e);
+        }
+        if (sources.size() > 1) {
+            throw new IllegalArgumentException("Catalog " + origin + " must be a single document");
+        }
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources));
+        CatalogDefinition definition;
+        try {
+            definition = new CatalogDefinition(
+                    binder.bind("tools-map", Bindable.mapOf(String.class, Tool.class)).orElse(null),
+                    binder.bind("tool-types-map", Bindable.mapOf(String.class, ToolType.class)).orElse(null),
+                    binder.bind("holiday-rules-list", Bindable.listOf(HolidayRule.class)).orElse(null));
+        } catch (BindException e) {
+            String cause = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            throw new IllegalArgumentException("Catalog " + origin + " has an invalid " + e.getName() + ": " + cause, e);
+        }
+        // An empty document is more likely a file caught halfway through being written than a request to change nothing
+        if (definition.tools() == null && definition.toolTypes() == null && definition.holidayRules() == null) {
+            throw new IllegalArgumentException("Catalog " + origin + " has none of tools-map, tool-types-map and holiday-rules-list");
+        }
+        return definition;
+    }
+
+    /**
+     * Checks the tools and tool types against each other. Holiday rules are checked when they are compiled.
+     *
+     * @param tools the tools that will be published
+     * @param toolTypes the tool types that will be published
+     * @return the problems found, empty if there are none
+     */
+    public static List<String> validate(Map<String, Tool> tools, Map<String, ToolType> toolTypes) {
+        List<String> errors = new ArrayList<>();
+        Map<String, ToolType> types = toolTypes != null ? toolTypes : Map.of();
+        for (Map.Entry<String, ToolType> entry : types.entrySet()) {
+            ToolType toolType = entry.getValue();
+            if (toolType == null || !entry.getKey().equals(toolType.typeCode())) {
+                errors.add("Tool type " + entry.getKey() + " must have type-code " + entry.getKey());
+                continue;
+            }
+            if (toolType.label() == null || toolType.label().isBlank()) {
+                errors.add("Tool type " + entry.getKey() + " has no label");
+            }
+            if (toolType.dailyCharge() == null || toolType.dailyCharge().signum() < 0) {
+                errors.add("Tool type " + entry.getKey() + " must have a daily charge of zero or more");
+                continue;
+            }
+            try {
+                Money.of(toolType.dailyCharge());
+            } catch (ArithmeticException e) {
+                errors.add("Tool type " + entry.getKey() + " has a daily charge that is not whole cents: " + toolType.dailyCharge());
+            }
+        }
+        if (tools != null) {
+            for (Map.Entry<String, Tool> entry : tools.entrySet()) {
+                Tool tool = entry.getValue();
+                if (tool == null || !entry.getKey().equals(tool.code())) {
+                    errors.add("Tool " + entry.getKey() + " must have code " + entry.getKey());
+                } else if (!types.containsKey(tool.typeCode())) {
+                    errors.add("Tool " + entry.getKey() + " has an unknown tool type: " + tool.typeCode());
+                }
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,49 @@
+package com.panthorstudios.toolrental.api.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the size of the tool catalog and the holiday cache statistics.
+ * The values are read from the services when the registry is scraped, so nothing is added to the checkout path.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogMetrics implements MeterBinder {
+
+    private final ToolService toolService;
+    private final HolidayService holidayService;
+
+    public CatalogMetrics(ToolService toolService, HolidayService holidayService) {
+        this.toolService = toolService;
+        this.holidayService = holidayService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("toolrental.catalog.tools", toolService, service -> service.getCatalog().getToolCodes().size())
+                .description("Tools in the catalog")
+                .register(registry);
+        Gauge.builder("toolrental.catalog.tool.types", toolService, service -> service.getCatalog().getToolTypes().size())
+                .description("Tool types in the catalog")
+                .register(registry);
+        Gauge.builder("toolrental.catalog.version", toolService, service -> service.getCatalog().getVersion())
+                .description("Version of the current tool catalog")
+                .register(registry);
+        FunctionCounter.builder("toolrental.holidays.cache.requests", holidayService, HolidayService::getCacheHits)
+                .description("Holiday lookups by cache result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("toolrental.holidays.cache.requests", holidayService, HolidayService::getCacheMisses)
+                .description("Holiday lookups by cache result")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("toolrental.holidays.rules.generation", holidayService, HolidayService::getRulesGeneration)
+                .description("Number of times the holiday rules have changed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,207 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reloads the tools, tool types and holiday rules while the application runs, from the catalog file or from
+ * a document posted to the admin endpoint.
+ * <p>
+ * A new definition is parsed, validated and compiled on the thread that loads it, never on a checkout. Only when
+ * the holiday rules and the tool catalog have both compiled are the rules and then the catalog swapped in, each in
+ * a single step; an invalid definition changes nothing. A checkout holds the catalog it started with until it
+ * finishes, and its agreement records that catalog's version and the generation of the holiday rules that priced it.
+ * <p>
+ * When the file is set it is loaded at startup, so an invalid file stops the application, and with watch set a
+ * background thread reloads it whenever it changes. A change that cannot be loaded, such as a half-written file,
+ * is logged and the current catalog is kept.
+ */
+@Component
+public class CatalogReloader {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogReloader.class);
+
+    /**
+     * The outcome of a reload
+     *
+     * @param catalog the catalog in use after the reload
+     * @param rulesGeneration the holiday rules generation in use after the reload
+     * @param changed false if the definition matched the one already loaded, so nothing was replaced
+     */
+    public record Result(ToolCatalog catalog, long rulesGeneration, boolean changed) {}
+
+    private final AppProperties appProperties;
+    private final AppProperties.Catalog settings;
+    private final ToolService toolService;
+    private final HolidayService holidayService;
+
+    // Reloads from the watcher and the admin endpoint are applied one at a time
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private String loadedContent;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public CatalogReloader(AppProperties appProperties, ToolService toolService, HolidayService holidayService) {
+        this.appProperties = appProperties;
+        this.settings = appProperties.getCatalog() != null ? appProperties.getCatalog() : new AppProperties.Catalog();
+        this.toolService = toolService;
+        this.holidayService = holidayService;
+    }
+
+    /**
+     * Loads the catalog file, if one is set, and starts watching it
+     *
+     * @throws IllegalArgumentException if the file is invalid
+     * @throws UncheckedIOException if the file cannot be read or watched
+     */
+    @PostConstruct
+    public void open() {
+        Path file = getFile();
+        if (file == null) {
+            return;
+        }
+        reloadFile();
+        if (!settings.isWatch()) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot watch catalog file " + file, e);
+        }
+        watcher = new Thread(() -> watchLoop(file.getFileName()), "catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching catalog file {}", file);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Cannot close catalog watcher", e);
+        }
+        watcher.join();
+    }
+
+    /**
+     * @return the catalog file, or null if none is set
+     */
+    public Path getFile() {
+        String file = settings.getFile();
+        return file == null || file.isBlank() ? null : Path.of(file);
+    }
+
+    /**
+     * Reloads the catalog file
+     *
+     * @return the outcome
+     * @throws IllegalStateException if no catalog file is set
+     * @throws IllegalArgumentException if the file is invalid; nothing is replaced
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public Result reloadFile() {
+        Path file = getFile();
+        if (file == null) {
+            throw new IllegalStateException("No catalog file is set in app.catalog.file");
+        }
+        String content;
+        try {
+            content = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read catalog file " + file, e);
+        }
+        return reload(content, file.toString());
+    }
+
+    /**
+     * Parses, validates and publishes a catalog document
+     *
+     * @param content the YAML or JSON document
+     * @param origin where the document came from, for messages
+     * @return the outcome
+     * @throws IllegalArgumentException if the document is invalid; nothing is replaced
+     */
+    public Result reload(String content, String origin) {
+        reloadLock.lock();
+        try {
+            if (content.equals(loadedContent)) {
+                return new Result(toolService.getCatalog(), holidayService.getRulesGeneration(), false);
+            }
+            CatalogDefinition definition = CatalogDefinition.parse(content, origin);
+            Map<String, Tool> tools = definition.tools() != null ? Map.copyOf(definition.tools()) : appProperties.getToolsMap();
+            Map<String, ToolType> toolTypes = definition.toolTypes() != null ? Map.copyOf(definition.toolTypes()) : appProperties.getToolTypesMap();
+            List<String> errors = CatalogDefinition.validate(tools, toolTypes);
+            if (!errors.isEmpty()) {
+                throw new IllegalArgumentException("Catalog " + origin + " is invalid: " + String.join("; ", errors));
+            }
+            HolidayService.CompiledRules rules = definition.holidayRules() != null ? holidayService.compileRules(List.copyOf(definition.holidayRules())) : null;
+            // The rules are swapped in only once the catalog has compiled too, and the catalog is published last,
+            // so an agreement priced by the new catalog is also priced by the new holiday rules
+            ToolCatalog catalog = toolService.replace(tools, toolTypes, () -> {
+                if (rules != null) {
+                    holidayService.replaceRules(rules);
+                }
+            });
+            loadedContent = content;
+            logger.info("Catalog reloaded from {}: version {}, {} tools", origin, catalog.getVersion(), catalog.getToolCodes().size());
+            return new Result(catalog, holidayService.getRulesGeneration(), true);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void watchLoop(Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    reloadChangedFile();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Catalog watcher closed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reloadChangedFile() {
+        try {
+            reloadFile();
+        } catch (RuntimeException e) {
+            logger.error("Catalog file not reloaded; keeping catalog version {}: {}", toolService.getCatalog().getVersion(), e.getMessage());
+        }
+    }
+}
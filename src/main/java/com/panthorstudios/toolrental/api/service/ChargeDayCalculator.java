@@ -0,0 +1,117 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.ToolType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Counts the chargeable days of a rental period.
+ * The rental period runs from the day after the checkout date up to and including the due date.
+ */
+public final class ChargeDayCalculator {
+
+    // WEEKEND_DAYS_IN_REMAINDER[d][r] = weekend days in the r consecutive days starting on day-of-week d (0 = Monday)
+    private static final int[][] WEEKEND_DAYS_IN_REMAINDER = new int[7][7];
+
+    static {
+        for (int start = 0; start < 7; start++) {
+            for (int remainder = 1; remainder < 7; remainder++) {
+                int dayOfWeek = (start + remainder - 1) % 7;
+                WEEKEND_DAYS_IN_REMAINDER[start][remainder] = WEEKEND_DAYS_IN_REMAINDER[start][remainder - 1]
+                        + (dayOfWeek >= 5 ? 1 : 0);
+            }
+        }
+    }
+
+    private ChargeDayCalculator() {
+    }
+
+    /**
+     * Counts the chargeable days with arithmetic over whole weeks plus a remainder,
+     * so the cost depends on the number of holidays rather than the length of the rental.
+     *
+     * @param toolType the tool type
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param holidays the observed holidays; dates outside the rental period are ignored
+     * @return the number of chargeable days
+     */
+    public static int countChargeDays(ToolType toolType, LocalDate checkoutDate, int rentalDays, Set<LocalDate> holidays) {
+        if (rentalDays <= 0) {
+            return 0;
+        }
+        LocalDate firstDay = checkoutDate.plusDays(1);
+        LocalDate lastDay = checkoutDate.plusDays(rentalDays);
+
+        int weekendDays = (rentalDays / 7) * 2
+                + WEEKEND_DAYS_IN_REMAINDER[firstDay.getDayOfWeek().ordinal()][rentalDays % 7];
+
+        int weekdayHolidays = 0;
+        int weekendHolidays = 0;
+        for (LocalDate holiday : holidays) {
+            if (holiday == null || holiday.isBefore(firstDay) || holiday.isAfter(lastDay)) {
+                continue;
+            }
+            if (isWeekend(holiday)) {
+                weekendHolidays++;
+            } else {
+                weekdayHolidays++;
+            }
+        }
+
+        int plainWeekdays = rentalDays - weekendDays - weekdayHolidays;
+        int plainWeekendDays = weekendDays - weekendHolidays;
+
+        // A holiday on a weekend is chargeable if the tool is chargeable on either holidays or weekends
+        int chargeDays = 0;
+        if (toolType.chargeableOnWeekdays()) {
+            chargeDays += plainWeekdays;
+        }
+        if (toolType.chargeableOnWeekends()) {
+            chargeDays += plainWeekendDays + weekendHolidays;
+        }
+        if (toolType.chargeableOnHolidays()) {
+            chargeDays += weekdayHolidays;
+            if (!toolType.chargeableOnWeekends()) {
+                chargeDays += weekendHolidays;
+            }
+        }
+        return chargeDays;
+    }
+
+    /**
+     * Counts the chargeable days by visiting each day of the rental period.
+     * This is the reference implementation the closed-form calculation is checked against.
+     *
+     * @param toolType the tool type
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param holidays the observed holidays
+     * @return the number of chargeable days
+     */
+    public static int countChargeDaysIteratively(ToolType toolType, LocalDate checkoutDate, int rentalDays, Set<LocalDate> holidays) {
+        int chargeDays = 0;
+
+        // Iterate through each day of the rental period
+        //  starting on day after checkout date and ending on the due date
+        for (int i = 1; i <= rentalDays; i++) {
+            LocalDate day = checkoutDate.plusDays(i);
+            boolean isHoliday = holidays.contains(day);
+            boolean isWeekend = isWeekend(day);
+            boolean isWeekday = !isHoliday && !isWeekend;
+            if ((isHoliday && toolType.chargeableOnHolidays())
+                    || (isWeekend && toolType.chargeableOnWeekends())
+                    || (isWeekday && toolType.chargeableOnWeekdays())) {
+                chargeDays++;
+            }
+        }
+        return chargeDays;
+    }
+
+    private static boolean isWeekend(LocalDate day) {
+        DayOfWeek dayOfWeek = day.getDayOfWeek();
+        return dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+    }
+}
@@ -0,0 +1,143 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics for tool rental checkouts.
+ * <p>
+ * Phases are timed by passing a start time from one phase to the next:
+ * <pre>
+ *     long start = metrics.startTimer();
+ *     ...
+ *     start = metrics.recordPhase(Phase.VALIDATION, start);
+ * </pre>
+ * When metrics are disabled no meters are registered and every method returns without reading the clock.
+ */
+@Component
+public class CheckoutMetrics {
+
+    /**
+     * The timed phases of a checkout
+     */
+    public enum Phase {
+        VALIDATION("validation"),
+        LOOKUP("lookup"),
+        // Counting the charge days against the holidays and pricing them, including any quote cache lookup
+        PRICING("pricing"),
+        CHARGES("charges"),
+        RECEIPT_ID("receipt-id"),
+        RESERVATION("reservation");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Timer[] phaseTimers;
+    private final DistributionSummary rentalDays;
+    private final DistributionSummary finalCharge;
+    private final ConcurrentMap<String, Counter> checkoutsByToolType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Counter> failuresByException = new ConcurrentHashMap<>();
+
+    public CheckoutMetrics(MeterRegistry registry, AppProperties appProperties) {
+        this.registry = registry;
+        this.enabled = appProperties.getMetrics() == null || appProperties.getMetrics().isEnabled();
+        if (!enabled) {
+            this.phaseTimers = null;
+            this.rentalDays = null;
+            this.finalCharge = null;
+            return;
+        }
+        Phase[] phases = Phase.values();
+        this.phaseTimers = new Timer[phases.length];
+        for (Phase phase : phases) {
+            phaseTimers[phase.ordinal()] = Timer.builder("toolrental.checkout.phase")
+                    .description("Time spent in each phase of a checkout")
+                    .tag("phase", phase.tag)
+                    .register(registry);
+        }
+        this.rentalDays = DistributionSummary.builder("toolrental.checkout.rental.days")
+                .description("Rental days of successful checkouts")
+                .baseUnit("days")
+                .register(registry);
+        this.finalCharge = DistributionSummary.builder("toolrental.checkout.final.charge")
+                .description("Final charge of successful checkouts")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the current time in nanoseconds, or 0 if metrics are disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the start of a phase
+     *
+     * @param phase the phase that has just finished
+     * @param startNanos the start time returned by {@link #startTimer()} or the previous phase
+     * @return the start time of the next phase
+     */
+    public long recordPhase(Phase phase, long startNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        phaseTimers[phase.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Records a successful checkout
+     *
+     * @param toolType the tool type rented
+     * @param days the rental days
+     * @param charge the final charge
+     */
+    public void recordCheckout(ToolType toolType, int days, Money charge) {
+        if (!enabled) {
+            return;
+        }
+        checkoutsByToolType.computeIfAbsent(toolType.typeCode(), typeCode -> Counter.builder("toolrental.checkout.count")
+                .description("Successful checkouts by tool type")
+                .tag("toolType", typeCode)
+                .register(registry)).increment();
+        rentalDays.record(days);
+        finalCharge.record(charge.cents() / 100.0);
+    }
+
+    /**
+     * Records a failed checkout
+     *
+     * @param exception the exception that ended the checkout
+     */
+    public void recordFailure(RuntimeException exception) {
+        if (!enabled) {
+            return;
+        }
+        failuresByException.computeIfAbsent(exception.getClass(), exceptionClass -> Counter.builder("toolrental.checkout.failures")
+                .description("Failed checkouts by exception")
+                .tag("exception", exceptionClass.getSimpleName())
+                .register(registry)).increment();
+    }
+}
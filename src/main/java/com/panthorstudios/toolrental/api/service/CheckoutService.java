@@ -1,22 +1,21 @@
 package com.panthorstudios.toolrental.api.service;
 
+import com.panthorstudios.toolrental.api.domain.Money;
 import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.Reservation;
 import com.panthorstudios.toolrental.api.domain.Tool;
 import com.panthorstudios.toolrental.api.domain.ToolType;
 import com.panthorstudios.toolrental.api.exception.InvalidCheckoutDateException;
 import com.panthorstudios.toolrental.api.exception.InvalidDiscountPercentException;
 import com.panthorstudios.toolrental.api.exception.InvalidRentalDaysException;
 import com.panthorstudios.toolrental.api.exception.InvalidToolCodeException;
+import com.panthorstudios.toolrental.api.exception.ToolUnavailableException;
+import com.panthorstudios.toolrental.api.ledger.RentalLedger;
 import com.panthorstudios.toolrental.properties.AppProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
-import java.time.DayOfWeek;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Set;
 
@@ -25,20 +24,39 @@ public class CheckoutService {
     // This is a record class that represents the charge details for a tool rental
     private static final Logger logger = LoggerFactory.getLogger(CheckoutService.class);
 
-    public record ChargeDetails (BigDecimal charge, int days) {}
+    /**
+     * The longest rental accepted, about 100 years; pricing a longer one would walk every day and holiday in it
+     */
+    public static final int MAX_RENTAL_DAYS = 36_500;
+
+    public record ChargeDetails (Money charge, int days) {}
 
     private final ToolService toolService;
     private final HolidayService holidayService;
+    private final BusinessCalendar businessCalendar;
+    private final ReceiptIdGenerator receiptIdGenerator;
+    private final CheckoutMetrics metrics;
+    private final RentalLedger ledger;
+    private final QuoteCache quoteCache;
+    private final AgreementStore agreementStore;
+    private final ReservationService reservationService;
 
     private final AppProperties appProperties;
 
-    public CheckoutService(ToolService toolService, HolidayService holidayService, AppProperties appProperties) {
+    public CheckoutService(ToolService toolService, HolidayService holidayService, BusinessCalendar businessCalendar, ReceiptIdGenerator receiptIdGenerator, CheckoutMetrics metrics, RentalLedger ledger, QuoteCache quoteCache, AgreementStore agreementStore, ReservationService reservationService, AppProperties appProperties) {
         this.toolService = toolService;
         this.holidayService = holidayService;
+        this.businessCalendar = businessCalendar;
+        this.receiptIdGenerator = receiptIdGenerator;
+        this.metrics = metrics;
+        this.ledger = ledger;
+        this.quoteCache = quoteCache;
+        this.agreementStore = agreementStore;
+        this.reservationService = reservationService;
         this.appProperties =  appProperties;
     }
 
-    /** Checks out a tool rental.
+    /** Checks out a tool rental at the configured store.
      *
      * @param toolCode the tool code
      * @param checkoutDate the checkout date
@@ -48,118 +66,201 @@ public class CheckoutService {
      * @throws InvalidToolCodeException if any of the parameters are invalid
      */
     public RentalAgreement toolRentalCheckout(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercent) {
-        logger.debug("Checking out tool rental for tool: {}, checkoutDate: {}", toolCode, checkoutDate);
-        validateCheckoutParameters(toolCode, checkoutDate, rentalDays, discountPercent);
+        return toolRentalCheckout(appProperties.getStoreId(), toolCode, checkoutDate, rentalDays, discountPercent);
+    }
+
+    /** Checks out a tool rental at a store, charging by the holidays of the store's country.
+     *
+     * @param storeId the store handling the rental
+     * @param toolCode the tool code
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param discountPercent the discount percent
+     * @return the rental agreement
+     * @throws InvalidToolCodeException if any of the parameters are invalid
+     * @throws ToolUnavailableException if the tool is already rented for any of the dates
+     */
+    public RentalAgreement toolRentalCheckout(int storeId, String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercent) {
+        logger.debug("Checking out tool rental for tool: {}, checkoutDate: {}, store: {}", toolCode, checkoutDate, storeId);
+        try {
+            long start = metrics.startTimer();
+            ToolCatalog catalog = toolService.getCatalog();
+            ToolCatalog.Entry entry = getCatalogEntry(catalog, toolCode);
+            start = metrics.recordPhase(CheckoutMetrics.Phase.LOOKUP, start);
 
-        Tool tool = getToolByCode(toolCode);
-        ToolType toolType = getToolTypeByTool(tool);
-        LocalDate dueDate = checkoutDate.plusDays(rentalDays);
+            validateCheckoutDate(checkoutDate);
+            validateRentalDays(rentalDays);
+            validateDiscountPercent(discountPercent);
+            LocalDate dueDate = checkoutDate.plusDays(rentalDays);
+            String countryCode = getCountryCode(storeId);
+            start = metrics.recordPhase(CheckoutMetrics.Phase.VALIDATION, start);
 
-        Set<LocalDate> holidays = holidayService.getHolidays(checkoutDate.getYear(), dueDate.getYear());
-        ChargeDetails chargeDetails = calculateCharges(toolType, checkoutDate, rentalDays, holidays);
+            // Priced again in the rare case the holiday rules were replaced meanwhile, so the agreement records the rules that priced it
+            long rulesGeneration;
+            ChargeDetails chargeDetails;
+            do {
+                rulesGeneration = holidayService.getRulesGeneration();
+                chargeDetails = quote(catalog.getVersion(), countryCode, entry, checkoutDate, rentalDays, dueDate);
+            } while (holidayService.getRulesGeneration() != rulesGeneration);
+            start = metrics.recordPhase(CheckoutMetrics.Phase.PRICING, start);
 
-        BigDecimal discountAmount = calculateDiscountAmount(chargeDetails.charge(), discountPercent);
-        BigDecimal finalCharge = chargeDetails.charge().subtract(discountAmount);
+            Money discountAmount = chargeDetails.charge().percent(discountPercent);
+            Money finalCharge = chargeDetails.charge().minus(discountAmount);
+            start = metrics.recordPhase(CheckoutMetrics.Phase.CHARGES, start);
 
-        return createRentalAgreement(tool, toolType, rentalDays, checkoutDate, discountPercent, dueDate, chargeDetails, discountAmount, finalCharge);
-    }
+            String rentalAgreementId = receiptIdGenerator.nextReceiptId(storeId, appProperties.getTerminalId());
+            start = metrics.recordPhase(CheckoutMetrics.Phase.RECEIPT_ID, start);
 
-    private Tool getToolByCode(String toolCode) {
-        return toolService.getToolByCode(toolCode)
-                .orElseThrow(() -> new InvalidToolCodeException("Tool not found: " + toolCode));
+            // Booked last, so a checkout that fails validation or pricing never holds the tool
+            Reservation reservation = reservationService.reserve(entry.tool().code(), checkoutDate, dueDate, rentalAgreementId);
+            metrics.recordPhase(CheckoutMetrics.Phase.RESERVATION, start);
+            try {
+                RentalAgreement agreement = createRentalAgreement(rentalAgreementId, catalog.getVersion(), rulesGeneration, entry, rentalDays, checkoutDate, discountPercent, dueDate, chargeDetails, discountAmount, finalCharge);
+                agreementStore.add(agreement);
+                // Queued for the writer thread without waiting for the disk; if the queue stays full the append is
+                // rejected after app.ledger.append-timeout-ms, counted and logged, and the checkout still succeeds
+                ledger.append(agreement);
+                metrics.recordCheckout(entry.toolType(), rentalDays, finalCharge);
+                return agreement;
+            } catch (RuntimeException e) {
+                reservationService.release(reservation);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            metrics.recordFailure(e);
+            throw e;
+        }
     }
 
-    private ToolType getToolTypeByTool(Tool tool) {
-        return toolService.getToolTypeByTool(tool)
-                .orElseThrow(() -> new InvalidToolCodeException("Tool type not found"));
+    /**
+     * @param storeId the store
+     * @return the country whose holidays apply at the store
+     */
+    private String getCountryCode(int storeId) {
+        AppProperties.Stores stores = appProperties.getStores() != null ? appProperties.getStores() : new AppProperties.Stores();
+        return stores.getCountryCode(storeId);
     }
 
-    private BigDecimal calculateDiscountAmount(BigDecimal charge, int discountPercent) {
-        return charge.multiply(BigDecimal.valueOf(discountPercent))
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    /**
+     * Looks up a tool in the catalog, validating the tool code on the way
+     *
+     * @param catalog the current tool catalog
+     * @param toolCode the tool code
+     * @return the catalog entry, with its tool type resolved
+     * @throws InvalidToolCodeException if the tool code is empty, unknown, or its tool type is not configured
+     */
+    private ToolCatalog.Entry getCatalogEntry(ToolCatalog catalog, String toolCode) {
+        if (toolCode == null || toolCode.isBlank()) {
+            throw new InvalidToolCodeException("Tool code is required.");
+        }
+        ToolCatalog.Entry entry = catalog.getEntry(toolCode);
+        if (entry == null) {
+            throw new InvalidToolCodeException("Tool code is not valid: " + toolCode);
+        }
+        if (entry.toolType() == null) {
+            throw new InvalidToolCodeException("Tool type not found");
+        }
+        return entry;
     }
 
-    private RentalAgreement createRentalAgreement(Tool tool, ToolType toolType, int rentalDays, LocalDate checkoutDate, int discountPercent, LocalDate dueDate, ChargeDetails chargeDetails, BigDecimal discountAmount, BigDecimal finalCharge) {
+    private RentalAgreement createRentalAgreement(String rentalAgreementId, long catalogVersion, long rulesGeneration, ToolCatalog.Entry entry, int rentalDays, LocalDate checkoutDate, int discountPercent, LocalDate dueDate, ChargeDetails chargeDetails, Money discountAmount, Money finalCharge) {
+        Tool tool = entry.tool();
         logger.info("Creating rental agreement for tool: {}", tool.code());
-        long timestampMs = Instant.now().toEpochMilli();
-        String rentalAgreementId = generateReceiptId(timestampMs, appProperties.getStoreId(), appProperties.getTerminalId());
         return new RentalAgreement(
                 rentalAgreementId,
                 tool.code(),
-                toolType.label(),
+                entry.label(),
                 tool.brand(),
                 rentalDays,
                 checkoutDate,
                 discountPercent,
                 dueDate,
                 chargeDetails.days(),
-                toolType.dailyCharge(),
-                chargeDetails.charge(),
-                discountAmount,
-                finalCharge
+                entry.toolType().dailyCharge(),
+                chargeDetails.charge().toBigDecimal(),
+                discountAmount.toBigDecimal(),
+                finalCharge.toBigDecimal(),
+                catalogVersion,
+                rulesGeneration
         );
     }
 
     /**
-     * Calculates the charges for a tool rental.
+     * Prices a rental. Rentals within the business calendar's horizon are counted from the calendar, which takes a
+     * few array reads, so only rentals beyond it go through the quote cache.
      *
-     * @param toolType the tool type
+     * @param catalogVersion the version of the catalog the tool was read from
+     * @param countryCode the country whose holidays apply
+     * @param entry the catalog entry of the tool
      * @param checkoutDate the checkout date
      * @param rentalDays the rental days
-     * @param holidays the holidays
+     * @param dueDate the due date
      * @return the charge details
      */
-    private ChargeDetails calculateCharges(ToolType toolType, LocalDate checkoutDate, int rentalDays, Set<LocalDate> holidays) {
-
-        BigDecimal itemCharge = toolType.dailyCharge();
-        int chargeDays = 0;
-        BigDecimal preDiscountCharge = BigDecimal.ZERO;
-
-        // Iterate through each day of the rental period
-        //  starting on day after checkout date and ending on the due date
-        for (int i = 1; i <= rentalDays; i++) {
-            LocalDate day = checkoutDate.plusDays(i);
-            boolean isHoliday = holidays.contains(day);
-            boolean isWeekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
-            boolean isWeekday = !isHoliday && !isWeekend;
-            if ((isHoliday && toolType.chargeableOnHolidays())
-                    || (isWeekend && toolType.chargeableOnWeekends())
-                    || (isWeekday && toolType.chargeableOnWeekdays())) {
-
-                preDiscountCharge = preDiscountCharge.add(itemCharge);
-                chargeDays++;
-            }
+    private ChargeDetails quote(long catalogVersion, String countryCode, ToolCatalog.Entry entry, LocalDate checkoutDate, int rentalDays, LocalDate dueDate) {
+        LocalDate firstChargeDay = checkoutDate.plusDays(1);
+        if (businessCalendar.covers(countryCode, firstChargeDay, dueDate)) {
+            return priceChargeDays(entry.dailyRate(), businessCalendar.countChargeDays(countryCode, entry.chargeMask(), firstChargeDay, dueDate));
         }
-        return new ChargeDetails(preDiscountCharge, chargeDays);
+        return quoteCache.getQuote(catalogVersion, countryCode, entry.toolType().typeCode(), checkoutDate, rentalDays,
+                () -> calculateCharges(countryCode, entry, checkoutDate, rentalDays, dueDate));
     }
 
     /**
-     * Generates a unique receipt ID based on the store ID, terminal ID, and current timestamp.
+     * Calculates the charges for a tool rental.
+     * Rentals within the business calendar's horizon are answered from the calendar;
+     * anything else falls back to counting against the holidays for the years involved.
+     * The charge is calculated in whole cents.
      *
-     * @param storeId the store ID
-     * @param terminalId the terminal ID
-     * @return the receipt ID
+     * @param countryCode the country whose holidays apply
+     * @param entry the catalog entry of the tool
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param dueDate the due date
+     * @return the charge details
      */
-    public String generateReceiptId(long timestampMs, int storeId, int terminalId) {
-
-        // Convert the Unix timestamp to base 36
-        String timestampBase36 = toBase36(timestampMs);
+    ChargeDetails calculateCharges(String countryCode, ToolCatalog.Entry entry, LocalDate checkoutDate, int rentalDays, LocalDate dueDate) {
+        int chargeDays = countChargeDays(countryCode, entry.toolType(), entry.chargeMask(), checkoutDate, rentalDays, dueDate);
+        return priceChargeDays(entry.dailyRate(), chargeDays);
+    }
 
-        // Ensure the store ID is exactly 3 characters and terminal ID is exactly 2 characters, padded with leading zeros if necessary
-        String paddedStoreId = String.format("%3s", toBase36(storeId)).replace(' ', '0');
-        String paddedTerminalId = String.format("%2s", toBase36(terminalId)).replace(' ', '0');
+    /**
+     * Counts the days of a rental that are charged for the tool type, taking weekends and holidays into account.
+     *
+     * @param countryCode the country whose holidays apply
+     * @param toolType the tool type
+     * @param chargeMask the tool type's charge mask, see {@link BusinessCalendar#chargeMask(ToolType)}
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param dueDate the due date
+     * @return the number of charge days
+     */
+    private int countChargeDays(String countryCode, ToolType toolType, int chargeMask, LocalDate checkoutDate, int rentalDays, LocalDate dueDate) {
+        LocalDate firstChargeDay = checkoutDate.plusDays(1);
+        if (businessCalendar.covers(countryCode, firstChargeDay, dueDate)) {
+            return businessCalendar.countChargeDays(countryCode, chargeMask, firstChargeDay, dueDate);
+        }
+        Set<LocalDate> holidays = holidayService.getHolidays(countryCode, checkoutDate.getYear(), dueDate.getYear());
+        return ChargeDayCalculator.countChargeDays(toolType, checkoutDate, rentalDays, holidays);
+    }
 
-        // Construct the receipt ID
-        return String.format("%s-%s%s", timestampBase36, paddedStoreId, paddedTerminalId);
+    private ChargeDetails priceChargeDays(Money dailyRate, int chargeDays) {
+        if (chargeDays == 0) {
+            return new ChargeDetails(Money.ZERO, 0);
+        }
+        return new ChargeDetails(dailyRate.times(chargeDays), chargeDays);
     }
+
     /**
-     * Converts a long value to a base 36 string.
+     * Generates a receipt ID from the store ID, terminal ID, and a timestamp.
      *
-     * @param value the long value
-     * @return the base 36 string
+     * @param timestampMs the timestamp in milliseconds
+     * @param storeId the store ID
+     * @param terminalId the terminal ID
+     * @return the receipt ID
      */
-    private String toBase36(long value) {
-        return new BigInteger(Long.toString(value)).toString(36).toUpperCase();
+    public String generateReceiptId(long timestampMs, int storeId, int terminalId) {
+        return receiptIdGenerator.format(timestampMs, storeId, terminalId);
     }
 
     /**
@@ -197,22 +298,29 @@ public class CheckoutService {
      * Validates the checkout date.
      *
      * @param checkoutDate the checkout date
-     * @throws InvalidCheckoutDateException if the checkout date is null
+     * @throws InvalidCheckoutDateException if the checkout date is null, or before the Gregorian calendar's first
+     *         full year, 1583, for which holidays such as Easter cannot be calculated
      */
     public void validateCheckoutDate(LocalDate checkoutDate) throws InvalidCheckoutDateException {
         if (checkoutDate == null) {
             throw new InvalidCheckoutDateException("Checkout date is required.");
         }
+        if (checkoutDate.getYear() < HolidayRules.FIRST_GREGORIAN_YEAR) {
+            throw new InvalidCheckoutDateException("Checkout date must not be before " + HolidayRules.FIRST_GREGORIAN_YEAR + ".");
+        }
     }
     /** Validates the rental days.
      *
      * @param rentalDays the rental days
-     * @throws InvalidRentalDaysException if the rental days is less than or equal to zero
+     * @throws InvalidRentalDaysException if the rental days is less than or equal to zero, or more than {@link #MAX_RENTAL_DAYS}
      */
     public void validateRentalDays(int rentalDays) throws InvalidRentalDaysException {
         if (rentalDays <= 0) {
             throw new InvalidRentalDaysException("Rental days must be greater than zero.");
         }
+        if (rentalDays > MAX_RENTAL_DAYS) {
+            throw new InvalidRentalDaysException("Rental days must not be more than " + MAX_RENTAL_DAYS + ".");
+        }
     }
 
     /** Validates the discount percent.
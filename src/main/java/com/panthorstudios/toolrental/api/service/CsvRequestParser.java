@@ -0,0 +1,133 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreementRequest;
+import com.panthorstudios.toolrental.util.FormattingTools;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Parses one CSV line into a rental request.
+ * <p>
+ * The columns are toolCode, checkoutDate, rentalDays and discountPercent. If the file starts with a header
+ * naming those columns they may come in any order, and other columns are ignored. Checkout dates may be
+ * ISO (2024-07-02) or the CLI's MM/dd/yy; a discount percent may end in '%'. Fields may be wrapped in double
+ * quotes but may not contain commas.
+ * <p>
+ * The parser holds no state once created, so one instance can parse lines on many threads.
+ */
+final class CsvRequestParser {
+
+    private static final String[] COLUMNS = {"toolcode", "checkoutdate", "rentaldays", "discountpercent"};
+
+    private final int[] columnIndexes;
+    private final int columnCount;
+
+    private CsvRequestParser(int[] columnIndexes) {
+        this.columnIndexes = columnIndexes;
+        int max = 0;
+        for (int index : columnIndexes) {
+            max = Math.max(max, index);
+        }
+        this.columnCount = max + 1;
+    }
+
+    /**
+     * @return a parser for lines with the columns in their default order
+     */
+    static CsvRequestParser withDefaultColumns() {
+        return new CsvRequestParser(new int[] {0, 1, 2, 3});
+    }
+
+    /**
+     * @param line the first line of the file
+     * @return true if the line is a header rather than a request
+     */
+    static boolean isHeader(String line) {
+        for (String field : line.split(",", -1)) {
+            if (COLUMNS[0].equals(normalize(field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a parser for the columns named in a header line
+     *
+     * @param header the header line
+     * @return the parser
+     * @throws IllegalArgumentException if one of the columns is missing
+     */
+    static CsvRequestParser fromHeader(String header) {
+        String[] fields = header.split(",", -1);
+        int[] columnIndexes = new int[COLUMNS.length];
+        for (int column = 0; column < COLUMNS.length; column++) {
+            columnIndexes[column] = -1;
+            for (int field = 0; field < fields.length; field++) {
+                if (COLUMNS[column].equals(normalize(fields[field]))) {
+                    columnIndexes[column] = field;
+                    break;
+                }
+            }
+            if (columnIndexes[column] < 0) {
+                throw new IllegalArgumentException("CSV header is missing the " + COLUMNS[column] + " column: " + header);
+            }
+        }
+        return new CsvRequestParser(columnIndexes);
+    }
+
+    /**
+     * Parses one line
+     *
+     * @param line the CSV line
+     * @return the rental request
+     * @throws IllegalArgumentException if the line has too few fields or a field cannot be parsed
+     */
+    RentalAgreementRequest parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " fields but found " + fields.length + ": " + line);
+        }
+        return new RentalAgreementRequest(unquote(fields[columnIndexes[0]]),
+                parseDate(unquote(fields[columnIndexes[1]])),
+                parseInt("rentalDays", unquote(fields[columnIndexes[2]])),
+                parseInt("discountPercent", stripPercent(unquote(fields[columnIndexes[3]]))));
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return value.indexOf('/') >= 0 ? LocalDate.parse(value, FormattingTools.SHORT_DATE_FORMATTER) : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid checkoutDate: " + value, e);
+        }
+    }
+
+    private static int parseInt(String column, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value, e);
+        }
+    }
+
+    private static String stripPercent(String value) {
+        return value.endsWith("%") ? value.substring(0, value.length() - 1).trim() : value;
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    private static String normalize(String field) {
+        return unquote(field).replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,316 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
+import com.panthorstudios.toolrental.util.WeekendAdjusterFunctionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The configured holiday rules, validated and compiled into typed rules that work on epoch days.
+ * <p>
+ * Compiling checks every rule once: an unknown type or weekend function code, a missing or out of range field,
+ * or a reference to an unknown holiday throws, so bad rules stop the application at startup instead of
+ * surfacing at checkout. Evaluating the rules for a year is integer arithmetic and does not allocate.
+ * Rules relative to another holiday are evaluated after it, and reference cycles are rejected. A rule may refer to
+ * a holiday in its own country or to one without a country code.
+ */
+public final class HolidayRules {
+
+    /**
+     * A compiled rule's date, before weekend adjustment
+     */
+    sealed interface DateRule permits FixedDate, NthWeekday, LastWeekday, EasterRelative, RelativeToHoliday {
+        /**
+         * @param year the year
+         * @param epochDays the observed dates of the rules evaluated so far, by rule index
+         * @return the epoch day of the holiday
+         */
+        long epochDay(int year, long[] epochDays);
+    }
+
+    record FixedDate(int month, int day) implements DateRule {
+        public long epochDay(int year, long[] epochDays) {
+            return HolidayRules.epochDay(year, month, day);
+        }
+    }
+
+    record NthWeekday(int month, int dayOfWeek, int occurrence) implements DateRule {
+        public long epochDay(int year, long[] epochDays) {
+            long first = HolidayRules.epochDay(year, month, 1);
+            return first + Math.floorMod(dayOfWeek - WeekendAdjusterFunctionFactory.dayOfWeek(first), 7) + 7L * (occurrence - 1);
+        }
+    }
+
+    record LastWeekday(int month, int dayOfWeek) implements DateRule {
+        public long epochDay(int year, long[] epochDays) {
+            long last = HolidayRules.epochDay(year, month, monthLength(year, month));
+            return last - Math.floorMod(WeekendAdjusterFunctionFactory.dayOfWeek(last) - dayOfWeek, 7);
+        }
+    }
+
+    record EasterRelative(int offsetDays) implements DateRule {
+        public long epochDay(int year, long[] epochDays) {
+            return easterSunday(year) + offsetDays;
+        }
+    }
+
+    record RelativeToHoliday(int ruleIndex, int offsetDays) implements DateRule {
+        public long epochDay(int year, long[] epochDays) {
+            return epochDays[ruleIndex] + offsetDays;
+        }
+    }
+
+    /**
+     * One compiled rule
+     *
+     * @param source the configured rule
+     * @param date the date rule
+     * @param weekendAdjuster moves the date off a weekend, or leaves it
+     */
+    record CompiledRule(HolidayRule source, DateRule date, LongUnaryOperator weekendAdjuster) {}
+
+    // The first full year of the Gregorian calendar, which the Easter calculation assumes
+    static final int FIRST_GREGORIAN_YEAR = 1583;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+
+    private final CompiledRule[] rules;
+    private final int[] evaluationOrder;
+
+    private HolidayRules(CompiledRule[] rules, int[] evaluationOrder) {
+        this.rules = rules;
+        this.evaluationOrder = evaluationOrder;
+    }
+
+    /**
+     * Validates and compiles holiday rules
+     *
+     * @param rules the configured rules; null is treated as no rules
+     * @return the compiled rules, in the same order
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static HolidayRules compile(List<HolidayRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return new HolidayRules(new CompiledRule[0], new int[0]);
+        }
+        Map<String, Integer> indexByName = new HashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            HolidayRule rule = rules.get(i);
+            if (rule == null || rule.type() == null) {
+                throw new IllegalArgumentException("Holiday rule " + (i + 1) + " has no type");
+            }
+            if (rule.name() != null && indexByName.putIfAbsent(nameKey(rule.countryCode(), rule.name()), i) != null) {
+                throw new IllegalArgumentException("Duplicate holiday rule: " + describe(rule));
+            }
+        }
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (HolidayRule rule : rules) {
+            compiled.add(new CompiledRule(rule, compileDate(rule, indexByName), compileWeekendAdjuster(rule)));
+        }
+        return new HolidayRules(compiled.toArray(new CompiledRule[0]), evaluationOrder(compiled));
+    }
+
+    /**
+     * @return the number of rules
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * @param index the rule index
+     * @return the configured rule
+     */
+    public HolidayRule getRule(int index) {
+        return rules[index].source();
+    }
+
+    /**
+     * Calculates the observed date of every rule for a year
+     *
+     * @param year the year, {@value #FIRST_GREGORIAN_YEAR} or later
+     * @param epochDays receives the epoch day of rule i at index i; must hold at least {@link #size()} days
+     */
+    public void evaluate(int year, long[] epochDays) {
+        for (int index : evaluationOrder) {
+            CompiledRule rule = rules[index];
+            epochDays[index] = rule.weekendAdjuster().applyAsLong(rule.date().epochDay(year, epochDays));
+        }
+    }
+
+    private static DateRule compileDate(HolidayRule rule, Map<String, Integer> indexByName) {
+        return switch (rule.type()) {
+            case "FIXED_DATE" -> {
+                int month = month(rule);
+                int day = require(rule, "day", rule.day());
+                // February 29 is rejected as it does not occur every year
+                if (day < 1 || day > monthLength(2001, month)) {
+                    throw invalid(rule, "day " + day + " is not in every year's month " + month);
+                }
+                yield new FixedDate(month, day);
+            }
+            case "FIXED_WEEKDAY" -> {
+                int occurrence = require(rule, "occurrence", rule.occurrence());
+                if (occurrence < 1 || occurrence > 4) {
+                    throw invalid(rule, "occurrence must be 1 to 4, use LAST_WEEKDAY for the last one: " + occurrence);
+                }
+                yield new NthWeekday(month(rule), dayOfWeek(rule), occurrence);
+            }
+            case "LAST_WEEKDAY" -> new LastWeekday(month(rule), dayOfWeek(rule));
+            case "EASTER_RELATIVE" -> new EasterRelative(require(rule, "offsetDays", rule.offsetDays()));
+            case "RELATIVE_TO_HOLIDAY" -> {
+                if (rule.relativeTo() == null || rule.relativeTo().isBlank()) {
+                    throw invalid(rule, "relativeTo is required");
+                }
+                Integer index = indexByName.get(nameKey(rule.countryCode(), rule.relativeTo()));
+                if (index == null) {
+                    // A holiday shared by every country
+                    index = indexByName.get(nameKey(null, rule.relativeTo()));
+                }
+                if (index == null) {
+                    throw invalid(rule, "unknown holiday " + rule.relativeTo());
+                }
+                yield new RelativeToHoliday(index, require(rule, "offsetDays", rule.offsetDays()));
+            }
+            default -> throw invalid(rule, "unknown type " + rule.type());
+        };
+    }
+
+    private static LongUnaryOperator compileWeekendAdjuster(HolidayRule rule) {
+        // A null in application.yml binds as an empty string
+        if (rule.weekendFunctionCode() == null || rule.weekendFunctionCode().isBlank()) {
+            return LongUnaryOperator.identity();
+        }
+        LongUnaryOperator adjuster = WeekendAdjusterFunctionFactory.getEpochDayAdjuster(rule.weekendFunctionCode());
+        if (adjuster == null) {
+            throw invalid(rule, "invalid weekend function code " + rule.weekendFunctionCode());
+        }
+        return adjuster;
+    }
+
+    /**
+     * Orders the rules so that every rule comes after the holiday it is relative to
+     *
+     * @throws IllegalArgumentException if relative rules form a cycle
+     */
+    private static int[] evaluationOrder(List<CompiledRule> rules) {
+        int[] order = new int[rules.size()];
+        // 0 = not visited, 1 = being visited, 2 = ordered
+        byte[] state = new byte[rules.size()];
+        int next = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            next = visit(rules, i, state, order, next);
+        }
+        return order;
+    }
+
+    private static int visit(List<CompiledRule> rules, int index, byte[] state, int[] order, int next) {
+        if (state[index] == 2) {
+            return next;
+        }
+        if (state[index] == 1) {
+            throw invalid(rules.get(index).source(), "holidays are relative to each other in a cycle");
+        }
+        state[index] = 1;
+        if (rules.get(index).date() instanceof RelativeToHoliday relative) {
+            next = visit(rules, relative.ruleIndex(), state, order, next);
+        }
+        state[index] = 2;
+        order[next] = index;
+        return next + 1;
+    }
+
+    private static int month(HolidayRule rule) {
+        int month = require(rule, "month", rule.month());
+        if (month < 1 || month > 12) {
+            throw invalid(rule, "invalid month " + month);
+        }
+        return month;
+    }
+
+    private static int dayOfWeek(HolidayRule rule) {
+        int dayOfWeek = require(rule, "dayOfWeek", rule.dayOfWeek());
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw invalid(rule, "invalid day of week " + dayOfWeek);
+        }
+        return dayOfWeek;
+    }
+
+    private static int require(HolidayRule rule, String field, Integer value) {
+        if (value == null) {
+            throw invalid(rule, field + " is required");
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(HolidayRule rule, String reason) {
+        return new IllegalArgumentException("Invalid holiday rule " + describe(rule) + ": " + reason);
+    }
+
+    private static String describe(HolidayRule rule) {
+        return (rule.countryCode() != null ? rule.countryCode() + " " : "") + (rule.name() != null ? rule.name() : rule.type());
+    }
+
+    private static String nameKey(String countryCode, String name) {
+        return (countryCode == null || countryCode.isBlank() ? "" : countryCode) + "/" + name;
+    }
+
+    /**
+     * @return the epoch day of a date, without creating a LocalDate
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Western (Gregorian) Easter Sunday, by the anonymous Gregorian algorithm
+     *
+     * @return the epoch day of Easter Sunday
+     */
+    static long easterSunday(int year) {
+        if (year < FIRST_GREGORIAN_YEAR) {
+            throw new IllegalArgumentException("Easter is only calculated for Gregorian years: " + year);
+        }
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int n = h + l - 7 * m + 114;
+        return epochDay(year, n / 31, n % 31 + 1);
+    }
+
+    private static int monthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
@@ -2,66 +2,261 @@ package com.panthorstudios.toolrental.api.service;
 
 import com.panthorstudios.toolrental.properties.AppProperties;
 import com.panthorstudios.toolrental.api.domain.HolidayRule;
-import com.panthorstudios.toolrental.util.WeekendAdjusterFunctionFactory;
 import org.springframework.stereotype.Service;
 
-import java.time.DateTimeException;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class HolidayService {
 
+    // The compiled rules of one country and its holidays per year
+    private record CountryHolidays(HolidayRules rules, ConcurrentMap<Integer, Set<LocalDate>> holidaysByYear) {
+        CountryHolidays(HolidayRules rules) {
+            this(rules, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Holidays per country, computed from one version of the holiday rules. Rules without a country code apply
+     * to every country; a country with no rules of its own gets only those.
+     */
+    private record YearCache(long generation, List<HolidayRule> rules, Map<String, CountryHolidays> countries, CountryHolidays shared) {
+
+        static YearCache compile(long generation, List<HolidayRule> rules) {
+            List<HolidayRule> shared = new ArrayList<>();
+            Map<String, List<HolidayRule>> rulesByCountry = new LinkedHashMap<>();
+            if (rules != null) {
+                for (HolidayRule rule : rules) {
+                    if (rule == null || rule.countryCode() == null || rule.countryCode().isBlank()) {
+                        shared.add(rule);
+                    } else {
+                        rulesByCountry.computeIfAbsent(rule.countryCode(), code -> new ArrayList<>()).add(rule);
+                    }
+                }
+            }
+            Map<String, CountryHolidays> countries = new HashMap<>();
+            for (Map.Entry<String, List<HolidayRule>> country : rulesByCountry.entrySet()) {
+                List<HolidayRule> countryRules = new ArrayList<>(shared);
+                countryRules.addAll(country.getValue());
+                countries.put(country.getKey(), new CountryHolidays(HolidayRules.compile(countryRules)));
+            }
+            return new YearCache(generation, rules, Map.copyOf(countries), new CountryHolidays(HolidayRules.compile(shared)));
+        }
+
+        // The same compiled rules with nothing cached
+        YearCache nextGeneration() {
+            Map<String, CountryHolidays> emptied = new HashMap<>();
+            countries.forEach((countryCode, country) -> emptied.put(countryCode, new CountryHolidays(country.rules())));
+            return new YearCache(generation + 1, rules, Map.copyOf(emptied), new CountryHolidays(shared.rules()));
+        }
+
+        CountryHolidays country(String countryCode) {
+            CountryHolidays country = countryCode != null ? countries.get(countryCode) : null;
+            return country != null ? country : shared;
+        }
+    }
+
     private final AppProperties appProperties;
 
+    private volatile YearCache yearCache;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * @param appProperties the application properties
+     * @throws IllegalArgumentException if a holiday rule is invalid, so the application does not start
+     */
     public HolidayService(AppProperties appProperties) {
         this.appProperties = appProperties;
+        this.yearCache = YearCache.compile(0, appProperties.getHolidayRulesList());
     }
 
     /**
-     * Returns a set of holidays for the given range of years
+     * Returns a set of holidays in the default country for the given range of years
      * @param startYear The start year of the range
      * @param endYear The end year of the range
-     * @return A set of holidays
+     * @return An unmodifiable set of holidays
      */
     public Set<LocalDate> getHolidays(int startYear, int endYear) {
+        return getHolidays(getDefaultCountryCode(), startYear, endYear);
+    }
+
+    /**
+     * Returns a set of holidays in a country for the given range of years
+     * @param countryCode The country code; a country without rules of its own only has the rules without a country
+     * @param startYear The start year of the range
+     * @param endYear The end year of the range
+     * @return An unmodifiable set of holidays
+     */
+    public Set<LocalDate> getHolidays(String countryCode, int startYear, int endYear) {
+        CountryHolidays country = currentYearCache().country(countryCode);
+        if (startYear == endYear) {
+            return getHolidaysForYear(country, startYear);
+        }
         Set<LocalDate> holidays = new LinkedHashSet<>();
         for (int year = startYear; year <= endYear; year++) {
-            for (HolidayRule rule : appProperties.getHolidayRulesList()) {
-                holidays.add(calculateHolidayDate(year, rule));
-            }
+            holidays.addAll(getHolidaysForYear(country, year));
+        }
+        return Collections.unmodifiableSet(holidays);
+    }
+
+    /**
+     * @return The countries that have holiday rules of their own
+     */
+    public Set<String> getCountryCodes() {
+        return currentYearCache().countries().keySet();
+    }
+
+    /**
+     * @return The country of stores without a country of their own
+     */
+    public String getDefaultCountryCode() {
+        AppProperties.Stores stores = appProperties.getStores() != null ? appProperties.getStores() : new AppProperties.Stores();
+        return stores.getDefaultCountryCode();
+    }
+
+    /**
+     * Discards all cached holidays so they are recalculated from the current holiday rules
+     */
+    public void invalidateCache() {
+        YearCache cache = yearCache;
+        List<HolidayRule> rules = appProperties.getHolidayRulesList();
+        // The same rules list needs no recompiling
+        yearCache = cache.rules() == rules ? cache.nextGeneration() : YearCache.compile(cache.generation() + 1, rules);
+    }
+
+    /**
+     * Holiday rules compiled by {@link #compileRules(List)}, ready to be swapped in by {@link #replaceRules(CompiledRules)}
+     */
+    public static final class CompiledRules {
+        private final YearCache compiled;
+
+        private CompiledRules(YearCache compiled) {
+            this.compiled = compiled;
         }
-        return holidays;
+    }
+
+    /**
+     * Compiles holiday rules without replacing anything, so they can be swapped in later together with other changes
+     *
+     * @param rules the holiday rules
+     * @return the compiled rules
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public CompiledRules compileRules(List<HolidayRule> rules) {
+        return new CompiledRules(YearCache.compile(-1, rules));
+    }
+
+    /**
+     * Replaces the configured holiday rules. The rules are compiled before anything is replaced, and lookups
+     * switch to them in one step, so no lookup sees a mix of old and new rules.
+     *
+     * @param rules the new holiday rules
+     * @throws IllegalArgumentException if a rule is invalid; the current rules are kept
+     */
+    public void replaceRules(List<HolidayRule> rules) {
+        replaceRules(compileRules(rules));
+    }
+
+    /**
+     * Replaces the configured holiday rules with rules already compiled; lookups switch to them in one step
+     *
+     * @param rules the compiled holiday rules
+     */
+    public void replaceRules(CompiledRules rules) {
+        YearCache compiled = rules.compiled;
+        YearCache replacement = new YearCache(yearCache.generation() + 1, compiled.rules(), compiled.countries(), compiled.shared());
+        // The rules list goes first: a lookup that sees it before the new cache compiles the same rules itself
+        appProperties.setHolidayRulesList(compiled.rules());
+        yearCache = replacement;
+    }
+
+    /**
+     * Returns a number that changes whenever the holiday rules change, so that
+     * anything derived from the holidays can tell when it needs to be rebuilt
+     * @return The current generation of the holiday rules
+     */
+    public long getRulesGeneration() {
+        return currentYearCache().generation();
+    }
+
+    /**
+     * @return The number of years served from the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return The number of years that had to be calculated
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Returns the cache for the current holiday rules, replacing it if the rules list has been swapped
+     * @return The year cache
+     */
+    private YearCache currentYearCache() {
+        YearCache cache = yearCache;
+        List<HolidayRule> rules = appProperties.getHolidayRulesList();
+        if (cache.rules() != rules) {
+            cache = YearCache.compile(cache.generation() + 1, rules);
+            yearCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the holidays of one year. Years in the range of app.calendar are cached until the rules change;
+     * other years are calculated every time, so a request for a far-off year does not leave it in memory.
+     */
+    private Set<LocalDate> getHolidaysForYear(CountryHolidays country, int year) {
+        Set<LocalDate> holidays = country.holidaysByYear().get(year);
+        if (holidays != null) {
+            cacheHits.incrementAndGet();
+            return holidays;
+        }
+        cacheMisses.incrementAndGet();
+        AppProperties.Calendar calendar = appProperties.getCalendar() != null ? appProperties.getCalendar() : new AppProperties.Calendar();
+        if (year < calendar.getStartYear() || year > calendar.getEndYear()) {
+            return calculateHolidays(country.rules(), year);
+        }
+        return country.holidaysByYear().computeIfAbsent(year, y -> calculateHolidays(country.rules(), y));
+    }
+
+    private Set<LocalDate> calculateHolidays(HolidayRules rules, int year) {
+        long[] epochDays = new long[rules.size()];
+        rules.evaluate(year, epochDays);
+        Set<LocalDate> holidays = new LinkedHashSet<>();
+        for (long epochDay : epochDays) {
+            holidays.add(LocalDate.ofEpochDay(epochDay));
+        }
+        return Collections.unmodifiableSet(holidays);
     }
 
     /**
      * Calculates the date of a holiday based on the given rule
      * @param year The year to calculate the holiday date for
-     * @param rule The rule that defines the holiday
+     * @param rule The rule that defines the holiday; it cannot be relative to another holiday
      * @return The date of the holiday
+     * @throws IllegalArgumentException if the rule is invalid
      */
     protected LocalDate calculateHolidayDate(int year, HolidayRule rule) {
-        if ("FIXED_DATE".equals(rule.type())) { // Fixed-date holiday
-            Function<LocalDate, LocalDate> weekendAdjusterFunction = WeekendAdjusterFunctionFactory.getAdjusterFunction(rule.weekendFunctionCode());
-            if (weekendAdjusterFunction == null) {
-                throw new IllegalArgumentException("Invalid weekend function code: " + rule.weekendFunctionCode());
-            }
-            return weekendAdjusterFunction.apply(LocalDate.of(year, rule.month(), rule.day()));
-
-        } else if ("FIXED_WEEKDAY".equals(rule.type())) { // Same weekday every year (e.g. first monday of Sept, Labor Day)
-            DayOfWeek dow;
-            try {
-                dow = DayOfWeek.of(rule.dayOfWeek());
-            } catch (DateTimeException e) {
-                throw new IllegalArgumentException("Invalid day of week: " + rule.dayOfWeek());
-            }
-           return LocalDate.of(year, rule.month(), 1)
-                    .with(TemporalAdjusters.dayOfWeekInMonth(rule.occurrence(), dow));
-        }
-        return null;
+        long[] epochDays = new long[1];
+        HolidayRules.compile(List.of(rule)).evaluate(year, epochDays);
+        return LocalDate.ofEpochDay(epochDays[0]);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.exception.IdempotencyKeyReusedException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the rental agreement issued for each Idempotency-Key, so a retried checkout returns the original
+ * agreement instead of creating a second one.
+ * <p>
+ * The first request for a key runs the checkout; concurrent requests with the same key wait for it and share
+ * its result. A failed checkout is not remembered, so it can be retried with the same key. The request is kept
+ * with its key, and a different request with a key already in use is rejected rather than answered with the
+ * agreement for the first one.
+ * <p>
+ * Every entry lives for the same time-to-live, so entries expire in the order they were added. That order is
+ * kept in a queue, and the oldest entries are evicted when they expire or when the cache grows past its
+ * maximum size. An entry whose checkout is still running is not evicted, since a retry would then check out
+ * again; eviction stops at it until it finishes, so the cache may briefly hold more entries while checkouts
+ * are in flight. The entry of a failed checkout leaves the map at once but stays in the queue, where it does not
+ * count towards the maximum size, until eviction reaches it or enough have built up to sweep them out together.
+ */
+@Component
+public class IdempotencyCache {
+
+    // The request for a key and the result of its checkout, shared by every request with that key
+    private record Entry(String key, Object request, CompletableFuture<RentalAgreement> result, long expiresAtNanos) {}
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Entries in the queue whose checkout is running or succeeded, and those whose checkout failed
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public IdempotencyCache(AppProperties appProperties, MeterRegistry registry) {
+        this(appProperties, registry, System::nanoTime);
+    }
+
+    /**
+     * @param appProperties the application properties
+     * @param registry the registry for the cache metrics
+     * @param nanoClock supplies the time in nanoseconds used for expiry
+     */
+    IdempotencyCache(AppProperties appProperties, MeterRegistry registry, LongSupplier nanoClock) {
+        AppProperties.Idempotency settings = appProperties.getIdempotency() != null ? appProperties.getIdempotency() : new AppProperties.Idempotency();
+        if (settings.getMaximumSize() < 1) {
+            throw new IllegalArgumentException("Idempotency cache maximum size must be positive: " + settings.getMaximumSize());
+        }
+        this.maximumSize = settings.getMaximumSize();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(settings.getTtlSeconds());
+        this.nanoClock = nanoClock;
+        if (appProperties.getMetrics() == null || appProperties.getMetrics().isEnabled()) {
+            Gauge.builder("toolrental.idempotency.size", entries, ConcurrentMap::size)
+                    .description("Idempotency keys currently remembered")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.idempotency.requests", hits, LongAdder::sum)
+                    .description("Checkouts with an Idempotency-Key, by whether the key was already known")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.idempotency.requests", misses, LongAdder::sum)
+                    .description("Checkouts with an Idempotency-Key, by whether the key was already known")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.idempotency.evictions", evictions, LongAdder::sum)
+                    .description("Idempotency keys forgotten because they expired or the cache was full")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Returns the rental agreement already issued for a key, or runs the checkout if the key is new
+     *
+     * @param key the Idempotency-Key
+     * @param request the request, which must equal the one the key was first used with
+     * @param checkout creates the rental agreement
+     * @return the rental agreement for the key
+     * @throws IdempotencyKeyReusedException if the key was used with a different request
+     */
+    public RentalAgreement getOrCheckout(String key, Object request, Supplier<RentalAgreement> checkout) {
+        long now = nanoClock.getAsLong();
+        Entry created = null;
+        while (created == null) {
+            Entry existing = entries.get(key);
+            if (existing != null && isExpired(existing, now)) {
+                if (entries.remove(key, existing)) {
+                    evictions.increment();
+                }
+                existing = null;
+            }
+            if (existing != null) {
+                if (!existing.request().equals(request)) {
+                    throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for a different request.");
+                }
+                hits.increment();
+                return join(existing.result());
+            }
+            Entry entry = new Entry(key, request, new CompletableFuture<>(), now + ttlNanos);
+            if (entries.putIfAbsent(key, entry) == null) {
+                created = entry;
+            }
+        }
+        misses.increment();
+        insertionOrder.add(created);
+        queued.incrementAndGet();
+        evict(now);
+
+        RentalAgreement rentalAgreement;
+        try {
+            rentalAgreement = checkout.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            // The failed result marks the entry for eviction to drop; taking it out of the queue here would scan it
+            created.result().completeExceptionally(e);
+            queued.decrementAndGet();
+            failed.incrementAndGet();
+            throw e;
+        }
+        created.result().complete(rentalAgreement);
+        return rentalAgreement;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes the oldest entries while they have failed, have expired or the cache is over its maximum size,
+     * stopping at an entry whose checkout is still running. Once more failed entries than the maximum size have
+     * built up behind live ones, they are swept out of the whole queue in one pass, so the sweep costs each failure
+     * a constant amount. Only one thread evicts at a time; the others carry on without waiting.
+     */
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (failed.get() > maximumSize) {
+                int[] swept = {0};
+                insertionOrder.removeIf(entry -> {
+                    if (!hasFailed(entry)) {
+                        return false;
+                    }
+                    swept[0]++;
+                    return true;
+                });
+                failed.addAndGet(-swept[0]);
+            }
+            // Only this thread takes from the queue, so the oldest is still at its head when polled
+            for (Entry oldest = insertionOrder.peek();
+                 oldest != null && oldest.result().isDone() && (hasFailed(oldest) || queued.get() > maximumSize || isExpired(oldest, now));
+                 oldest = insertionOrder.peek()) {
+                insertionOrder.poll();
+                if (hasFailed(oldest)) {
+                    failed.decrementAndGet();
+                    continue;
+                }
+                queued.decrementAndGet();
+                // Already expired entries have left the map
+                if (entries.remove(oldest.key(), oldest)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // A failed checkout's entry has already left the map and is only waiting to leave the queue
+    private static boolean hasFailed(Entry entry) {
+        return entry.result().isCompletedExceptionally();
+    }
+
+    // An entry whose checkout is still running never expires
+    private static boolean isExpired(Entry entry, long now) {
+        return entry.result().isDone() && now - entry.expiresAtNanos() >= 0;
+    }
+
+    private static RentalAgreement join(CompletableFuture<RentalAgreement> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
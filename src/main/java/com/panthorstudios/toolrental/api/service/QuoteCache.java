@@ -0,0 +1,246 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of charge details, keyed by country, tool type, checkout date and rental days.
+ * <p>
+ * It only serves rentals that reach outside the business calendar's horizon (app.calendar); the calendar prices
+ * everything inside it faster than a lookup here. Those rentals are priced from holidays calculated year by year,
+ * and years outside the calendar are not kept by {@link HolidayService}, so without this cache every repeat of such
+ * a quote walks its holidays again.
+ * <p>
+ * Cached quotes belong to one version of the tool catalog and one generation of the holiday rules.
+ * When either changes the whole cache is dropped, so a quote is never served for old prices or holidays.
+ * <p>
+ * Once the cache is full a new quote is only admitted if it has been requested more often than the oldest
+ * cached quote, which is then evicted. Request counts are kept approximately, in a small count-min sketch
+ * that halves its counts periodically so that old popularity fades.
+ */
+@Component
+public class QuoteCache {
+
+    // Rough heap cost of one cached quote: key, charge details, money, map node and queue node
+    static final int ESTIMATED_ENTRY_BYTES = 160;
+
+    private record QuoteKey(String countryCode, String typeCode, long checkoutEpochDay, int rentalDays) {}
+
+    // The quotes for one catalog version and holiday rules generation
+    private record Store(long catalogVersion, long rulesGeneration, ConcurrentMap<QuoteKey, CheckoutService.ChargeDetails> quotes,
+                         ConcurrentLinkedQueue<QuoteKey> insertionOrder) {
+        Store(long catalogVersion, long rulesGeneration) {
+            this(catalogVersion, rulesGeneration, new ConcurrentHashMap<>(), new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    private final HolidayService holidayService;
+    private final boolean enabled;
+    private final int maximumSize;
+    private final FrequencySketch frequencies;
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile Store store = new Store(-1, -1);
+
+    public QuoteCache(AppProperties appProperties, HolidayService holidayService, MeterRegistry registry) {
+        AppProperties.QuoteCache settings = appProperties.getQuoteCache() != null ? appProperties.getQuoteCache() : new AppProperties.QuoteCache();
+        if (settings.getMaximumSize() < 1) {
+            throw new IllegalArgumentException("Quote cache maximum size must be positive: " + settings.getMaximumSize());
+        }
+        this.holidayService = holidayService;
+        this.enabled = settings.isEnabled();
+        this.maximumSize = settings.getMaximumSize();
+        this.frequencies = enabled ? new FrequencySketch(maximumSize) : null;
+        if (enabled && (appProperties.getMetrics() == null || appProperties.getMetrics().isEnabled())) {
+            Gauge.builder("toolrental.quote.cache.size", this, QuoteCache::size)
+                    .description("Quotes currently cached")
+                    .register(registry);
+            Gauge.builder("toolrental.quote.cache.memory", this, cache -> (double) cache.size() * ESTIMATED_ENTRY_BYTES)
+                    .description("Estimated heap used by cached quotes")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.quote.cache.requests", hits, LongAdder::sum)
+                    .description("Quote lookups by cache result")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.quote.cache.requests", misses, LongAdder::sum)
+                    .description("Quote lookups by cache result")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("toolrental.quote.cache.evictions", evictions, LongAdder::sum)
+                    .description("Quotes evicted to make room for more popular ones")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached charge details for a rental, calculating and possibly caching them on a miss
+     *
+     * @param catalogVersion the version of the catalog the tool type was read from
+     * @param countryCode the country whose holidays the charge days were counted against
+     * @param typeCode the tool type
+     * @param checkoutDate the checkout date
+     * @param rentalDays the rental days
+     * @param calculator calculates the charge details on a miss
+     * @return the charge details
+     */
+    public CheckoutService.ChargeDetails getQuote(long catalogVersion, String countryCode, String typeCode, LocalDate checkoutDate, int rentalDays,
+                                                  Supplier<CheckoutService.ChargeDetails> calculator) {
+        if (!enabled) {
+            return calculator.get();
+        }
+        Store current = currentStore(catalogVersion);
+        QuoteKey key = new QuoteKey(countryCode, typeCode, checkoutDate.toEpochDay(), rentalDays);
+        frequencies.increment(key);
+        CheckoutService.ChargeDetails quote = current.quotes().get(key);
+        if (quote != null) {
+            hits.increment();
+            return quote;
+        }
+        misses.increment();
+        quote = calculator.get();
+        admit(current, key, quote);
+        return quote;
+    }
+
+    public int size() {
+        return store.quotes().size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the store for the given catalog version and the current holiday rules, replacing the current store
+     * if either has changed. A caller holding an older catalog gets a detached store, so its quotes are not kept.
+     */
+    private Store currentStore(long catalogVersion) {
+        long rulesGeneration = holidayService.getRulesGeneration();
+        Store current = store;
+        if (current.catalogVersion() == catalogVersion && current.rulesGeneration() == rulesGeneration) {
+            return current;
+        }
+        if (catalogVersion < current.catalogVersion() || rulesGeneration < current.rulesGeneration()) {
+            return new Store(catalogVersion, rulesGeneration);
+        }
+        Store replacement = new Store(catalogVersion, rulesGeneration);
+        store = replacement;
+        return replacement;
+    }
+
+    /**
+     * Adds a quote to the store. When the store is full the quote replaces the oldest one only if it is requested
+     * more often; otherwise the oldest quote is moved to the back of the queue and the new one is not cached.
+     * Admissions are serialized, so concurrent misses cannot take the store past its maximum size.
+     */
+    private void admit(Store current, QuoteKey key, CheckoutService.ChargeDetails quote) {
+        admissionLock.lock();
+        try {
+            if (current.quotes().containsKey(key)) {
+                return;
+            }
+            if (current.quotes().size() < maximumSize) {
+                current.quotes().put(key, quote);
+                current.insertionOrder().add(key);
+                return;
+            }
+            QuoteKey victim = current.insertionOrder().poll();
+            if (victim == null) {
+                return;
+            }
+            if (frequencies.frequency(key) > frequencies.frequency(victim)) {
+                current.quotes().remove(victim);
+                evictions.increment();
+                current.quotes().put(key, quote);
+                current.insertionOrder().add(key);
+            } else {
+                current.insertionOrder().add(victim);
+            }
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, four per key. Updates are unsynchronized, so a count may occasionally
+     * be lost under contention; that only makes the estimate slightly less accurate.
+     */
+    static final class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[] counts;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int size = Integer.highestOneBit(Math.max(64, maximumSize) * 4 - 1) << 1;
+            this.counts = new byte[size];
+            this.mask = size - 1;
+            this.resetAfter = Math.max(64, maximumSize) * 10;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            for (int seed : SEEDS) {
+                int index = index(hash, seed);
+                if (counts[index] < MAX_COUNT) {
+                    counts[index]++;
+                }
+            }
+            if (++additions >= resetAfter) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = MAX_COUNT;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, counts[index(hash, seed)]);
+            }
+            return frequency;
+        }
+
+        // Halves every count so that keys which were popular a while ago lose their advantage
+        private void reset() {
+            additions = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] >>= 1;
+            }
+        }
+
+        private int index(int hash, int seed) {
+            int h = hash * seed;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.panthorstudios.toolrental.api.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates receipt IDs of the form TIMESTAMP-SSSTT, where TIMESTAMP is the Unix time in milliseconds,
+ * SSS the store ID and TT the terminal ID, all in upper-case base 36.
+ * <p>
+ * IDs are issued per store and terminal. The first ID in a millisecond has the plain form; later ones in
+ * the same millisecond add a sequence number, TIMESTAMP-SSSTT-Q, where Q counts up from 1 in base 36. The
+ * timestamp is therefore always the time of the checkout however many there are a millisecond. If the clock
+ * moves backwards, IDs keep the latest timestamp issued and count up until the clock catches up. IDs from one
+ * terminal are unique and increase by timestamp, then sequence.
+ */
+@Component
+public class ReceiptIdGenerator {
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final int RADIX = 36;
+    private static final int STORE_ID_LENGTH = 3;
+    private static final int TERMINAL_ID_LENGTH = 2;
+
+    // Long.MAX_VALUE and Integer.MAX_VALUE are 13 and 6 digits in base 36
+    private static final int MAX_LENGTH = 13 + 1 + 6 + 6 + 1 + 13;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+    /**
+     * The parts of a receipt ID; the sequence is 0 for the first ID in a millisecond
+     */
+    public record ReceiptId(long timestampMs, int storeId, int terminalId, long sequence) {}
+
+    // A timestamp and the number of IDs issued before it in the same millisecond
+    record Issued(long timestampMs, long sequence) {}
+
+    private static final Issued NONE_ISSUED = new Issued(-1, 0);
+
+    // Last timestamp and sequence issued for one store and terminal
+    private record TerminalSequence(long key, AtomicReference<Issued> lastIssued) {}
+
+    private final LongSupplier clock;
+    private final ConcurrentMap<Long, TerminalSequence> sequences = new ConcurrentHashMap<>();
+    private volatile TerminalSequence lastUsed = new TerminalSequence(-1, new AtomicReference<>(NONE_ISSUED));
+
+    public ReceiptIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock supplies the current time in milliseconds
+     */
+    ReceiptIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Generates the next receipt ID for a store and terminal
+     *
+     * @param storeId the store ID
+     * @param terminalId the terminal ID
+     * @return the receipt ID
+     */
+    public String nextReceiptId(int storeId, int terminalId) {
+        Issued issued = nextIssued(storeId, terminalId);
+        return format(issued.timestampMs(), storeId, terminalId, issued.sequence());
+    }
+
+    /**
+     * Formats a receipt ID.
+     * The store and terminal IDs are padded with leading zeros to 3 and 2 characters.
+     *
+     * @param timestampMs the timestamp in milliseconds
+     * @param storeId the store ID
+     * @param terminalId the terminal ID
+     * @return the receipt ID
+     */
+    public String format(long timestampMs, int storeId, int terminalId) {
+        return format(timestampMs, storeId, terminalId, 0);
+    }
+
+    /**
+     * Formats a receipt ID with a sequence number, which is left out when it is 0
+     *
+     * @param timestampMs the timestamp in milliseconds
+     * @param storeId the store ID
+     * @param terminalId the terminal ID
+     * @param sequence the number of IDs issued before this one in the same millisecond
+     * @return the receipt ID
+     */
+    public String format(long timestampMs, int storeId, int terminalId, long sequence) {
+        if (timestampMs < 0 || storeId < 0 || terminalId < 0 || sequence < 0) {
+            throw new IllegalArgumentException("Receipt ID parts must not be negative: " + timestampMs + ", " + storeId + ", " + terminalId + ", " + sequence);
+        }
+        char[] buffer = BUFFER.get();
+        int start = buffer.length;
+        if (sequence > 0) {
+            start = writeBase36(buffer, start, sequence, 1);
+            buffer[--start] = '-';
+        }
+        start = writeBase36(buffer, start, terminalId, TERMINAL_ID_LENGTH);
+        start = writeBase36(buffer, start, storeId, STORE_ID_LENGTH);
+        buffer[--start] = '-';
+        start = writeBase36(buffer, start, timestampMs, 1);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Parses a receipt ID
+     *
+     * @param receiptId the receipt ID
+     * @return the timestamp, store ID, terminal ID and sequence
+     * @throws IllegalArgumentException if the receipt ID is not of the form TIMESTAMP-SSSTT or TIMESTAMP-SSSTT-Q
+     */
+    public static ReceiptId parse(String receiptId) {
+        int separator = receiptId == null ? -1 : receiptId.indexOf('-');
+        int sequenceSeparator = separator < 0 ? -1 : receiptId.indexOf('-', separator + 1);
+        int end = sequenceSeparator < 0 ? (receiptId == null ? 0 : receiptId.length()) : sequenceSeparator;
+        if (separator <= 0 || end - separator - 1 < STORE_ID_LENGTH + TERMINAL_ID_LENGTH) {
+            throw new IllegalArgumentException("Invalid receipt ID: " + receiptId);
+        }
+        try {
+            int terminalStart = end - TERMINAL_ID_LENGTH;
+            long sequence = 0;
+            if (sequenceSeparator >= 0) {
+                // parseLong accepts a sign, which a sequence never has
+                if (sequenceSeparator + 1 == receiptId.length() || Character.digit(receiptId.charAt(sequenceSeparator + 1), RADIX) < 0) {
+                    throw new IllegalArgumentException("Invalid receipt ID: " + receiptId);
+                }
+                sequence = Long.parseLong(receiptId, sequenceSeparator + 1, receiptId.length(), RADIX);
+            }
+            return new ReceiptId(Long.parseLong(receiptId, 0, separator, RADIX),
+                    Integer.parseInt(receiptId, separator + 1, terminalStart, RADIX),
+                    Integer.parseInt(receiptId, terminalStart, end, RADIX),
+                    sequence);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid receipt ID: " + receiptId, e);
+        }
+    }
+
+    /**
+     * Returns the current time with sequence 0, or the next sequence of the last timestamp issued to the terminal
+     * if the clock has not moved past it
+     *
+     * @param storeId the store ID
+     * @param terminalId the terminal ID
+     * @return the timestamp and sequence
+     */
+    Issued nextIssued(int storeId, int terminalId) {
+        AtomicReference<Issued> lastIssued = sequenceFor(storeId, terminalId).lastIssued();
+        while (true) {
+            long now = clock.getAsLong();
+            Issued last = lastIssued.get();
+            Issued next = now > last.timestampMs() ? new Issued(now, 0) : new Issued(last.timestampMs(), last.sequence() + 1);
+            if (lastIssued.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private TerminalSequence sequenceFor(int storeId, int terminalId) {
+        long key = ((long) storeId << 32) | (terminalId & 0xFFFFFFFFL);
+        TerminalSequence sequence = lastUsed;
+        if (sequence.key() != key) {
+            sequence = sequences.computeIfAbsent(key, k -> new TerminalSequence(k, new AtomicReference<>(NONE_ISSUED)));
+            lastUsed = sequence;
+        }
+        return sequence;
+    }
+
+    /**
+     * Writes a value in base 36 so that it ends just before the given position
+     *
+     * @return the position of the first character written
+     */
+    private static int writeBase36(char[] buffer, int end, long value, int minLength) {
+        int position = end;
+        do {
+            buffer[--position] = DIGITS[(int) (value % RADIX)];
+            value /= RADIX;
+        } while (value > 0);
+        while (end - position < minLength) {
+            buffer[--position] = '0';
+        }
+        return position;
+    }
+}
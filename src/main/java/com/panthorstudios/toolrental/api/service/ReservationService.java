@@ -0,0 +1,211 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Reservation;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.exception.ToolUnavailableException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Books each tool for the dates of its rentals, so the same tool is never rented twice for overlapping dates.
+ * <p>
+ * Each tool code has its own interval index: a skip list of its bookings by first day. A tool's bookings never
+ * overlap, so the only one that can overlap a new range is the last one starting on or before the range's end,
+ * found with a single floor lookup. Booking takes that tool's lock for the check and the insert, both O(log n),
+ * so checkouts of different tools never wait for each other; checking availability takes no lock at all.
+ * <p>
+ * A booking is kept only until its due date has passed: booking a tool first drops its bookings that are over,
+ * and a rental that is already over when it is checked out is not booked. Bookings are held in memory and start
+ * empty when the application starts.
+ */
+@Service
+public class ReservationService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    // A booking by epoch day, so the overlap check compares longs
+    private record Booking(long firstDay, long lastDay, Reservation reservation) {}
+
+    // The bookings of one tool by first day, which never overlap, so their last days are in order too
+    private static final class ToolBookings {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ConcurrentSkipListMap<Long, Booking> byFirstDay = new ConcurrentSkipListMap<>();
+
+        Booking overlapping(long firstDay, long lastDay) {
+            Map.Entry<Long, Booking> latest = byFirstDay.floorEntry(lastDay);
+            return latest != null && latest.getValue().lastDay() >= firstDay ? latest.getValue() : null;
+        }
+    }
+
+    private final ToolService toolService;
+    private final boolean enabled;
+    private final Supplier<LocalDate> today;
+    private final AtomicLong count = new AtomicLong();
+    private final ConcurrentMap<String, ToolBookings> bookingsByTool = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReservationService(ToolService toolService, AppProperties appProperties, MeterRegistry registry) {
+        this(toolService, appProperties, registry, LocalDate::now);
+    }
+
+    /**
+     * @param today gives today's date, before which bookings are over
+     */
+    ReservationService(ToolService toolService, AppProperties appProperties, MeterRegistry registry, Supplier<LocalDate> today) {
+        AppProperties.Reservations settings = appProperties.getReservations() != null ? appProperties.getReservations() : new AppProperties.Reservations();
+        this.toolService = toolService;
+        this.enabled = settings.isEnabled();
+        this.today = today;
+        if (enabled && (appProperties.getMetrics() == null || appProperties.getMetrics().isEnabled())) {
+            Gauge.builder("toolrental.reservations", count, AtomicLong::get)
+                    .description("Tool bookings held in memory")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Books a tool for a rental
+     *
+     * @param toolCode the tool code
+     * @param checkoutDate the first day of the rental
+     * @param dueDate the last day of the rental
+     * @param rentalAgreementId the agreement the booking is for
+     * @return the booking, or null if reservations are disabled or the rental is already over
+     * @throws ToolUnavailableException if the tool is already booked for any of the days
+     */
+    public Reservation reserve(String toolCode, LocalDate checkoutDate, LocalDate dueDate, String rentalAgreementId) {
+        if (!enabled) {
+            return null;
+        }
+        long today = this.today.get().toEpochDay();
+        long firstDay = checkoutDate.toEpochDay();
+        long lastDay = dueDate.toEpochDay();
+        if (lastDay < today) {
+            return null;
+        }
+        ToolBookings bookings = bookingsByTool.computeIfAbsent(toolCode, code -> new ToolBookings());
+        bookings.lock.lock();
+        try {
+            dropOver(bookings, today);
+            Booking conflict = bookings.overlapping(firstDay, lastDay);
+            if (conflict != null) {
+                throw new ToolUnavailableException("Tool " + toolCode + " is already rented from " + conflict.reservation().checkoutDate()
+                        + " to " + conflict.reservation().dueDate() + ".");
+            }
+            Reservation reservation = new Reservation(rentalAgreementId, toolCode, checkoutDate, dueDate);
+            bookings.byFirstDay.put(firstDay, new Booking(firstDay, lastDay, reservation));
+            count.incrementAndGet();
+            return reservation;
+        } finally {
+            bookings.lock.unlock();
+        }
+    }
+
+    // Drops the bookings that ended before today, which are the first ones as bookings are in order; called under the tool's lock
+    private void dropOver(ToolBookings bookings, long today) {
+        Map.Entry<Long, Booking> first;
+        while ((first = bookings.byFirstDay.firstEntry()) != null && first.getValue().lastDay() < today) {
+            bookings.byFirstDay.remove(first.getKey());
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * Cancels a booking, freeing its days. A booking that is no longer held is ignored.
+     *
+     * @param reservation the booking returned by {@link #reserve}, or null
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        ToolBookings bookings = bookingsByTool.get(reservation.toolCode());
+        if (bookings == null) {
+            return;
+        }
+        bookings.lock.lock();
+        try {
+            long firstDay = reservation.checkoutDate().toEpochDay();
+            Booking booking = bookings.byFirstDay.get(firstDay);
+            if (booking != null && booking.reservation().equals(reservation)) {
+                bookings.byFirstDay.remove(firstDay);
+                count.decrementAndGet();
+            }
+        } finally {
+            bookings.lock.unlock();
+        }
+    }
+
+    /**
+     * @param toolCode the tool code
+     * @param from the first day
+     * @param to the last day
+     * @return true if the tool is not booked for any day from the first to the last
+     */
+    public boolean isAvailable(String toolCode, LocalDate from, LocalDate to) {
+        return isAvailable(toolCode, from.toEpochDay(), to.toEpochDay());
+    }
+
+    private boolean isAvailable(String toolCode, long firstDay, long lastDay) {
+        ToolBookings bookings = bookingsByTool.get(toolCode);
+        return bookings == null || bookings.overlapping(firstDay, lastDay) == null;
+    }
+
+    /**
+     * Finds the tools of a type that are free for every day of a range, a page at a time in tool code order.
+     *
+     * @param typeCode the tool type code, or null for tools of any type
+     * @param from the first day
+     * @param to the last day
+     * @param cursor the next cursor of the previous page, or null for the first page
+     * @param limit the maximum number of tools to return, at most {@value #MAX_PAGE_SIZE}
+     * @return the page of free tools
+     * @throws IllegalArgumentException if a date is missing, the range is backwards, or the limit is invalid
+     */
+    public ToolPage findAvailable(String typeCode, LocalDate from, LocalDate to, String cursor, int limit) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("A date range from one day to the same day or later is required");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
+        long firstDay = from.toEpochDay();
+        long lastDay = to.toEpochDay();
+        ToolCatalog catalog = toolService.getCatalog();
+        List<Tool> tools = new ArrayList<>(Math.min(limit, 64));
+        String next = cursor;
+        do {
+            ToolPage page = catalog.search(typeCode, null, null, next, ToolCatalog.MAX_PAGE_SIZE);
+            for (Tool tool : page.tools()) {
+                if (!isAvailable(tool.code(), firstDay, lastDay)) {
+                    continue;
+                }
+                if (tools.size() == limit) {
+                    return new ToolPage(tools, tools.get(limit - 1).code());
+                }
+                tools.add(tool);
+            }
+            next = page.nextCursor();
+        } while (next != null);
+        return new ToolPage(tools, null);
+    }
+}
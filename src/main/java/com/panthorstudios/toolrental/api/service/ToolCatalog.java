@@ -0,0 +1,253 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the tools and tool types, compiled once from the configuration.
+ * Each tool is linked to its tool type and everything a checkout needs from it, so pricing a
+ * rental takes a single map lookup.
+ * <p>
+ * For searching, the tool codes are kept in a sorted array, which answers a code prefix and a page cursor with
+ * binary searches, and each tool type and brand has a posting list: the ascending positions in that array of
+ * its tools. A search walks the shortest posting list that applies, from the cursor, so a page costs about as
+ * much as the tools on it however large the catalog is.
+ */
+public final class ToolCatalog {
+
+    /**
+     * A tool and everything resolved from its tool type.
+     * The tool type, charge mask and daily rate are null/0 if the tool's type is not configured.
+     *
+     * @param tool the tool
+     * @param toolType the tool's type
+     * @param chargeMask the chargeable day classes, see {@link BusinessCalendar#chargeMask(ToolType)}
+     * @param dailyRate the daily charge in cents
+     * @param label the tool type label shown on the rental agreement
+     */
+    public record Entry(Tool tool, ToolType toolType, int chargeMask, Money dailyRate, String label) {}
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final int[] NO_TOOLS = new int[0];
+
+    private final long version;
+    private final Map<String, Entry> entries;
+    private final Map<String, ToolType> toolTypes;
+    private final List<Tool> toolList;
+    private final List<ToolType> toolTypeList;
+    private final List<String> toolCodes;
+
+    // The tool codes in order, and the tool at each position
+    private final String[] sortedCodes;
+    private final Tool[] sortedTools;
+    // Positions in sortedCodes by type code, and by brand ignoring case
+    private final Map<String, int[]> toolsByType;
+    private final Map<String, int[]> toolsByBrand;
+
+    private ToolCatalog(long version, Map<String, Entry> entries, Map<String, ToolType> toolTypes) {
+        this.version = version;
+        this.entries = entries;
+        this.toolTypes = toolTypes;
+        // Listed in code order, so the same catalog is always listed, and serialized, the same way
+        this.sortedCodes = entries.keySet().toArray(new String[0]);
+        Arrays.sort(sortedCodes);
+        this.sortedTools = new Tool[sortedCodes.length];
+        Map<String, List<Integer>> byType = new HashMap<>();
+        Map<String, List<Integer>> byBrand = new HashMap<>();
+        for (int i = 0; i < sortedCodes.length; i++) {
+            Tool tool = entries.get(sortedCodes[i]).tool();
+            sortedTools[i] = tool;
+            if (tool.typeCode() != null) {
+                byType.computeIfAbsent(tool.typeCode(), typeCode -> new ArrayList<>()).add(i);
+            }
+            if (tool.brand() != null) {
+                byBrand.computeIfAbsent(brandKey(tool.brand()), brand -> new ArrayList<>()).add(i);
+            }
+        }
+        this.toolsByType = postingLists(byType);
+        this.toolsByBrand = postingLists(byBrand);
+        this.toolCodes = List.of(sortedCodes);
+        this.toolList = List.of(sortedTools);
+        this.toolTypeList = toolTypes.keySet().stream().sorted().map(toolTypes::get).toList();
+    }
+
+    private static Map<String, int[]> postingLists(Map<String, List<Integer>> positions) {
+        Map<String, int[]> postingLists = new HashMap<>();
+        positions.forEach((key, list) -> postingLists.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return Map.copyOf(postingLists);
+    }
+
+    private static String brandKey(String brand) {
+        return brand.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compiles a catalog
+     *
+     * @param tools the tools by code, may be null
+     * @param toolTypes the tool types by type code, may be null
+     * @param version the version of the catalog
+     * @return the catalog
+     * @throws ArithmeticException if a daily charge has more than two decimal places
+     */
+    public static ToolCatalog compile(Map<String, Tool> tools, Map<String, ToolType> toolTypes, long version) {
+        Map<String, ToolType> typesByCode = toolTypes == null ? Map.of() : Map.copyOf(toolTypes);
+        Map<ToolType, Money> dailyRates = new HashMap<>();
+        Map<String, Entry> entries = new HashMap<>();
+        if (tools != null) {
+            for (Map.Entry<String, Tool> tool : tools.entrySet()) {
+                ToolType toolType = typesByCode.get(tool.getValue().typeCode());
+                if (toolType == null) {
+                    entries.put(tool.getKey(), new Entry(tool.getValue(), null, 0, null, null));
+                    continue;
+                }
+                Money dailyRate = dailyRates.computeIfAbsent(toolType, type -> Money.of(type.dailyCharge()));
+                entries.put(tool.getKey(), new Entry(tool.getValue(), toolType, BusinessCalendar.chargeMask(toolType), dailyRate, toolType.label()));
+            }
+        }
+        return new ToolCatalog(version, Map.copyOf(entries), typesByCode);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param code the tool code
+     * @return the entry for the tool, or null if there is no such tool
+     */
+    public Entry getEntry(String code) {
+        return code == null ? null : entries.get(code);
+    }
+
+    /**
+     * @param typeCode the tool type code
+     * @return the tool type, or null if there is no such tool type
+     */
+    public ToolType getToolType(String typeCode) {
+        return typeCode == null ? null : toolTypes.get(typeCode);
+    }
+
+    /**
+     * @return the tools in tool code order
+     */
+    public List<Tool> getTools() {
+        return toolList;
+    }
+
+    /**
+     * @return the tool types in type code order
+     */
+    public List<ToolType> getToolTypes() {
+        return toolTypeList;
+    }
+
+    /**
+     * @return the tool codes in sorted order
+     */
+    public List<String> getToolCodes() {
+        return toolCodes;
+    }
+
+    /**
+     * Finds tools by type, brand and code prefix, a page at a time in tool code order.
+     * Each filter is optional; the tools returned match all that are given.
+     *
+     * @param typeCode the tool type code, or null for any type
+     * @param brand the brand, ignoring case, or null for any brand
+     * @param codePrefix the start of the tool code, or null for any code
+     * @param cursor the next cursor of the previous page, or null for the first page
+     * @param limit the maximum number of tools to return, at most {@value #MAX_PAGE_SIZE}
+     * @return the page of tools
+     * @throws IllegalArgumentException if the limit is invalid
+     */
+    public ToolPage search(String typeCode, String brand, String codePrefix, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
+        int from = codePrefix != null ? firstAtOrAfter(codePrefix) : 0;
+        int to = codePrefix != null ? endOfPrefix(codePrefix, from) : sortedCodes.length;
+        if (cursor != null) {
+            // The cursor is the last code on the previous page, so the page starts after it
+            from = Math.max(from, firstAfter(cursor));
+        }
+        String brandKey = brand != null ? brandKey(brand) : null;
+        int[] postings = null;
+        if (typeCode != null) {
+            postings = toolsByType.getOrDefault(typeCode, NO_TOOLS);
+        }
+        if (brandKey != null) {
+            int[] brandPostings = toolsByBrand.getOrDefault(brandKey, NO_TOOLS);
+            postings = postings == null || brandPostings.length < postings.length ? brandPostings : postings;
+        }
+
+        List<Tool> tools = new ArrayList<>(Math.min(limit, 64));
+        if (postings == null) {
+            int end = Math.min(to, from + limit);
+            for (int i = from; i < end; i++) {
+                tools.add(sortedTools[i]);
+            }
+            return page(tools, end < to);
+        }
+        // Walk the shorter posting list and check the other filter on each tool
+        for (int p = firstAtOrAfter(postings, from); p < postings.length && postings[p] < to; p++) {
+            Tool tool = sortedTools[postings[p]];
+            if ((typeCode != null && !typeCode.equals(tool.typeCode()))
+                    || (brandKey != null && (tool.brand() == null || !brandKey.equals(brandKey(tool.brand()))))) {
+                continue;
+            }
+            if (tools.size() == limit) {
+                return page(tools, true);
+            }
+            tools.add(tool);
+        }
+        return page(tools, false);
+    }
+
+    private static ToolPage page(List<Tool> tools, boolean more) {
+        return new ToolPage(tools, more && !tools.isEmpty() ? tools.get(tools.size() - 1).code() : null);
+    }
+
+    // The position of the first code not less than the key
+    private int firstAtOrAfter(String key) {
+        int position = Arrays.binarySearch(sortedCodes, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    // The position of the first code greater than the key
+    private int firstAfter(String key) {
+        int position = Arrays.binarySearch(sortedCodes, key);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    // The end of the run of codes starting with the prefix, which begins at from
+    private int endOfPrefix(String prefix, int from) {
+        int low = from;
+        int high = sortedCodes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedCodes[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The index of the first posting not less than the position
+    private static int firstAtOrAfter(int[] postings, int position) {
+        int index = Arrays.binarySearch(postings, position);
+        return index >= 0 ? index : -index - 1;
+    }
+}
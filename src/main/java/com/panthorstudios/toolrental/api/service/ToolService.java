@@ -1,6 +1,7 @@
 package com.panthorstudios.toolrental.api.service;
 
 import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
 import com.panthorstudios.toolrental.api.domain.ToolType;
 import com.panthorstudios.toolrental.properties.AppProperties;
 import org.slf4j.Logger;
@@ -8,11 +9,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Service class for managing tools.
+ * Lookups are answered from a {@link ToolCatalog} compiled from the configuration; the catalog is
+ * replaced as a whole by {@link #reload()} or {@link #replace(Map, Map)}, so a caller holding one snapshot always sees a consistent catalog.
  */
 @Service
 public class ToolService {
@@ -20,13 +26,105 @@ public class ToolService {
 
     private final AppProperties appProperties;
 
+    // Serializes reload and replace so each catalog version is compiled from the one before it; checkouts read the
+    // volatile catalog and never take this lock
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile ToolCatalog catalog;
+
+    private final List<Consumer<ToolCatalog>> catalogListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Constructor for ToolService.
      *
      * @param appProperties AppProperties object containing the properties of the tools.
+     * @throws ArithmeticException if a daily charge has more than two decimal places
      */
     public ToolService(AppProperties appProperties) {
         this.appProperties = appProperties;
+        this.catalog = ToolCatalog.compile(appProperties.getToolsMap(), appProperties.getToolTypesMap(), 1);
+    }
+
+    /**
+     * @return the current catalog snapshot
+     */
+    public ToolCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Registers a listener called with each catalog published after this call, on the thread that publishes it
+     *
+     * @param listener the listener; an exception it throws is logged and does not stop the catalog being published
+     */
+    public void addCatalogListener(Consumer<ToolCatalog> listener) {
+        catalogListeners.add(listener);
+    }
+
+    /**
+     * Compiles a new catalog from the current configuration and publishes it.
+     *
+     * @return the new catalog
+     * @throws ArithmeticException if a daily charge has more than two decimal places; the current catalog is kept
+     */
+    public ToolCatalog reload() {
+        reloadLock.lock();
+        try {
+            return publish(ToolCatalog.compile(appProperties.getToolsMap(), appProperties.getToolTypesMap(), catalog.getVersion() + 1));
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the configured tools and tool types and publishes a catalog compiled from them.
+     * The catalog is compiled before anything is replaced; checkouts holding the previous catalog finish with it.
+     *
+     * @param tools the tools by code
+     * @param toolTypes the tool types by type code
+     * @return the new catalog
+     * @throws ArithmeticException if a daily charge has more than two decimal places; nothing is replaced
+     */
+    public ToolCatalog replace(Map<String, Tool> tools, Map<String, ToolType> toolTypes) {
+        return replace(tools, toolTypes, () -> {});
+    }
+
+    /**
+     * Replaces the configured tools and tool types like {@link #replace(Map, Map)}, running a step between compiling
+     * the catalog and publishing it, so whatever that step swaps in is only swapped when the catalog compiles.
+     *
+     * @param tools the tools by code
+     * @param toolTypes the tool types by type code
+     * @param beforePublish runs once the catalog has compiled, just before it is published
+     * @return the new catalog
+     * @throws ArithmeticException if a daily charge has more than two decimal places; nothing is replaced and the step does not run
+     */
+    public ToolCatalog replace(Map<String, Tool> tools, Map<String, ToolType> toolTypes, Runnable beforePublish) {
+        reloadLock.lock();
+        try {
+            ToolCatalog compiled = ToolCatalog.compile(tools, toolTypes, catalog.getVersion() + 1);
+            beforePublish.run();
+            ToolCatalog replaced = publish(compiled);
+            appProperties.setToolsMap(tools);
+            appProperties.setToolTypesMap(toolTypes);
+            return replaced;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    // Called with the reload lock held
+    private ToolCatalog publish(ToolCatalog reloaded) {
+        catalog = reloaded;
+        logger.info("Tool catalog reloaded: version {}, {} tools", reloaded.getVersion(), reloaded.getToolCodes().size());
+        for (Consumer<ToolCatalog> listener : catalogListeners) {
+            try {
+                listener.accept(reloaded);
+            } catch (RuntimeException e) {
+                logger.error("Catalog listener failed for version {}", reloaded.getVersion(), e);
+            }
+        }
+        return reloaded;
     }
 
     /**
@@ -36,30 +134,29 @@ public class ToolService {
      * @return An Optional containing the Tool if found, or an empty Optional if not found.
      */
     public Optional<Tool> getToolByCode(String code) {
-        logger.info("Getting tool: {}, {}", code, this.appProperties.getToolsMap().get(code));
-        return Optional.ofNullable(this.appProperties.getToolsMap().get(code));
+        ToolCatalog.Entry entry = catalog.getEntry(code);
+        logger.debug("Getting tool: {}, {}", code, entry);
+        return entry == null ? Optional.empty() : Optional.of(entry.tool());
     }
 
     /**
      * Retrieves all tools.
      *
-     * @return An Optional containing a List of all Tools, or an empty Optional if no tools are found.
+     * @return A List of all Tools.
      */
     public List<Tool> getAllTools() {
-        logger.info("Getting all tools");
-        logger.info("Tools: {}", this.appProperties.getToolsMap());
-        return List.copyOf(this.appProperties.getToolsMap().values());
+        logger.debug("Getting all tools");
+        return catalog.getTools();
     }
 
     /**
      * Retrieves all tool types.
      *
-     * @return An Optional containing a List of all ToolTypes, or an empty Optional if no tool types are found.
+     * @return A List of all ToolTypes.
      */
     public List<ToolType> getAllToolTypes() {
         logger.debug("Getting all tool types");
-        logger.info("Tool types: {}", this.appProperties.getToolTypesMap());
-        return List.copyOf(this.appProperties.getToolTypesMap().values());
+        return catalog.getToolTypes();
     }
 
     /**
@@ -73,8 +170,8 @@ public class ToolService {
             logger.warn("Tool is null; couldn't get tool type");
             return Optional.empty();
         }
-        logger.info("Getting tool type for tool with code: {}", tool.code());
-        return Optional.ofNullable(this.appProperties.getToolTypesMap().get(tool.typeCode()));
+        logger.debug("Getting tool type for tool with code: {}", tool.code());
+        return Optional.ofNullable(catalog.getToolType(tool.typeCode()));
     }
 
     /**
@@ -84,21 +181,32 @@ public class ToolService {
      * @return true if the tool exists, false otherwise.
      */
     public boolean toolExists(String code) {
-        if (code == null) {
-            return false;
-        }
-        return this.appProperties.getToolsMap().containsKey(code);
+        return catalog.getEntry(code) != null;
     }
 
     /**
      * Retrieves all tool codes.
      *
-     * @return A List of all tool codes.
+     * @return A sorted List of all tool codes.
      */
     public List<String> getAllToolCodes() {
-        return this.appProperties.getToolsMap().keySet().stream()
-                .sorted()
-                .collect(Collectors.toList());
+        return catalog.getToolCodes();
+    }
+
+    /**
+     * Finds tools by type, brand and code prefix, a page at a time in tool code order.
+     *
+     * @param typeCode the tool type code, or null for any type
+     * @param brand the brand, ignoring case, or null for any brand
+     * @param codePrefix the start of the tool code, or null for any code
+     * @param cursor the next cursor of the previous page, or null for the first page
+     * @param limit the maximum number of tools to return
+     * @return the page of tools
+     * @throws IllegalArgumentException if the limit is invalid
+     * @see ToolCatalog#search(String, String, String, String, int)
+     */
+    public ToolPage searchTools(String typeCode, String brand, String codePrefix, String cursor, int limit) {
+        return catalog.search(typeCode, brand, codePrefix, cursor, limit);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package com.panthorstudios.toolrental.cli.adapter;
+
+import com.panthorstudios.toolrental.properties.AppProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes output to the console from a background thread, for when output is large or piped.
+ * <p>
+ * Printed text is appended to a buffer and a single writer thread drains it to stdout, a whole buffer per write,
+ * so callers neither wait on the console nor take its lock once per line. The writer drains the buffer once it is
+ * half full, or {@value #DRAIN_INTERVAL_MS} ms after text was left in it. It swaps in a second buffer while it
+ * writes, and a caller that fills the buffer waits for the writer, so memory use is bounded.
+ * <p>
+ * {@link #print(String)} is used for prompts, so it flushes: if the writer is idle the caller writes the buffer
+ * itself, which saves handing a prompt to another thread and waiting for it. Errors go straight to stderr once the
+ * output printed before them has been written.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cli", name = "output", havingValue = "buffered")
+public class BufferedOutputAdapter implements OutputAdapter {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // How long printed text may wait for a prompt or a full buffer before the writer drains it
+    static final long DRAIN_INTERVAL_MS = 20;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final int bufferSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final Thread writer;
+
+    // Guarded by lock
+    private StringBuilder buffer;
+    private StringBuilder spare;
+    private long appendedChars;
+    private long writtenChars;
+    private boolean closed;
+    private boolean stopped;
+    private boolean writing;
+
+    @Autowired
+    public BufferedOutputAdapter(AppProperties appProperties) {
+        this(System.out, System.err, appProperties.getCli() != null ? appProperties.getCli().getBufferSize() : new AppProperties.Cli().getBufferSize());
+    }
+
+    /**
+     * @param out where printed text is written
+     * @param err where errors are written
+     * @param bufferSize the number of characters buffered before callers wait for the writer
+     */
+    BufferedOutputAdapter(PrintStream out, PrintStream err, int bufferSize) {
+        this.out = out;
+        this.err = err;
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.buffer = new StringBuilder(Math.min(this.bufferSize, 1 << 16));
+        this.spare = new StringBuilder(Math.min(this.bufferSize, 1 << 16));
+        this.writer = Thread.ofPlatform().name("console-writer").daemon().start(this::writeLoop);
+    }
+
+    public void print(String message) {
+        append(message, false);
+        flush();
+    }
+
+    public void printLine() {
+        append("", true);
+    }
+
+    public void printLine(String message) {
+        append(message, true);
+    }
+
+    public void printError(String message) {
+        flush();
+        err.println(message);
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            long target = appendedChars;
+            while (writtenChars < target && !stopped) {
+                if (writing) {
+                    written.awaitUninterruptibly();
+                } else {
+                    // Write on this thread rather than waking the writer and waiting for it
+                    writeBuffer();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything already printed and stops the writer thread. Anything printed afterwards is written directly.
+     */
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(String message, boolean newLine) {
+        String text = String.valueOf(message);
+        lock.lock();
+        try {
+            // Once closing, wait for the writer to finish so the text stays in order
+            while (!stopped && (closed || buffer.length() >= bufferSize)) {
+                written.awaitUninterruptibly();
+            }
+            if (stopped) {
+                out.print(newLine ? text + LINE_SEPARATOR : text);
+                out.flush();
+                return;
+            }
+            buffer.append(text);
+            if (newLine) {
+                buffer.append(LINE_SEPARATOR);
+            }
+            appendedChars += text.length() + (newLine ? LINE_SEPARATOR.length() : 0);
+            // Short output is left for the next prompt, or the writer's timer, to write in one go
+            if (buffer.length() >= bufferSize / 2) {
+                pending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                while ((writing || buffer.length() < bufferSize / 2) && !closed) {
+                    if (!awaitText() && !writing && !buffer.isEmpty()) {
+                        break;
+                    }
+                }
+                if (writing) {
+                    // Closing while a caller flushes
+                    written.awaitUninterruptibly();
+                } else if (buffer.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                } else {
+                    writeBuffer();
+                }
+            }
+        } finally {
+            stopped = true;
+            written.signalAll();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the writer was signalled, false if the drain interval passed
+     */
+    private boolean awaitText() {
+        try {
+            return pending.await(DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // close() stops the writer; keep going until then
+            return true;
+        }
+    }
+
+    /**
+     * Writes the buffer, releasing the lock while it does so. Called with the lock held when nothing else is writing.
+     */
+    private void writeBuffer() {
+        StringBuilder text = buffer;
+        buffer = spare;
+        spare = null;
+        long upTo = appendedChars;
+        writing = true;
+        // Callers waiting for room can fill the other buffer while this one is written
+        written.signalAll();
+        lock.unlock();
+        try {
+            out.append(text);
+            out.flush();
+        } finally {
+            lock.lock();
+            text.setLength(0);
+            spare = text;
+            writtenChars = upTo;
+            writing = false;
+            written.signalAll();
+            if (buffer.length() >= bufferSize / 2) {
+                pending.signal();
+            }
+        }
+    }
+}
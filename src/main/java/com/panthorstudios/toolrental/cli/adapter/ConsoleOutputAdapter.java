@@ -1,11 +1,14 @@
 package com.panthorstudios.toolrental.cli.adapter;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
  * This class is responsible for writing output to the console.
+ * It is the default; set app.cli.output to buffered to use {@link BufferedOutputAdapter} instead.
  */
 @Component
+@ConditionalOnProperty(prefix = "app.cli", name = "output", havingValue = "console", matchIfMissing = true)
 public class ConsoleOutputAdapter implements OutputAdapter {
     public void print(String message) {
         System.out.print(message);
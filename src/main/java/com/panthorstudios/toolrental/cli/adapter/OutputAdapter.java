@@ -5,4 +5,10 @@ public interface OutputAdapter {
     void printLine(String message);
     void printLine();
     void printError(String message);
+
+    /**
+     * Waits until everything printed so far has been written. Adapters that write straight through have nothing to do.
+     */
+    default void flush() {
+    }
 }
@@ -0,0 +1,102 @@
+package com.panthorstudios.toolrental.cli.controller;
+
+import com.panthorstudios.toolrental.api.service.BatchCheckoutService;
+import com.panthorstudios.toolrental.cli.adapter.OutputAdapter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Checks out a file of rental requests without prompting, for --mode batch.
+ * <p>
+ * The input is JSON (an array or newline-delimited objects) or CSV; the format is detected from the first
+ * character of the file. One JSON line per request, either the rental agreement or an error, is written to the
+ * output file in input order. Both files are streamed, so memory use does not depend on their size.
+ */
+@Component
+public class BatchCliController {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SNIFF_LIMIT = 1024;
+
+    private final BatchCheckoutService batchCheckoutService;
+    private final OutputAdapter outputAdapter;
+
+    @Autowired
+    public BatchCliController(BatchCheckoutService batchCheckoutService, OutputAdapter outputAdapter) {
+        this.batchCheckoutService = batchCheckoutService;
+        this.outputAdapter = outputAdapter;
+    }
+
+    /**
+     * Checks out every request in the input file and prints the totals
+     *
+     * @param input the input file
+     * @param output the output file, replaced if it exists
+     * @return true if the whole file was processed, even if some requests failed
+     */
+    public boolean execute(String input, String output) {
+        if (input == null || output == null) {
+            outputAdapter.printError("Batch mode needs --input and --output files.");
+            return false;
+        }
+        long start = System.nanoTime();
+        BatchCheckoutService.BatchSummary summary;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(input)), BUFFER_SIZE);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(output)), BUFFER_SIZE)) {
+            if (isJson(in)) {
+                summary = batchCheckoutService.checkout(in, out);
+            } else {
+                summary = batchCheckoutService.checkoutCsv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE), out);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            outputAdapter.printError("Batch failed: " + e.getMessage());
+            return false;
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        outputAdapter.printLine(String.format(Locale.ROOT, "Processed %,d requests in %.3f s (%,.0f requests/s)",
+                summary.items(), seconds, summary.items() / seconds));
+        outputAdapter.printLine(String.format(Locale.ROOT, "Agreements: %,d  Errors: %,d",
+                summary.items() - summary.errors(), summary.errors()));
+        outputAdapter.flush();
+        return true;
+    }
+
+    /**
+     * Looks at the first character that is not whitespace or a byte order mark, leaving the stream where it was
+     *
+     * @return true if the input starts like JSON
+     */
+    private static boolean isJson(InputStream in) throws IOException {
+        in.mark(SNIFF_LIMIT);
+        try {
+            for (int i = 0; i < SNIFF_LIMIT; i++) {
+                int b = in.read();
+                if (b < 0) {
+                    return false;
+                }
+                if (b == '{' || b == '[') {
+                    return true;
+                }
+                // Whitespace and the UTF-8 byte order mark
+                if (!Character.isWhitespace(b) && b != 0xEF && b != 0xBB && b != 0xBF) {
+                    return false;
+                }
+            }
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+}
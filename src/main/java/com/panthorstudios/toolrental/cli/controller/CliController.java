@@ -65,6 +65,7 @@ public class CliController {
                 outputAdapter.printLine("An error occurred: " + e.getMessage());
             }
         } while (promptForAnother());
+        outputAdapter.flush();
         System.exit(0);
 
     }
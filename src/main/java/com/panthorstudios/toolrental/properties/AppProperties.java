@@ -21,10 +21,163 @@ public class AppProperties {
     private Map<String, Tool> toolsMap;
     private Map<String, ToolType> toolTypesMap;
     private List<HolidayRule> holidayRulesList;
+    private Catalog catalog = new Catalog();
+    private Stores stores = new Stores();
+    private Calendar calendar = new Calendar();
+    private Cli cli = new Cli();
+    private Json json = new Json();
+    private Batch batch = new Batch();
+    private Metrics metrics = new Metrics();
+    private Ledger ledger = new Ledger();
+    private Idempotency idempotency = new Idempotency();
+    private QuoteCache quoteCache = new QuoteCache();
+    private AgreementStore agreementStore = new AgreementStore();
+    private Reservations reservations = new Reservations();
 
     public AppProperties(Map<String, Tool> toolsMap, Map<String, ToolType> toolTypesMap) {
         this.toolsMap = toolsMap;
         this.toolTypesMap = toolTypesMap;
     }
 
+    /**
+     * Settings for reloading the tools, tool types and holiday rules while running.
+     * The file, if set, holds tools-map, tool-types-map and holiday-rules-list as they appear under app in this
+     * configuration, in YAML or JSON; with watch set it is reloaded whenever it changes. The admin endpoint is
+     * only served when an admin token is set. Browsers may reuse the tool and tool type responses for
+     * responseMaxAgeSeconds before checking their ETag again; 0 has them check every time.
+     */
+    @Getter
+    @Setter
+    public static class Catalog {
+        private String file;
+        private boolean watch = true;
+        private String adminToken;
+        private long responseMaxAgeSeconds = 0;
+    }
+
+    /**
+     * The country of each store, which selects the holiday rules used for its checkouts.
+     * Stores that are not listed are in the default country.
+     */
+    @Getter
+    @Setter
+    public static class Stores {
+        private String defaultCountryCode = "US";
+        private Map<Integer, String> countries = Map.of();
+
+        /**
+         * @param storeId the store ID
+         * @return the country code of the store
+         */
+        public String getCountryCode(int storeId) {
+            String countryCode = countries != null ? countries.get(storeId) : null;
+            return countryCode != null ? countryCode : defaultCountryCode;
+        }
+    }
+
+    /**
+     * Range of years covered by the precomputed business calendar; holidays are only cached for these years
+     */
+    @Getter
+    @Setter
+    public static class Calendar {
+        private int startYear = 1950;
+        private int endYear = 2150;
+    }
+
+    /**
+     * Settings for console output; output is console (write each line directly) or buffered (write on a background thread)
+     */
+    @Getter
+    @Setter
+    public static class Cli {
+        private String output = "console";
+        private int bufferSize = 64 * 1024;
+    }
+
+    /**
+     * Settings for JSON responses; writer is pre-encoded (agreements and tools written without reflection) or jackson
+     */
+    @Getter
+    @Setter
+    public static class Json {
+        private String writer = "pre-encoded";
+    }
+
+    /**
+     * Settings for batch checkout; input and output are the files used in batch mode
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight = 256;
+        private String input;
+        private String output;
+    }
+
+    /**
+     * Settings for the checkout, catalog and holiday metrics
+     */
+    @Getter
+    @Setter
+    public static class Metrics {
+        private boolean enabled = true;
+    }
+
+    /**
+     * Settings for the ledger of issued rental agreements
+     */
+    @Getter
+    @Setter
+    public static class Ledger {
+        private boolean enabled = false;
+        private String directory = "ledger";
+        private int segmentSize = 64 * 1024 * 1024;
+        private int queueCapacity = 65536;
+        private long appendTimeoutMs = 100;
+        private int fsyncBatchSize = 512;
+        private long fsyncIntervalMs = 5;
+    }
+
+    /**
+     * Settings for the cache of rental agreements by Idempotency-Key
+     */
+    @Getter
+    @Setter
+    public static class Idempotency {
+        private int maximumSize = 100_000;
+        private long ttlSeconds = 600;
+    }
+
+    /**
+     * Settings for the cache of charge details by tool type, checkout date and rental days; only rentals reaching
+     * outside the calendar's years are cached
+     */
+    @Getter
+    @Setter
+    public static class QuoteCache {
+        private boolean enabled = true;
+        private int maximumSize = 4096;
+    }
+
+    /**
+     * Settings for the in-memory store of issued rental agreements
+     */
+    @Getter
+    @Setter
+    public static class AgreementStore {
+        private boolean enabled = true;
+        private int maxMemoryMb = 64;
+    }
+
+    /**
+     * Settings for booking tools, which stops the same tool being rented for overlapping dates
+     */
+    @Getter
+    @Setter
+    public static class Reservations {
+        private boolean enabled = true;
+    }
+
 }
\ No newline at end of file
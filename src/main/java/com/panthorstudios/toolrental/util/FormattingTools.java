@@ -1,8 +1,16 @@
 package com.panthorstudios.toolrental.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Formatter;
+import java.util.Locale;
 
 public class FormattingTools {
 
@@ -15,18 +23,196 @@ public class FormattingTools {
 
     public static final DateTimeFormatter SHORT_DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yy");
 
+    /**
+     * Whether a format locale writes numbers with ASCII digits, a comma every three digits and a period before
+     * the decimals, so that they can be written without a {@link Formatter}
+     */
+    private record NumberStyle(Locale locale, boolean plain) {}
+
+    // A Formatter for one locale, writing into a reusable buffer; confined to one thread
+    private record LocaleFormatter(Locale locale, StringBuilder text, Formatter formatter) {
+        LocaleFormatter(Locale locale, StringBuilder text) {
+            this(locale, text, new Formatter(text, locale));
+        }
+    }
+
+    private static final ThreadLocal<LocaleFormatter> FORMATTER = new ThreadLocal<>();
+
+    private static volatile NumberStyle numberStyle = numberStyle(Locale.getDefault(Locale.Category.FORMAT));
+
     // format a BigDecimal as US currency
     public static String formatMoney(BigDecimal value) {
-        return String.format(US_MONEY_FORMAT, value.setScale(2, RoundingMode.UP));
+        StringBuilder text = new StringBuilder(16);
+        appendMoney(text, value);
+        return text.toString();
     }
 
     // format an int as a percentage
     public static String formatPercentage(int value) {
-        return String.format(INTEGER_PERCENTAGE_FORMAT, value);
+        StringBuilder text = new StringBuilder(8);
+        appendPercentage(text, value);
+        return text.toString();
     }
 
     // format an int with commas
     public static String formatIntegerWithCommas(int value) {
-        return String.format(INTEGER_COMMA_FORMAT, value);
+        StringBuilder text = new StringBuilder(16);
+        appendIntegerWithCommas(text, value);
+        return text.toString();
+    }
+
+    /**
+     * Appends a BigDecimal as US currency, rounded up to whole cents, as {@link #formatMoney(BigDecimal)} formats it
+     */
+    public static void appendMoney(Appendable out, BigDecimal value) {
+        BigDecimal rounded = value.setScale(2, RoundingMode.UP);
+        // Eighteen digits of cents always fit in a long
+        if (!isPlainLocale() || rounded.precision() > 18) {
+            appendFormatted(out, US_MONEY_FORMAT, rounded);
+            return;
+        }
+        long cents = rounded.scaleByPowerOfTen(2).longValue();
+        try {
+            out.append('$');
+            if (cents < 0) {
+                out.append('-');
+                cents = -cents;
+            }
+            appendGrouped(out, cents / 100);
+            out.append('.');
+            appendDigits(out, cents % 100, 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends an int as a percentage, as {@link #formatPercentage(int)} formats it
+     */
+    public static void appendPercentage(Appendable out, int value) {
+        if (!isPlainLocale()) {
+            appendFormatted(out, INTEGER_PERCENTAGE_FORMAT, value);
+            return;
+        }
+        try {
+            long magnitude = value;
+            if (magnitude < 0) {
+                out.append('-');
+                magnitude = -magnitude;
+            }
+            appendDigits(out, magnitude, digitCount(magnitude));
+            out.append('%');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends an int with commas, as {@link #formatIntegerWithCommas(int)} formats it
+     */
+    public static void appendIntegerWithCommas(Appendable out, int value) {
+        if (!isPlainLocale()) {
+            appendFormatted(out, INTEGER_COMMA_FORMAT, value);
+            return;
+        }
+        try {
+            long magnitude = value;
+            if (magnitude < 0) {
+                out.append('-');
+                magnitude = -magnitude;
+            }
+            appendGrouped(out, magnitude);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a date as {@link #SHORT_DATE_FORMATTER} formats it, e.g. 07/08/23
+     */
+    public static void appendShortDate(Appendable out, LocalDate date) {
+        try {
+            appendDigits(out, date.getMonthValue(), 2);
+            out.append('/');
+            appendDigits(out, date.getDayOfMonth(), 2);
+            out.append('/');
+            // yy is the last two digits of the year of era, whatever the century; year 0 is 1 BC
+            int year = date.getYear();
+            appendDigits(out, (year > 0 ? year : 1 - year) % 100, 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return true if the default format locale's numbers can be written without a Formatter
+     */
+    private static boolean isPlainLocale() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        NumberStyle style = numberStyle;
+        if (style.locale() != locale) {
+            style = numberStyle(locale);
+            numberStyle = style;
+        }
+        return style.plain();
+    }
+
+    // Checks the symbols Formatter uses for grouped and decimal numbers in the locale
+    private static NumberStyle numberStyle(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        boolean groupedByThree = NumberFormat.getNumberInstance(locale) instanceof DecimalFormat format
+                && format.isGroupingUsed() && format.getGroupingSize() == 3;
+        return new NumberStyle(locale, groupedByThree && symbols.getZeroDigit() == '0'
+                && symbols.getGroupingSeparator() == ',' && symbols.getDecimalSeparator() == '.');
+    }
+
+    /**
+     * Formats a value with this thread's Formatter for the default format locale
+     */
+    private static void appendFormatted(Appendable out, String format, Object value) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleFormatter formatter = FORMATTER.get();
+        if (formatter == null || !formatter.locale().equals(locale)) {
+            formatter = new LocaleFormatter(locale, new StringBuilder(32));
+            FORMATTER.set(formatter);
+        }
+        formatter.text().setLength(0);
+        formatter.formatter().format(format, value);
+        try {
+            out.append(formatter.text());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Appends a non-negative number with a comma every three digits
+    private static void appendGrouped(Appendable out, long value) throws IOException {
+        if (value >= 1000) {
+            appendGrouped(out, value / 1000);
+            out.append(',');
+            appendDigits(out, value % 1000, 3);
+        } else {
+            appendDigits(out, value, digitCount(value));
+        }
+    }
+
+    // Appends the last count digits of a non-negative number, padded with leading zeros
+    private static void appendDigits(Appendable out, long value, int count) throws IOException {
+        long divisor = 1;
+        for (int i = 1; i < count; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
     }
 }
@@ -0,0 +1,80 @@
+package com.panthorstudios.toolrental.util;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a task over a stream of inputs on an executor while handing the results to a sink in input order.
+ * At most maxInFlight inputs are pending at any time, so memory use does not grow with the size of the stream.
+ *
+ * @param <I> the input type
+ * @param <O> the result type
+ */
+public class OrderedParallelProcessor<I, O> {
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    /**
+     * @param executor the executor that runs the tasks
+     * @param maxInFlight the maximum number of submitted tasks whose results have not been handed to the sink
+     */
+    public OrderedParallelProcessor(ExecutorService executor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than zero: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Processes all inputs.
+     * The sink is only ever called from the calling thread.
+     *
+     * @param inputs the inputs, read lazily from the calling thread
+     * @param task the task to run for each input; should capture its own failures in the result
+     * @param sink receives each result in input order
+     * @return the number of inputs processed
+     */
+    public long process(Iterator<I> inputs, Function<I, O> task, Consumer<O> sink) {
+        ArrayDeque<Future<O>> window = new ArrayDeque<>(maxInFlight);
+        long count = 0;
+        try {
+            while (inputs.hasNext()) {
+                I input = inputs.next();
+                if (window.size() >= maxInFlight) {
+                    sink.accept(await(window.removeFirst()));
+                }
+                window.addLast(executor.submit(() -> task.apply(input)));
+                count++;
+            }
+            while (!window.isEmpty()) {
+                sink.accept(await(window.removeFirst()));
+            }
+            return count;
+        } finally {
+            // Only non-empty if the sink, the inputs or a task failed
+            window.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private O await(Future<O> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a result");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
 
 public class WeekendAdjusterFunctionFactory {
 
@@ -21,6 +22,42 @@ public class WeekendAdjusterFunctionFactory {
         };
     }
 
+    /**
+     * Returns the same adjustment as {@link #getAdjusterFunction(String)} working on epoch days, for compiled
+     * holiday rules; the returned functions do not allocate
+     * @param weekendFunctionCode The weekend function code
+     * @return A function from epoch day to adjusted epoch day, or null if the code is unknown
+     */
+    public static LongUnaryOperator getEpochDayAdjuster(String weekendFunctionCode) {
+        return switch (weekendFunctionCode) {
+            case "ADJUST_WEEKEND_TO_CLOSEST_WEEKDAY" -> epochDay -> switch (dayOfWeek(epochDay)) {
+                case 6 -> epochDay - 1; // Saturday to Friday
+                case 7 -> epochDay + 1; // Sunday to Monday
+                default -> epochDay;
+            };
+            case "ADJUST_WEEKEND_TO_MONDAY" -> epochDay -> switch (dayOfWeek(epochDay)) {
+                case 6 -> epochDay + 2;
+                case 7 -> epochDay + 1;
+                default -> epochDay;
+            };
+            case "ADJUST_WEEKEND_TO_FRIDAY" -> epochDay -> switch (dayOfWeek(epochDay)) {
+                case 6 -> epochDay - 1;
+                case 7 -> epochDay - 2;
+                default -> epochDay;
+            };
+            default -> null;
+        };
+    }
+
+    /**
+     * @param epochDay The day, counted from 1970-01-01
+     * @return The ISO day of the week, 1 (Monday) to 7 (Sunday)
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(epochDay + 3, 7) + 1;
+    }
+
     /**
      * Returns a function that adjusts a date to the closest weekday
      * If the date is on a Saturday, it is adjusted to the preceding Friday
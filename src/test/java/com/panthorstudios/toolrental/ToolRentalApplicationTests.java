@@ -3,6 +3,8 @@ package com.panthorstudios.toolrental;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 @SpringBootTest(properties = "app.mode=web")
 class ToolRentalApplicationTests {
 
@@ -10,4 +12,12 @@ class ToolRentalApplicationTests {
 	void contextLoads() {
 	}
 
+	/**
+	 * Test that a --threads value other than platform or virtual is rejected rather than read as platform
+	 */
+	@Test
+	void unknownThreadsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> ToolRentalApplication.parseCommandLine("--threads", "green"));
+	}
+
 }
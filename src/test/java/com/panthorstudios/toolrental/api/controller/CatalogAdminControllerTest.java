@@ -0,0 +1,82 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.api.domain.CatalogStatus;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.service.CatalogReloader;
+import com.panthorstudios.toolrental.api.service.HolidayService;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogAdminControllerTest {
+
+    private static final String DOCUMENT = """
+            tools-map:
+              LADW: {code: LADW, type-code: LADDER, brand: Werner}
+            tool-types-map:
+              LADDER: {type-code: LADDER, label: Ladder, daily-charge: 2.49, chargeable-on-weekdays: true}
+            """;
+
+    private AppProperties appProperties;
+    private ToolService toolService;
+    private CatalogAdminController controller;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties(
+                Map.of("LADW", new Tool("LADW", "LADDER", "Werner")),
+                Map.of("LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false)));
+        appProperties.setHolidayRulesList(List.of());
+        toolService = new ToolService(appProperties);
+        HolidayService holidayService = new HolidayService(appProperties);
+        controller = new CatalogAdminController(new CatalogReloader(appProperties, toolService, holidayService),
+                toolService, holidayService, appProperties);
+    }
+
+    /**
+     * Test the endpoint is not served without a configured token, and rejects a missing or wrong token
+     */
+    @Test
+    void testRequiresToken() {
+        assertEquals(HttpStatus.NOT_FOUND, controller.getCatalog("secret").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.replaceCatalog("secret", DOCUMENT).getStatusCode());
+
+        appProperties.getCatalog().setAdminToken("secret");
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.getCatalog(null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.replaceCatalog("secreT", DOCUMENT).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.reloadCatalog("").getStatusCode());
+        assertEquals(1, toolService.getCatalog().getVersion());
+    }
+
+    /**
+     * Test a valid document replaces the catalog and an invalid one reports why it did not
+     */
+    @Test
+    void testReplaceCatalog() {
+        appProperties.getCatalog().setAdminToken("secret");
+
+        ResponseEntity<CatalogStatus> replaced = controller.replaceCatalog("secret", DOCUMENT);
+        assertEquals(HttpStatus.OK, replaced.getStatusCode());
+        assertEquals(new CatalogStatus(2, 0, 1, 1, true, null), replaced.getBody());
+        assertEquals(new BigDecimal("2.49"), toolService.getCatalog().getToolType("LADDER").dailyCharge());
+
+        ResponseEntity<CatalogStatus> rejected = controller.replaceCatalog("secret", DOCUMENT.replace("2.49", "2.495"));
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+        assertEquals(2, rejected.getBody().catalogVersion());
+        assertFalse(rejected.getBody().changed());
+        assertTrue(rejected.getBody().error().contains("not whole cents"));
+
+        assertEquals(HttpStatus.CONFLICT, controller.reloadCatalog("secret").getStatusCode());
+        assertEquals(new CatalogStatus(2, 0, 1, 1, false, null), controller.getCatalog("secret").getBody());
+    }
+}
@@ -0,0 +1,103 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.RentalAgreementRequest;
+import com.panthorstudios.toolrental.api.exception.IdempotencyKeyReusedException;
+import com.panthorstudios.toolrental.api.service.BatchCheckoutService;
+import com.panthorstudios.toolrental.api.service.CheckoutService;
+import com.panthorstudios.toolrental.api.service.IdempotencyCache;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutControllerTest {
+
+    private static final RentalAgreementRequest REQUEST = new RentalAgreementRequest("LADW", LocalDate.of(2020, 7, 2), 3, 10);
+
+    @Mock
+    private CheckoutService checkoutService;
+
+    @Mock
+    private BatchCheckoutService batchCheckoutService;
+
+    private CheckoutController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new CheckoutController(checkoutService, batchCheckoutService,
+                new IdempotencyCache(new AppProperties(Map.of(), Map.of()), new SimpleMeterRegistry()));
+    }
+
+    private void givenCheckouts() {
+        AtomicInteger checkouts = new AtomicInteger();
+        when(checkoutService.toolRentalCheckout(anyString(), any(LocalDate.class), anyInt(), anyInt())).thenAnswer(invocation ->
+                new RentalAgreement("A" + checkouts.incrementAndGet(), invocation.getArgument(0), "Ladder", "Werner",
+                        invocation.getArgument(2), invocation.getArgument(1), invocation.getArgument(3),
+                        LocalDate.of(2020, 7, 5), 2, new BigDecimal("1.99"), new BigDecimal("3.98"),
+                        new BigDecimal("0.40"), new BigDecimal("3.58"), 1, 0));
+    }
+
+    /**
+     * Test a replay of an Idempotency-Key returns the same agreement without checking out again,
+     * while requests without a key always check out
+     */
+    @Test
+    void testIdempotencyKeyReplay() {
+        givenCheckouts();
+
+        ResponseEntity<RentalAgreement> first = controller.toolRentalCheckoutGetHandler(REQUEST, "key-1");
+        ResponseEntity<RentalAgreement> replay = controller.toolRentalCheckoutGetHandler(REQUEST, "key-1");
+        assertEquals(HttpStatus.OK, replay.getStatusCode());
+        assertEquals("A1", first.getBody().rentalAgreementId());
+        assertSame(first.getBody(), replay.getBody());
+
+        assertEquals("A2", controller.toolRentalCheckoutGetHandler(REQUEST, null).getBody().rentalAgreementId());
+        assertEquals("A3", controller.toolRentalCheckoutGetHandler(REQUEST, null).getBody().rentalAgreementId());
+        verify(checkoutService, times(3)).toolRentalCheckout("LADW", LocalDate.of(2020, 7, 2), 3, 10);
+    }
+
+    /**
+     * Test a blank or over-long Idempotency-Key gets 400 Bad Request without checking out
+     */
+    @Test
+    void testInvalidIdempotencyKey() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.toolRentalCheckoutGetHandler(REQUEST, "").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.toolRentalCheckoutGetHandler(REQUEST, "  ").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.toolRentalCheckoutGetHandler(REQUEST,
+                "k".repeat(CheckoutController.MAX_IDEMPOTENCY_KEY_LENGTH + 1)).getStatusCode());
+        verifyNoInteractions(checkoutService);
+    }
+
+    /**
+     * Test an Idempotency-Key reused for a different request is rejected with 422 Unprocessable Entity
+     */
+    @Test
+    void testIdempotencyKeyReused() {
+        givenCheckouts();
+        controller.toolRentalCheckoutGetHandler(REQUEST, "key-1");
+
+        RentalAgreementRequest otherRequest = new RentalAgreementRequest("LADW", LocalDate.of(2020, 7, 2), 3, 20);
+        IdempotencyKeyReusedException e = assertThrows(IdempotencyKeyReusedException.class,
+                () -> controller.toolRentalCheckoutGetHandler(otherRequest, "key-1"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, controller.idempotencyKeyReusedHandler(e).getStatusCode());
+        verify(checkoutService, times(1)).toolRentalCheckout(anyString(), any(LocalDate.class), anyInt(), anyInt());
+    }
+}
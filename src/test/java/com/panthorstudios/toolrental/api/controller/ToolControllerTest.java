@@ -0,0 +1,151 @@
+package com.panthorstudios.toolrental.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AppProperties appProperties;
+    private ToolService toolService;
+    private ToolController controller;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Tool> tools = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            tools.put("LAD" + i, new Tool("LAD" + i, "LADDER", "Werner"));
+        }
+        appProperties = new AppProperties(tools,
+                Map.of("LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false)));
+        toolService = new ToolService(appProperties);
+        controller = new ToolController(new CatalogResponses(toolService, objectMapper), toolService, appProperties);
+    }
+
+    // The full tool list, which is always bytes
+    @SuppressWarnings("unchecked")
+    private static ResponseEntity<byte[]> tools(ToolController controller, String ifNoneMatch, String acceptEncoding) {
+        return (ResponseEntity<byte[]>) controller.getAllTools(null, null, null, null, null, ifNoneMatch, acceptEncoding);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Test the responses are the JSON Jackson writes, with an ETag, and gzipped for clients that accept it
+     */
+    @Test
+    void testResponses() throws Exception {
+        ResponseEntity<byte[]> tools = tools(controller, null, null);
+        assertEquals(HttpStatus.OK, tools.getStatusCode());
+        assertArrayEquals(objectMapper.writeValueAsBytes(toolService.getAllTools()), tools.getBody());
+        assertNotNull(tools.getHeaders().getETag());
+        assertEquals("no-cache", tools.getHeaders().getCacheControl());
+        assertEquals("Accept-Encoding", tools.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNull(tools.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        ResponseEntity<byte[]> gzipped = tools(controller, null, "br, gzip;q=0.8");
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(tools.getBody(), gunzip(gzipped.getBody()));
+        assertTrue(gzipped.getBody().length < tools.getBody().length);
+        assertNotEquals(tools.getHeaders().getETag(), gzipped.getHeaders().getETag());
+        assertNull(tools(controller, null, "gzip;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        for (String malformed : new String[] {"gzip;q=abc", "gzip;q=", "gzip;q=NaN", "gzip;q=2"}) {
+            ResponseEntity<byte[]> plain = tools(controller, null, malformed);
+            assertEquals(HttpStatus.OK, plain.getStatusCode(), malformed);
+            assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), malformed);
+        }
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(toolService.getAllToolTypes()), controller.getAllToolTypes(null, null).getBody());
+        ResponseEntity<byte[]> tool = controller.getTool("LAD3", null, "gzip");
+        assertArrayEquals(objectMapper.writeValueAsBytes(new Tool("LAD3", "LADDER", "Werner")), tool.getBody());
+        assertNull(tool.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), "A small response is not gzipped");
+        assertEquals(HttpStatus.NOT_FOUND, controller.getTool("NONE", null, null).getStatusCode());
+    }
+
+    /**
+     * Test a request naming the current ETag, of either encoding, gets 304 without a body
+     */
+    @Test
+    void testNotModified() {
+        String etag = tools(controller, null, null).getHeaders().getETag();
+        String gzipEtag = tools(controller, null, "gzip").getHeaders().getETag();
+
+        for (String ifNoneMatch : new String[] {etag, gzipEtag, "W/" + etag, "\"other\", " + etag, "*"}) {
+            ResponseEntity<byte[]> response = tools(controller, ifNoneMatch, "gzip");
+            assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), ifNoneMatch);
+            assertNull(response.getBody());
+            assertEquals(gzipEtag, response.getHeaders().getETag());
+        }
+        assertEquals(HttpStatus.OK, tools(controller, "\"other\"", null).getStatusCode());
+        assertEquals(HttpStatus.OK, controller.getAllToolTypes(etag, null).getStatusCode());
+    }
+
+    /**
+     * Test the responses and ETags change with the catalog, and are the same again for the same content
+     */
+    @Test
+    void testCatalogChange() {
+        String etag = tools(controller, null, null).getHeaders().getETag();
+        Map<String, Tool> tools = appProperties.getToolsMap();
+
+        toolService.replace(Map.of("JAKD", new Tool("JAKD", "LADDER", "DeWalt")), appProperties.getToolTypesMap());
+        assertEquals(HttpStatus.OK, tools(controller, etag, null).getStatusCode());
+        assertEquals(HttpStatus.OK, controller.getTool("JAKD", null, null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getTool("LAD3", null, null).getStatusCode());
+
+        toolService.replace(tools, appProperties.getToolTypesMap());
+        assertEquals(HttpStatus.NOT_MODIFIED, tools(controller, etag, null).getStatusCode());
+    }
+
+    /**
+     * Test a configured max age is sent in Cache-Control
+     */
+    @Test
+    void testMaxAge() {
+        appProperties.getCatalog().setResponseMaxAgeSeconds(60);
+        ToolController cached = new ToolController(new CatalogResponses(toolService, objectMapper), toolService, appProperties);
+        assertEquals("max-age=60, must-revalidate", tools(cached, null, null).getHeaders().getCacheControl());
+    }
+
+    /**
+     * Test search parameters page through the matching tools, and an invalid page size is a bad request
+     */
+    @Test
+    void testSearch() {
+        ResponseEntity<?> first = controller.getAllTools("LADDER", "werner", "LAD1", null, 4, null, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        ToolPage page = (ToolPage) first.getBody();
+        assertEquals(List.of("LAD1", "LAD10", "LAD11", "LAD12"), page.tools().stream().map(Tool::code).toList());
+        assertEquals("LAD12", page.nextCursor());
+
+        ToolPage rest = (ToolPage) controller.getAllTools(null, null, "LAD1", page.nextCursor(), null, null, null).getBody();
+        assertEquals(7, rest.tools().size());
+        assertNull(rest.nextCursor());
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllTools(null, null, null, null, 0, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getAllTools(null, null, null, null, 501, null, null).getStatusCode());
+    }
+}
@@ -0,0 +1,70 @@
+package com.panthorstudios.toolrental.api.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    /**
+     * Test conversion to and from BigDecimal
+     */
+    @Test
+    void testConversion() {
+        assertEquals(new Money(199), Money.of(new BigDecimal("1.99")));
+        assertEquals(new Money(300), Money.of(new BigDecimal("3")));
+        assertEquals(new BigDecimal("1.99"), new Money(199).toBigDecimal());
+        assertEquals(new BigDecimal("0.00"), Money.ZERO.toBigDecimal());
+        assertEquals("12.05", new Money(1205).toString());
+    }
+
+    /**
+     * Test amounts with more than two decimal places are rejected
+     */
+    @Test
+    void testConversionRejectsFractionsOfACent() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.999")));
+    }
+
+    /**
+     * Test arithmetic
+     */
+    @Test
+    void testArithmetic() {
+        assertEquals(new Money(500), new Money(199).plus(new Money(301)));
+        assertEquals(new Money(-102), new Money(199).minus(new Money(301)));
+        assertEquals(new Money(995), new Money(199).times(5));
+        assertTrue(new Money(199).compareTo(new Money(200)) < 0);
+    }
+
+    /**
+     * Test arithmetic throws instead of overflowing
+     */
+    @Test
+    void testOverflow() {
+        Money max = new Money(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MIN_VALUE).minus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertThrows(ArithmeticException.class, () -> max.percent(2));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+20")));
+    }
+
+    /**
+     * Test percentages round half up exactly as the BigDecimal calculation did
+     */
+    @Test
+    void testPercentMatchesBigDecimal() {
+        for (long cents = -2_000; cents <= 20_000; cents += 7) {
+            BigDecimal amount = BigDecimal.valueOf(cents, 2);
+            for (int percent = 0; percent <= 100; percent++) {
+                BigDecimal expected = amount.multiply(BigDecimal.valueOf(percent))
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                assertEquals(expected, new Money(cents).percent(percent).toBigDecimal(), cents + " cents at " + percent + "%");
+            }
+        }
+    }
+}
@@ -7,9 +7,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,7 +39,9 @@ class RentalAgreementTest {
                 new BigDecimal("2.99"),
                 new BigDecimal("14.95"),
                 new BigDecimal("1.50"),
-                new BigDecimal("13.45")
+                new BigDecimal("13.45"),
+                1,
+                0
         );
 
         String expectedOutput = """
@@ -70,7 +75,9 @@ class RentalAgreementTest {
                 new BigDecimal("2000000.99"),
                 new BigDecimal("2000000.95"),
                 new BigDecimal("2000000.50"),
-                new BigDecimal("2000000.45")
+                new BigDecimal("2000000.45"),
+                1,
+                0
         );
 
         String expectedOutput = """
@@ -108,7 +115,9 @@ class RentalAgreementTest {
                 new BigDecimal("1.49"),
                 new BigDecimal("4.47"),
                 new BigDecimal("0.67"),
-                new BigDecimal("3.80")
+                new BigDecimal("3.80"),
+                1,
+                0
         );
 
         agreement.print(outputAdapter);
@@ -116,4 +125,47 @@ class RentalAgreementTest {
         // Verify that outputService.printLine() is called with the expected string
         verify(outputAdapter).printLine(agreement.toString());
     }
+
+    /**
+     * Test a receipt rendered into an Appendable or a ByteBuffer is the same text as toString
+     */
+    @Test
+    void testRenderReceipt() {
+        RentalAgreement agreement = new RentalAgreement(
+                "RA-003",
+                "JAKR",
+                "Jackhammer",
+                "Rüdiger 🔧",
+                1234,
+                LocalDate.of(2099, 12, 30),
+                0,
+                LocalDate.of(2103, 5, 17),
+                880,
+                new BigDecimal("2.99"),
+                new BigDecimal("2631.20"),
+                new BigDecimal("0.00"),
+                new BigDecimal("2631.20"),
+                1,
+                0
+        );
+        String expected = agreement.toString();
+        assertEquals("Tool brand: Rüdiger 🔧", expected.split("\n")[2]);
+        assertEquals("Rental days: 1,234", expected.split("\n")[3]);
+        assertEquals("Due date: 05/17/03", expected.split("\n")[5]);
+
+        StringBuilder text = new StringBuilder("Receipt\n");
+        assertSame(text, ReceiptRenderer.render(agreement, text));
+        assertEquals("Receipt\n" + expected, text.toString());
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ReceiptRenderer.render(agreement, buffer);
+        ReceiptRenderer.render(agreement, buffer);
+        assertEquals(expected + expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length() + 8);
+        ReceiptRenderer.render(agreement, direct);
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, direct.position());
+        ByteBuffer small = ByteBuffer.allocate(64);
+        assertThrows(BufferOverflowException.class, () -> ReceiptRenderer.render(agreement, small));
+        assertEquals(0, small.position());
+    }
 }
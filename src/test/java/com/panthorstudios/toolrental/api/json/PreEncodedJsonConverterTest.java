@@ -0,0 +1,141 @@
+package com.panthorstudios.toolrental.api.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.service.ToolService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.mode=web")
+class PreEncodedJsonConverterTest {
+
+    private static final RentalAgreement AGREEMENT = new RentalAgreement("lx2k9a1b-00101", "LADW", "Ladder", "Werner", 5,
+            LocalDate.of(2024, 6, 28), 10, LocalDate.of(2024, 7, 3), 4,
+            new BigDecimal("1.99"), new BigDecimal("7.96"), new BigDecimal("0.80"), new BigDecimal("7.16"), 1, 3);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PreEncodedJsonConverter converter;
+
+    @Autowired
+    private HttpMessageConverters httpMessageConverters;
+
+    @Autowired
+    private ToolService toolService;
+
+    private void assertSameAsJackson(Object value) throws Exception {
+        assertEquals(new String(objectMapper.writeValueAsBytes(value)), new String(converter.toJson(value)));
+        assertArrayEquals(objectMapper.writeValueAsBytes(value), converter.toJson(value));
+    }
+
+    /**
+     * Test a rental agreement is written exactly as Jackson writes it
+     */
+    @Test
+    void testAgreementMatchesJackson() throws Exception {
+        assertSameAsJackson(AGREEMENT);
+        assertSameAsJackson(new RentalAgreement("id", "JAKR", "Jackhammer", "Ridgid", Integer.MAX_VALUE,
+                LocalDate.of(1, 1, 1), 0, LocalDate.of(9999, 12, 31), Integer.MIN_VALUE,
+                new BigDecimal("2.99"), new BigDecimal("1E+3"), new BigDecimal("0.0000001"), new BigDecimal("-12345678901234567890.12"), Long.MAX_VALUE, 0));
+        assertSameAsJackson(new RentalAgreement(null, null, null, null, 0, null, 100, null, -7, null, null, null, null, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertSameAsJackson(new RentalAgreement("id", "CHNS", "Chainsaw", "Stihl", 1,
+                LocalDate.of(-5, 3, 1), 1, LocalDate.of(12345, 3, 2), 1,
+                BigDecimal.ZERO, BigDecimal.ONE, BigDecimal.TEN, new BigDecimal("0.00"), -1234567890123L, -1));
+    }
+
+    /**
+     * Test strings are escaped and encoded exactly as Jackson does
+     */
+    @Test
+    void testStringEscapingMatchesJackson() throws Exception {
+        StringBuilder control = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            control.append(c);
+        }
+        for (String brand : new String[] {"", control.toString(), "quote \" backslash \\ slash /", "Müller & Söhne",
+                "日本の工具", "emoji 🔧 wrench", "  \u007F\u0080߿ࠀ￿"}) {
+            assertSameAsJackson(new Tool("CODE", "TYPE", brand));
+        }
+    }
+
+    /**
+     * Test the configured tools and tool types, and lists of them, are written exactly as Jackson writes them
+     */
+    @Test
+    void testCatalogMatchesJackson() throws Exception {
+        List<Tool> tools = toolService.getAllTools();
+        List<ToolType> toolTypes = toolService.getAllToolTypes();
+        assertFalse(tools.isEmpty());
+        for (Tool tool : tools) {
+            assertSameAsJackson(tool);
+        }
+        for (ToolType toolType : toolTypes) {
+            assertSameAsJackson(toolType);
+        }
+        assertSameAsJackson(tools);
+        assertSameAsJackson(toolTypes);
+        assertSameAsJackson(List.of());
+        assertSameAsJackson(Arrays.asList(AGREEMENT, null, AGREEMENT));
+    }
+
+    /**
+     * Test a large response is written through the per-thread buffer, which grows and is then released
+     */
+    @Test
+    void testWriteResponse() throws Exception {
+        List<RentalAgreement> agreements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            agreements.add(AGREEMENT);
+        }
+        for (Object value : new Object[] {AGREEMENT, agreements, AGREEMENT}) {
+            MockHttpOutputMessage message = new MockHttpOutputMessage();
+            converter.write(value, value.getClass(), MediaType.APPLICATION_JSON, message);
+            assertArrayEquals(objectMapper.writeValueAsBytes(value), message.getBodyAsBytes());
+            assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+        }
+    }
+
+    /**
+     * Test only the supported types are written, nothing is read, and the converter is ahead of Jackson
+     */
+    @Test
+    void testRegistration() {
+        assertTrue(converter.canWrite(RentalAgreement.class, RentalAgreement.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(new ParameterizedTypeReference<List<Tool>>() {}.getType(), ArrayList.class, null));
+        assertFalse(converter.canWrite(new ParameterizedTypeReference<List<String>>() {}.getType(), ArrayList.class, null));
+        assertFalse(converter.canWrite(new ParameterizedTypeReference<Map<String, Tool>>() {}.getType(), Map.class, null));
+        assertFalse(converter.canWrite(String.class, String.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Tool.class, Tool.class, MediaType.APPLICATION_XML));
+        assertFalse(converter.canRead(Tool.class, Tool.class, MediaType.APPLICATION_JSON));
+
+        List<HttpMessageConverter<?>> converters = httpMessageConverters.getConverters();
+        int preEncoded = converters.indexOf(converter);
+        int jackson = -1;
+        for (int i = 0; i < converters.size() && jackson < 0; i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                jackson = i;
+            }
+        }
+        assertTrue(preEncoded >= 0 && preEncoded < jackson, "The converter should be registered ahead of Jackson");
+    }
+}
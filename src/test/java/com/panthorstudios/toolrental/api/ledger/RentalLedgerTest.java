@@ -0,0 +1,276 @@
+package com.panthorstudios.toolrental.api.ledger;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalLedgerTest {
+
+    @TempDir
+    private Path directory;
+
+    private AppProperties appProperties(int segmentSize) {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getLedger().setEnabled(true);
+        appProperties.getLedger().setDirectory(directory.toString());
+        appProperties.getLedger().setSegmentSize(segmentSize);
+        appProperties.getLedger().setFsyncBatchSize(64);
+        appProperties.getLedger().setFsyncIntervalMs(1);
+        return appProperties;
+    }
+
+    private static RentalAgreement agreement(int i) {
+        return new RentalAgreement("LU3DGJAX-001" + (i % 10) + "1",
+                "LADW",
+                "Ladder",
+                "Werner",
+                i % 30 + 1,
+                LocalDate.of(2024, 7, 2).plusDays(i),
+                i % 101,
+                LocalDate.of(2024, 7, 2).plusDays(i + i % 30 + 1),
+                i % 30,
+                new BigDecimal("1.99"),
+                BigDecimal.valueOf(199L * (i % 30), 2),
+                new BigDecimal("0.50"),
+                BigDecimal.valueOf(199L * (i % 30) - 50, 2),
+                i / 10 + 1,
+                i / 20);
+    }
+
+    private static List<RentalAgreement> readAll(Path directory) throws IOException {
+        List<RentalAgreement> agreements = new ArrayList<>();
+        LedgerReader.forEach(directory, record -> agreements.add(record.toRentalAgreement()));
+        return agreements;
+    }
+
+    /**
+     * Test agreements are written with consecutive sequences and read back unchanged
+     */
+    @Test
+    void testAppendAndRead() throws Exception {
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20), () -> 1711154921145L);
+        ledger.open();
+        List<CompletableFuture<Long>> written = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            written.add(ledger.append(agreement(i)));
+        }
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i + 1, written.get(i).get());
+        }
+        ledger.close();
+
+        List<RentalAgreement> agreements = readAll(directory);
+        assertEquals(1000, agreements.size());
+        for (int i = 0; i < agreements.size(); i++) {
+            assertEquals(agreement(i), agreements.get(i));
+        }
+        long[] expectedSequence = {1};
+        LedgerReader.forEach(directory, record -> {
+            assertEquals(expectedSequence[0]++, record.sequence());
+            assertEquals(1711154921145L, record.recordedAtMs());
+        });
+    }
+
+    /**
+     * Test a reopened ledger continues after its last record
+     */
+    @Test
+    void testReopen() throws Exception {
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        ledger.append(agreement(0));
+        ledger.append(agreement(1)).get();
+        ledger.close();
+
+        ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        assertEquals(3, ledger.append(agreement(2)).get());
+        ledger.close();
+
+        assertEquals(List.of(agreement(0), agreement(1), agreement(2)), readAll(directory));
+    }
+
+    /**
+     * Test records spill into new segments when a segment is full
+     */
+    @Test
+    void testSegmentRoll() throws Exception {
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        CompletableFuture<Long> last = null;
+        // About 130 bytes a record, so several 1 MB segments
+        for (int i = 0; i < 30_000; i++) {
+            last = ledger.append(agreement(i));
+        }
+        assertEquals(30_000, last.get());
+        ledger.close();
+
+        assertTrue(LedgerSegment.list(directory).size() > 1);
+        assertEquals(30_000, LedgerReader.forEach(directory, record -> {}));
+    }
+
+    /**
+     * Test a torn or corrupt record at the tail is truncated when the ledger is reopened
+     */
+    @Test
+    void testRecoverTornTail() throws Exception {
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        for (int i = 0; i < 10; i++) {
+            ledger.append(agreement(i));
+        }
+        ledger.append(agreement(10)).get();
+        ledger.close();
+
+        // Corrupt the payload of the last record and leave garbage after it
+        int[] lastRecord = new int[1];
+        Path segment = LedgerSegment.list(directory).get(0);
+        LedgerSegment.scan(LedgerSegment.mapReadOnly(segment), record -> lastRecord[0] = record.payload().capacity());
+        int end = LedgerSegment.scan(LedgerSegment.mapReadOnly(segment), record -> {});
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), end - lastRecord[0] / 2);
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}), end + 100);
+        }
+        assertEquals(10, LedgerReader.forEach(directory, record -> {}));
+
+        ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        assertEquals(11, ledger.append(agreement(99)).get());
+        ledger.close();
+
+        List<RentalAgreement> agreements = readAll(directory);
+        assertEquals(11, agreements.size());
+        assertEquals(agreement(9), agreements.get(9));
+        assertEquals(agreement(99), agreements.get(10));
+    }
+
+    /**
+     * Test a segment left half created by a crash, before its header was written, does not stop the ledger opening
+     */
+    @Test
+    void testHalfCreatedSegmentIgnored() throws Exception {
+        Files.write(directory.resolve(LedgerSegment.fileName(1) + ".tmp"), new byte[1 << 20]);
+
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20));
+        ledger.open();
+        assertEquals(1, ledger.append(agreement(0)).get());
+        ledger.close();
+
+        assertEquals(List.of(directory.resolve(LedgerSegment.fileName(1))), LedgerSegment.list(directory));
+        assertEquals(List.of(agreement(0)), readAll(directory));
+    }
+
+    /**
+     * Test an append is rejected, counted and its future failed once the queue has stayed full for the timeout,
+     * while the appends already queued are still written
+     */
+    @Test
+    void testAppendRejectedWhenQueueFull() throws Exception {
+        AppProperties appProperties = appProperties(1 << 20);
+        appProperties.getLedger().setQueueCapacity(1);
+        appProperties.getLedger().setAppendTimeoutMs(10);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        // The writer reads the clock for each record, so it stalls here like on a slow disk
+        RentalLedger ledger = new RentalLedger(appProperties, () -> {
+            writing.countDown();
+            try {
+                releaseWriter.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1711154921145L;
+        });
+        ledger.open();
+
+        CompletableFuture<Long> first = ledger.append(agreement(0));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Long> queued = ledger.append(agreement(1));
+        CompletableFuture<Long> rejected = ledger.append(agreement(2));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, ledger.getRejectedCount());
+
+        releaseWriter.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+        ledger.close();
+        assertEquals(List.of(agreement(0), agreement(1)), readAll(directory));
+    }
+
+    /**
+     * Test that when the ledger cannot roll to a new segment, the agreements already written still complete, the
+     * failing and queued ones fail, and later appends fail at once instead of waiting on a stopped writer
+     */
+    @Test
+    void testWriteFailureFailsQueuedAppends() throws Exception {
+        // Find the sequence that starts the second segment, to put a file in its place once the ledger is open
+        ByteBuffer encoded = ByteBuffer.allocate(LedgerRecord.HEADER_SIZE + LedgerRecord.MAX_PAYLOAD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int used = LedgerSegment.HEADER_SIZE;
+        int firstFailing = 0;
+        while (true) {
+            encoded.clear();
+            LedgerRecord.encode(agreement(firstFailing), firstFailing + 1, 1711154921145L, encoded);
+            if (used + encoded.position() > 1 << 20) {
+                break;
+            }
+            used += encoded.position();
+            firstFailing++;
+        }
+
+        RentalLedger ledger = new RentalLedger(appProperties(1 << 20), () -> 1711154921145L);
+        ledger.open();
+        Path blocker = Files.createFile(directory.resolve(LedgerSegment.fileName(firstFailing + 1)));
+        List<CompletableFuture<Long>> written = new ArrayList<>();
+        for (int i = 0; i < firstFailing + 100; i++) {
+            written.add(ledger.append(agreement(i)));
+        }
+
+        assertEquals(firstFailing, written.get(firstFailing - 1).get(5, TimeUnit.SECONDS));
+        for (int i = firstFailing; i < written.size(); i++) {
+            CompletableFuture<Long> failed = written.get(i);
+            assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(ledger.append(agreement(0)).isCompletedExceptionally());
+        ledger.close();
+        Files.delete(blocker);
+        assertEquals(firstFailing, readAll(directory).size());
+    }
+
+    /**
+     * Test a disabled ledger writes nothing
+     */
+    @Test
+    void testDisabled() throws Exception {
+        AppProperties appProperties = appProperties(1 << 20);
+        appProperties.getLedger().setEnabled(false);
+        RentalLedger ledger = new RentalLedger(appProperties);
+        ledger.open();
+
+        assertFalse(ledger.isEnabled());
+        assertEquals(0, ledger.append(agreement(0)).get());
+        ledger.close();
+        assertTrue(LedgerSegment.list(directory).isEmpty());
+    }
+}
@@ -0,0 +1,196 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.AgreementPage;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementStoreTest {
+
+    private static final LocalDate JULY_1 = LocalDate.of(2024, 7, 1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator();
+
+    private AgreementStore store(boolean enabled, int maxMemoryMb) {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getAgreementStore().setEnabled(enabled);
+        appProperties.getAgreementStore().setMaxMemoryMb(maxMemoryMb);
+        return new AgreementStore(appProperties, registry);
+    }
+
+    private RentalAgreement agreement(String toolCode, LocalDate checkoutDate, int storeId, int terminalId) {
+        return new RentalAgreement(receiptIdGenerator.nextReceiptId(storeId, terminalId), toolCode, "Ladder", "Werner",
+                3, checkoutDate, 0, checkoutDate.plusDays(3), 2, new BigDecimal("1.99"), new BigDecimal("3.98"),
+                new BigDecimal("0.00"), new BigDecimal("3.98"), 1, 0);
+    }
+
+    private static List<RentalAgreement> allPages(Function<String, AgreementPage> query) {
+        List<RentalAgreement> agreements = new ArrayList<>();
+        String cursor = null;
+        do {
+            AgreementPage page = query.apply(cursor);
+            agreements.addAll(page.agreements());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return agreements;
+    }
+
+    /**
+     * Test an agreement can be found by ID once added
+     */
+    @Test
+    void testGet() {
+        AgreementStore store = store(true, 64);
+        RentalAgreement agreement = agreement("LADW", JULY_1, 1, 1);
+
+        store.add(agreement);
+        store.add(agreement);
+
+        assertSame(agreement, store.get(agreement.rentalAgreementId()));
+        assertNull(store.get("UNKNOWN-00101"));
+        assertEquals(1, store.size());
+        assertEquals(1.0, registry.get("toolrental.agreements.stored").gauge().value());
+        assertEquals(store.memoryBytes(), registry.get("toolrental.agreements.memory").gauge().value());
+    }
+
+    /**
+     * Test a checkout date range is returned in date order, page by page
+     */
+    @Test
+    void testFindByCheckoutDate() {
+        AgreementStore store = store(true, 64);
+        for (int day = 29; day >= 0; day--) {
+            store.add(agreement("LADW", JULY_1.plusDays(day), 1, 1));
+        }
+
+        AgreementPage first = store.findByCheckoutDate(JULY_1.plusDays(10), JULY_1.plusDays(19), null, 4);
+        assertEquals(4, first.agreements().size());
+        assertEquals(JULY_1.plusDays(10), first.agreements().get(0).checkoutDate());
+        assertNotNull(first.nextCursor());
+
+        List<RentalAgreement> range = allPages(cursor -> store.findByCheckoutDate(JULY_1.plusDays(10), JULY_1.plusDays(19), cursor, 4));
+        assertEquals(10, range.size());
+        for (int i = 0; i < range.size(); i++) {
+            assertEquals(JULY_1.plusDays(10 + i), range.get(i).checkoutDate());
+        }
+        assertEquals(30, allPages(cursor -> store.findByCheckoutDate(null, null, cursor, 7)).size());
+        assertTrue(store.findByCheckoutDate(JULY_1.plusDays(40), null, null, 10).agreements().isEmpty());
+    }
+
+    /**
+     * Test agreements are found by tool code and by store and terminal
+     */
+    @Test
+    void testFindByToolCodeAndTerminal() {
+        AgreementStore store = store(true, 64);
+        for (int i = 0; i < 20; i++) {
+            store.add(agreement(i % 2 == 0 ? "LADW" : "CHNS", JULY_1.plusDays(i), 1, i % 4 + 1));
+        }
+
+        List<RentalAgreement> ladders = allPages(cursor -> store.findByToolCode("LADW", null, null, cursor, 3));
+        assertEquals(10, ladders.size());
+        assertTrue(ladders.stream().allMatch(agreement -> agreement.toolCode().equals("LADW")));
+        assertEquals(3, store.findByToolCode("LADW", JULY_1.plusDays(10), JULY_1.plusDays(15), null, 10).agreements().size());
+        assertTrue(store.findByToolCode("JAKR", null, null, null, 10).agreements().isEmpty());
+
+        List<RentalAgreement> terminal2 = allPages(cursor -> store.findByTerminal(1, 2, null, null, cursor, 2));
+        assertEquals(5, terminal2.size());
+        assertTrue(terminal2.stream().allMatch(agreement -> ReceiptIdGenerator.parse(agreement.rentalAgreementId()).terminalId() == 2));
+        assertTrue(store.findByTerminal(2, 1, null, null, null, 10).agreements().isEmpty());
+    }
+
+    /**
+     * Test invalid cursors and page sizes are rejected
+     */
+    @Test
+    void testInvalidQuery() {
+        AgreementStore store = store(true, 64);
+        store.add(agreement("LADW", JULY_1, 1, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> store.findByCheckoutDate(null, null, "nonsense", 10));
+        assertThrows(IllegalArgumentException.class, () -> store.findByCheckoutDate(null, null, "1.x", 10));
+        assertThrows(IllegalArgumentException.class, () -> store.findByCheckoutDate(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> store.findByCheckoutDate(null, null, null, AgreementStore.MAX_PAGE_SIZE + 1));
+    }
+
+    /**
+     * Test the oldest agreements are dropped from the store and its indexes once the memory cap is reached
+     */
+    @Test
+    void testMemoryCap() {
+        AgreementStore store = store(true, 1);
+        List<RentalAgreement> added = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            RentalAgreement agreement = agreement("LADW", JULY_1.plusDays(i % 30), 1, 1);
+            added.add(agreement);
+            store.add(agreement);
+        }
+
+        assertTrue(store.memoryBytes() <= 1024 * 1024);
+        assertTrue(store.evictionCount() > 0);
+        assertEquals(3000 - store.evictionCount(), store.size());
+        assertNull(store.get(added.get(0).rentalAgreementId()));
+        assertNotNull(store.get(added.get(added.size() - 1).rentalAgreementId()));
+        assertEquals(store.size(), allPages(cursor -> store.findByCheckoutDate(null, null, cursor, 500)).size());
+        assertEquals(store.size(), allPages(cursor -> store.findByToolCode("LADW", null, null, cursor, 500)).size());
+        assertEquals(store.size(), allPages(cursor -> store.findByTerminal(1, 1, null, null, cursor, 500)).size());
+    }
+
+    /**
+     * Test agreements written concurrently by many terminals are all stored and indexed
+     */
+    @Test
+    void testConcurrentTerminals() throws Exception {
+        AgreementStore store = store(true, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int terminal = 1; terminal <= 32; terminal++) {
+                int terminalId = terminal;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        store.add(agreement("LADW", JULY_1.plusDays(i % 10), 7, terminalId));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(32 * 500, store.size());
+        assertEquals(32 * 500, allPages(cursor -> store.findByCheckoutDate(null, null, cursor, 500)).size());
+        assertEquals(500, allPages(cursor -> store.findByTerminal(7, 32, null, null, cursor, 100)).size());
+    }
+
+    /**
+     * Test nothing is stored or registered when the store is disabled
+     */
+    @Test
+    void testDisabled() {
+        AgreementStore store = store(false, 64);
+        RentalAgreement agreement = agreement("LADW", JULY_1, 1, 1);
+
+        store.add(agreement);
+
+        assertFalse(store.isEnabled());
+        assertNull(store.get(agreement.rentalAgreementId()));
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
@@ -0,0 +1,253 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.exception.InvalidToolCodeException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchCheckoutServiceTest {
+
+    @Mock
+    private CheckoutService mockCheckoutService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private BatchCheckoutService batchCheckoutService;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getBatch().setThreads(4);
+        appProperties.getBatch().setMaxInFlight(3);
+        batchCheckoutService = new BatchCheckoutService(mockCheckoutService, objectMapper, appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchCheckoutService.shutdown();
+    }
+
+    private RentalAgreement agreement(String toolCode, int rentalDays) {
+        return new RentalAgreement("ID-" + rentalDays, toolCode, "Ladder", "Werner", rentalDays,
+                LocalDate.of(2024, 3, 1), 0, LocalDate.of(2024, 3, 1).plusDays(rentalDays), rentalDays,
+                new BigDecimal("1.99"), new BigDecimal("1.99").multiply(BigDecimal.valueOf(rentalDays)),
+                new BigDecimal("0.00"), new BigDecimal("1.99").multiply(BigDecimal.valueOf(rentalDays)), 1, 0);
+    }
+
+    private String[] run(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchCheckoutService.checkout(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    /**
+     * Test that a JSON array is checked out in order, with a failed item reported in place
+     */
+    @Test
+    void checkout_jsonArrayKeepsInputOrder() throws Exception {
+        when(mockCheckoutService.toolRentalCheckout(eq("LADW"), any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+        when(mockCheckoutService.toolRentalCheckout(eq("NOPE"), any(), anyInt(), anyInt()))
+                .thenThrow(new InvalidToolCodeException("Tool code is not valid: NOPE"));
+
+        StringBuilder input = new StringBuilder("[");
+        for (int i = 1; i <= 20; i++) {
+            String toolCode = i == 7 ? "NOPE" : "LADW";
+            input.append(i > 1 ? "," : "")
+                    .append("{\"toolCode\":\"").append(toolCode).append("\",\"checkoutDate\":\"2024-03-01\",\"rentalDays\":")
+                    .append(i).append(",\"discountPercent\":0}");
+        }
+        input.append("]");
+
+        String[] lines = run(input.toString());
+
+        assertEquals(20, lines.length);
+        for (int i = 1; i <= 20; i++) {
+            Map<?, ?> line = objectMapper.readValue(lines[i - 1], Map.class);
+            if (i == 7) {
+                assertEquals(6, line.get("index"));
+                assertEquals("InvalidToolCodeException", line.get("error"));
+                assertEquals("Tool code is not valid: NOPE", line.get("message"));
+            } else {
+                assertEquals(i, line.get("rentalDays"));
+                assertEquals("2024-03-01", line.get("checkoutDate"));
+            }
+        }
+    }
+
+    /**
+     * Test that newline-delimited JSON input is accepted
+     */
+    @Test
+    void checkout_ndjsonInput() throws Exception {
+        when(mockCheckoutService.toolRentalCheckout(eq("LADW"), eq(LocalDate.of(2024, 3, 1)), anyInt(), eq(10)))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+
+        String[] lines = run("""
+                {"toolCode":"LADW","checkoutDate":"2024-03-01","rentalDays":1,"discountPercent":10}
+                {"toolCode":"LADW","checkoutDate":"2024-03-01","rentalDays":2,"discountPercent":10}
+                """);
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"rentalAgreementId\":\"ID-1\""));
+        assertTrue(lines[1].contains("\"rentalAgreementId\":\"ID-2\""));
+    }
+
+    /**
+     * Test that unreadable input ends the batch with an error line after the items already read
+     */
+    @Test
+    void checkout_malformedInputStopsWithError() throws Exception {
+        when(mockCheckoutService.toolRentalCheckout(eq("LADW"), any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+
+        String[] lines = run("""
+                {"toolCode":"LADW","checkoutDate":"2024-03-01","rentalDays":1,"discountPercent":0}
+                {"toolCode":"LADW","checkoutDate":"not a date","rentalDays":2,"discountPercent":0}
+                {"toolCode":"LADW","checkoutDate":"2024-03-01","rentalDays":3,"discountPercent":0}
+                """);
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"rentalAgreementId\":\"ID-1\""));
+        Map<?, ?> error = objectMapper.readValue(lines[1], Map.class);
+        assertEquals(1, error.get("index"));
+        assertEquals("InvalidRequest", error.get("error"));
+    }
+
+    private String[] runCsv(String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchCheckoutService.checkoutCsv(new BufferedReader(new StringReader(input)), out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    /**
+     * Test that CSV columns are matched by header name and a bad row is reported without stopping the batch
+     */
+    @Test
+    void checkout_csvWithHeader() throws Exception {
+        when(mockCheckoutService.toolRentalCheckout(eq("LADW"), eq(LocalDate.of(2024, 3, 1)), anyInt(), eq(10)))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+
+        String[] lines = runCsv("""
+                discount_percent,tool_code,rental_days,checkout_date,note
+                10,LADW,1,2024-03-01,first
+
+                10%,"LADW",2,03/01/24,second
+                10,LADW,three,2024-03-01,bad
+                10,LADW,4,2024-03-01,
+                """);
+
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("\"rentalAgreementId\":\"ID-1\""));
+        assertTrue(lines[1].contains("\"rentalAgreementId\":\"ID-2\""));
+        Map<?, ?> error = objectMapper.readValue(lines[2], Map.class);
+        assertEquals(2, error.get("index"));
+        assertEquals("InvalidRequest", error.get("error"));
+        assertEquals("Invalid rentalDays: three", error.get("message"));
+        assertTrue(lines[3].contains("\"rentalAgreementId\":\"ID-4\""));
+    }
+
+    /**
+     * Test that CSV without a header is read in the default column order
+     */
+    @Test
+    void checkout_csvWithoutHeader() throws Exception {
+        when(mockCheckoutService.toolRentalCheckout(eq("LADW"), eq(LocalDate.of(2024, 3, 1)), anyInt(), eq(0)))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+
+        String[] lines = runCsv("""
+                LADW,2024-03-01,5,0
+                LADW,2024-03-01
+                """);
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"rentalAgreementId\":\"ID-5\""));
+        assertEquals("InvalidRequest", objectMapper.readValue(lines[1], Map.class).get("error"));
+    }
+
+    /**
+     * Test that a CSV file that fails part way through reading fails the batch instead of ending it with an error line
+     */
+    @Test
+    void checkout_csvReadFailureFailsBatch() throws Exception {
+        // Rows already read may be cancelled before they run once the read fails
+        lenient().when(mockCheckoutService.toolRentalCheckout(eq("LADW"), eq(LocalDate.of(2024, 3, 1)), anyInt(), eq(0)))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+        Reader truncated = new Reader() {
+            private final Reader lines = new StringReader("LADW,2024-03-01,5,0\nLADW,2024-03-01,6,0\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = lines.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("Disk read error");
+                }
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> batchCheckoutService.checkoutCsv(new BufferedReader(truncated), new ByteArrayOutputStream()));
+        assertEquals("Disk read error", e.getMessage());
+    }
+
+    /**
+     * Test that a JSON stream that fails part way through reading fails the batch
+     */
+    @Test
+    void checkout_jsonReadFailureFailsBatch() {
+        InputStream truncated = new SequenceInputStream(
+                new ByteArrayInputStream("{\"toolCode\":\"LADW\",\"checkoutDate\":\"2024-03-01\",\"rentalDays\":1,\"discountPercent\":0}\n".getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Disk read error");
+                    }
+                });
+        lenient().when(mockCheckoutService.toolRentalCheckout(eq("LADW"), any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> agreement("LADW", invocation.getArgument(2)));
+
+        assertThrows(IOException.class, () -> batchCheckoutService.checkout(truncated, new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Test that a CSV header missing a column is rejected
+     */
+    @Test
+    void checkout_csvHeaderMissingColumn() {
+        assertThrows(IllegalArgumentException.class, () -> runCsv("toolCode,checkoutDate,rentalDays\nLADW,2024-03-01,5\n"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.mode=web")
+class BusinessCalendarTest {
+
+    @Autowired
+    private AppProperties appProperties;
+
+    private HolidayService holidayService;
+    private BusinessCalendar businessCalendar;
+
+    @BeforeEach
+    void setUp() {
+        holidayService = new HolidayService(appProperties);
+        businessCalendar = new BusinessCalendar(holidayService, appProperties);
+    }
+
+    /**
+     * Test the classification of individual days around Independence Day 2020 (observed Friday July 3rd)
+     */
+    @Test
+    void getDayClass_classifiesDays() {
+        assertEquals(BusinessCalendar.WEEKDAY, businessCalendar.getDayClass(LocalDate.of(2020, 7, 2)));
+        assertEquals(BusinessCalendar.WEEKDAY_HOLIDAY, businessCalendar.getDayClass(LocalDate.of(2020, 7, 3)));
+        assertEquals(BusinessCalendar.WEEKEND, businessCalendar.getDayClass(LocalDate.of(2020, 7, 4)));
+        assertEquals(BusinessCalendar.WEEKEND, businessCalendar.getDayClass(LocalDate.of(2020, 7, 5)));
+    }
+
+    /**
+     * Test that the prefix-sum count matches the per-day loop for each charge mask
+     */
+    @Test
+    void countChargeDays_matchesIterativeReference() {
+        LocalDate checkoutDate = LocalDate.of(2019, 12, 20);
+        for (int flags = 0; flags < 8; flags++) {
+            ToolType toolType = new ToolType("TYPE", "Type", new BigDecimal("1.00"),
+                    (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+            int mask = BusinessCalendar.chargeMask(toolType);
+            for (int rentalDays = 1; rentalDays <= 1500; rentalDays += 7) {
+                LocalDate dueDate = checkoutDate.plusDays(rentalDays);
+                int expected = ChargeDayCalculator.countChargeDaysIteratively(toolType, checkoutDate, rentalDays,
+                        holidayService.getHolidays(checkoutDate.getYear(), dueDate.getYear()));
+                assertEquals(expected, businessCalendar.countChargeDays(mask, checkoutDate.plusDays(1), dueDate),
+                        "Mismatch for flags " + flags + ", " + rentalDays + " days");
+            }
+        }
+    }
+
+    /**
+     * Test that ranges outside the horizon are reported as not covered
+     */
+    @Test
+    void covers_outsideHorizon() {
+        assertTrue(businessCalendar.covers(LocalDate.of(1950, 1, 1), LocalDate.of(2150, 12, 31)));
+        assertFalse(businessCalendar.covers(LocalDate.of(1949, 12, 31), LocalDate.of(2000, 1, 1)));
+        assertFalse(businessCalendar.covers(LocalDate.of(2150, 12, 1), LocalDate.of(2151, 1, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> businessCalendar.countChargeDays(0b1111, LocalDate.of(2150, 12, 1), LocalDate.of(2151, 1, 1)));
+    }
+
+    /**
+     * Test that the calendar is rebuilt when the holiday rules change
+     */
+    @Test
+    void countChargeDays_rebuiltWhenRulesChange() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(appProperties.getHolidayRulesList());
+        BusinessCalendar calendar = new BusinessCalendar(new HolidayService(properties), properties);
+        LocalDate july4 = LocalDate.of(2024, 7, 4);
+        assertEquals(BusinessCalendar.WEEKDAY_HOLIDAY, calendar.getDayClass(july4));
+
+        properties.setHolidayRulesList(List.of(appProperties.getHolidayRulesList().get(1)));
+        assertEquals(BusinessCalendar.WEEKDAY, calendar.getDayClass(july4));
+    }
+
+    /**
+     * Test that each country has its own calendar, and a country's calendar is built without the others'
+     */
+    @Test
+    void getDayClass_perCountry() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        List<HolidayRule> rules = new ArrayList<>(appProperties.getHolidayRulesList());
+        rules.add(new HolidayRule("CA", "FIXED_DATE", "Canada Day", 7, 1, null, null, null, null, null));
+        properties.setHolidayRulesList(rules);
+        HolidayService service = new HolidayService(properties);
+        BusinessCalendar calendar = new BusinessCalendar(service, properties);
+
+        assertEquals(BusinessCalendar.WEEKDAY_HOLIDAY, calendar.getDayClass("CA", LocalDate.of(2024, 7, 1)));
+        assertEquals(BusinessCalendar.WEEKDAY, calendar.getDayClass("CA", LocalDate.of(2024, 7, 4)));
+        long misses = service.getCacheMisses();
+        assertEquals(BusinessCalendar.WEEKDAY, calendar.getDayClass("CA", LocalDate.of(2025, 7, 4)));
+        assertEquals(misses, service.getCacheMisses());
+
+        assertEquals(BusinessCalendar.WEEKDAY, calendar.getDayClass("US", LocalDate.of(2024, 7, 1)));
+        assertEquals(BusinessCalendar.WEEKDAY_HOLIDAY, calendar.getDayClass(LocalDate.of(2024, 7, 4)));
+        assertEquals(2, calendar.countChargeDays("CA", 0b0001, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 3)));
+        assertEquals(3, calendar.countChargeDays("US", 0b0001, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 3)));
+    }
+}
@@ -0,0 +1,193 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogReloaderTest {
+
+    private static final String CATALOG = """
+            tools-map:
+              LADW:
+                code: LADW
+                type-code: LADDER
+                brand: Werner
+              LADL:
+                code: LADL
+                type-code: LADDER
+                brand: Louisville
+            tool-types-map:
+              LADDER:
+                type-code: LADDER
+                label: Ladder
+                daily-charge: 2.49
+                chargeable-on-weekdays: true
+                chargeable-on-weekends: true
+                chargeable-on-holidays: false
+            holiday-rules-list:
+              - country-code: US
+                name: Christmas Day
+                type: FIXED_DATE
+                month: 12
+                day: 25
+            """;
+
+    private AppProperties appProperties;
+    private ToolService toolService;
+    private HolidayService holidayService;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties(
+                Map.of("LADW", new Tool("LADW", "LADDER", "Werner")),
+                Map.of("LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false)));
+        appProperties.setHolidayRulesList(List.of(
+                new HolidayRule("US", "FIXED_DATE", "Independence Day", 7, 4, null, null, null, null, null)));
+        toolService = new ToolService(appProperties);
+        holidayService = new HolidayService(appProperties);
+    }
+
+    private CatalogReloader reloader() {
+        return new CatalogReloader(appProperties, toolService, holidayService);
+    }
+
+    /**
+     * Test a reload publishes a new catalog version and holiday rules, while a snapshot taken before it is unchanged
+     */
+    @Test
+    void testReloadPublishesNewVersion() {
+        ToolCatalog before = toolService.getCatalog();
+        long generation = holidayService.getRulesGeneration();
+
+        CatalogReloader.Result result = reloader().reload(CATALOG, "test");
+
+        assertTrue(result.changed());
+        assertSame(result.catalog(), toolService.getCatalog());
+        assertEquals(before.getVersion() + 1, result.catalog().getVersion());
+        assertEquals(List.of("LADL", "LADW"), result.catalog().getToolCodes());
+        assertEquals(new BigDecimal("2.49"), result.catalog().getEntry("LADW").toolType().dailyCharge());
+        assertEquals(new BigDecimal("1.99"), before.getEntry("LADW").toolType().dailyCharge());
+        assertNull(before.getEntry("LADL"));
+        assertTrue(holidayService.getRulesGeneration() > generation);
+        assertEquals(Set.of(LocalDate.of(2024, 12, 25)), holidayService.getHolidays("US", 2024, 2024));
+        assertEquals(2, appProperties.getToolsMap().size());
+    }
+
+    /**
+     * Test reloading the same document again replaces nothing
+     */
+    @Test
+    void testReloadSameDocument() {
+        CatalogReloader reloader = reloader();
+        long version = reloader.reload(CATALOG, "test").catalog().getVersion();
+
+        CatalogReloader.Result again = reloader.reload(CATALOG, "test");
+
+        assertFalse(again.changed());
+        assertEquals(version, toolService.getCatalog().getVersion());
+    }
+
+    /**
+     * Test sections left out of a JSON document keep their current values
+     */
+    @Test
+    void testMissingSectionsAreKept() {
+        String json = """
+                {"tools-map": {"JAKD": {"code": "JAKD", "type-code": "LADDER", "brand": "DeWalt"}}}
+                """;
+
+        reloader().reload(json, "test");
+
+        assertEquals(List.of("JAKD"), toolService.getAllToolCodes());
+        assertEquals(new BigDecimal("1.99"), toolService.getCatalog().getToolType("LADDER").dailyCharge());
+        assertEquals(Set.of(LocalDate.of(2024, 7, 4)), holidayService.getHolidays("US", 2024, 2024));
+    }
+
+    /**
+     * Test an invalid document is rejected with the reason, and the current catalog and holiday rules are kept
+     */
+    @Test
+    void testInvalidCatalogChangesNothing() {
+        CatalogReloader reloader = reloader();
+        ToolCatalog before = toolService.getCatalog();
+        long generation = holidayService.getRulesGeneration();
+
+        for (String[] invalid : new String[][] {
+                {CATALOG.replace("type-code: LADDER\n    brand: Louisville", "type-code: STEPSTOOL\n    brand: Louisville"), "unknown tool type: STEPSTOOL"},
+                {CATALOG.replace("2.49", "2.499"), "not whole cents"},
+                {CATALOG.replace("2.49", "-1"), "daily charge of zero or more"},
+                {CATALOG.replace("  LADL:\n    code: LADL", "  LADL:\n    code: LADX"), "must have code LADL"},
+                {CATALOG.replace("day: 25", "day: 32"), "day"},
+                {CATALOG.replace("type: FIXED_DATE", "type: FULL_MOON"), "FULL_MOON"},
+                {CATALOG.replace("daily-charge: 2.49", "daily-charge: cheap"), "invalid tool-types-map"},
+                {"tools-map: [unclosed", "not valid YAML"},
+                {"", "has none of"}}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> reloader.reload(invalid[0], "test"));
+            assertTrue(e.getMessage().contains(invalid[1]), e.getMessage());
+        }
+
+        assertSame(before, toolService.getCatalog());
+        assertEquals(generation, holidayService.getRulesGeneration());
+        assertEquals(1, appProperties.getToolsMap().size());
+        assertEquals(Set.of(LocalDate.of(2024, 7, 4)), holidayService.getHolidays("US", 2024, 2024));
+    }
+
+    /**
+     * Test the catalog file is loaded at startup and reloaded when it changes, keeping the catalog when a change is invalid
+     */
+    @Test
+    void testWatchedFileIsReloaded(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("catalog.yml");
+        Files.writeString(file, CATALOG);
+        appProperties.getCatalog().setFile(file.toString());
+        CatalogReloader reloader = reloader();
+        reloader.open();
+        try {
+            long loaded = toolService.getCatalog().getVersion();
+            assertEquals(2, toolService.getAllTools().size());
+
+            Files.writeString(file, CATALOG.replace("2.49", "2.99"));
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (toolService.getCatalog().getVersion() == loaded && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(loaded + 1, toolService.getCatalog().getVersion());
+            assertEquals(new BigDecimal("2.99"), toolService.getCatalog().getToolType("LADDER").dailyCharge());
+
+            Files.writeString(file, "tools-map: [unclosed");
+            Thread.sleep(500);
+            assertEquals(loaded + 1, toolService.getCatalog().getVersion());
+            assertThrows(IllegalArgumentException.class, reloader::reloadFile);
+        } finally {
+            reloader.close();
+        }
+    }
+
+    /**
+     * Test an invalid catalog file stops startup, and a reload needs a file
+     */
+    @Test
+    void testInvalidFileAtStartup(@TempDir Path directory) throws Exception {
+        assertThrows(IllegalStateException.class, () -> reloader().reloadFile());
+
+        Path file = directory.resolve("catalog.json");
+        Files.writeString(file, "{\"tools-map\": {\"LADW\": {\"code\": \"LADW\", \"type-code\": \"NONE\", \"brand\": \"Werner\"}}}");
+        appProperties.getCatalog().setFile(file.toString());
+        assertThrows(IllegalArgumentException.class, () -> reloader().open());
+        assertEquals(1, toolService.getCatalog().getVersion());
+    }
+}
@@ -0,0 +1,75 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChargeDayCalculatorTest {
+
+    // Observed holidays plus a Saturday and a Sunday so weekend holidays are covered too
+    private final Set<LocalDate> holidays = Set.of(
+            LocalDate.of(2023, 7, 4),
+            LocalDate.of(2023, 9, 4),
+            LocalDate.of(2024, 7, 4),
+            LocalDate.of(2024, 9, 2),
+            LocalDate.of(2024, 7, 6),
+            LocalDate.of(2024, 7, 7));
+
+    /**
+     * Test that the closed-form count matches the per-day loop for every combination of charge flags
+     */
+    @Test
+    void countChargeDays_matchesIterativeReference() {
+        LocalDate start = LocalDate.of(2023, 6, 1);
+        for (int flags = 0; flags < 8; flags++) {
+            ToolType toolType = new ToolType("TYPE", "Type", new BigDecimal("1.00"),
+                    (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+            for (int offset = 0; offset < 14; offset++) {
+                LocalDate checkoutDate = start.plusDays(offset * 29L);
+                for (int rentalDays = 1; rentalDays <= 450; rentalDays++) {
+                    assertEquals(ChargeDayCalculator.countChargeDaysIteratively(toolType, checkoutDate, rentalDays, holidays),
+                            ChargeDayCalculator.countChargeDays(toolType, checkoutDate, rentalDays, holidays),
+                            "Mismatch for flags " + flags + ", checkout " + checkoutDate + ", " + rentalDays + " days");
+                }
+            }
+        }
+    }
+
+    /**
+     * Test a single week with a weekday holiday for a ladder (no holiday charge)
+     */
+    @Test
+    void countChargeDays_ladderOverIndependenceDay() {
+        ToolType ladder = new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false);
+        // 07/02/23 is a Sunday; 07/03 to 07/09 includes July 4th
+        assertEquals(6, ChargeDayCalculator.countChargeDays(ladder, LocalDate.of(2023, 7, 2), 7, holidays));
+    }
+
+    /**
+     * Test that a multi-year rental is counted without visiting each day
+     */
+    @Test
+    void countChargeDays_longRental() {
+        ToolType jackhammer = new ToolType("JACKHAMMER", "Jackhammer", new BigDecimal("2.99"), true, false, false);
+        LocalDate checkoutDate = LocalDate.of(2023, 1, 1);
+        assertEquals(ChargeDayCalculator.countChargeDaysIteratively(jackhammer, checkoutDate, 3650, holidays),
+                ChargeDayCalculator.countChargeDays(jackhammer, checkoutDate, 3650, holidays));
+    }
+
+    /**
+     * Test that a holiday set containing an unresolved (null) entry is tolerated
+     */
+    @Test
+    void countChargeDays_ignoresNullHoliday() {
+        ToolType chainsaw = new ToolType("CHAINSAW", "Chainsaw", new BigDecimal("1.49"), true, false, true);
+        Set<LocalDate> withNull = new HashSet<>(holidays);
+        withNull.add(null);
+        assertEquals(5, ChargeDayCalculator.countChargeDays(chainsaw, LocalDate.of(2024, 3, 17), 7, withNull));
+    }
+}
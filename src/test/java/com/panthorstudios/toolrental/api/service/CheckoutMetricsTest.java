@@ -0,0 +1,65 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.exception.InvalidToolCodeException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutMetricsTest {
+
+    private static final ToolType LADDER = new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false);
+
+    private static AppProperties appProperties(boolean enabled) {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getMetrics().setEnabled(enabled);
+        return appProperties;
+    }
+
+    /**
+     * Test phases, checkouts and failures are recorded when metrics are enabled
+     */
+    @Test
+    void testEnabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CheckoutMetrics metrics = new CheckoutMetrics(registry, appProperties(true));
+
+        long start = metrics.startTimer();
+        assertTrue(start != 0);
+        long next = metrics.recordPhase(CheckoutMetrics.Phase.VALIDATION, start);
+        assertTrue(next >= start);
+        metrics.recordCheckout(LADDER, 3, new Money(597));
+        metrics.recordCheckout(LADDER, 1, new Money(199));
+        metrics.recordFailure(new InvalidToolCodeException("Tool not found"));
+
+        assertEquals(1, registry.get("toolrental.checkout.phase").tag("phase", "validation").timer().count());
+        assertEquals(0, registry.get("toolrental.checkout.phase").tag("phase", "receipt-id").timer().count());
+        assertEquals(2.0, registry.get("toolrental.checkout.count").tag("toolType", "LADDER").counter().count());
+        assertEquals(2, registry.get("toolrental.checkout.rental.days").summary().count());
+        assertEquals(7.96, registry.get("toolrental.checkout.final.charge").summary().totalAmount(), 1e-9);
+        assertEquals(1.0, registry.get("toolrental.checkout.failures").tag("exception", "InvalidToolCodeException").counter().count());
+    }
+
+    /**
+     * Test nothing is registered or recorded when metrics are disabled
+     */
+    @Test
+    void testDisabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CheckoutMetrics metrics = new CheckoutMetrics(registry, appProperties(false));
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.startTimer());
+        assertEquals(0, metrics.recordPhase(CheckoutMetrics.Phase.VALIDATION, 0));
+        metrics.recordCheckout(LADDER, 3, new Money(597));
+        metrics.recordFailure(new InvalidToolCodeException("Tool not found"));
+
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
@@ -7,7 +7,10 @@ import com.panthorstudios.toolrental.api.exception.InvalidCheckoutDateException;
 import com.panthorstudios.toolrental.api.exception.InvalidDiscountPercentException;
 import com.panthorstudios.toolrental.api.exception.InvalidRentalDaysException;
 import com.panthorstudios.toolrental.api.exception.InvalidToolCodeException;
+import com.panthorstudios.toolrental.api.exception.ToolUnavailableException;
+import com.panthorstudios.toolrental.api.ledger.RentalLedger;
 import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,17 +21,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class CheckoutServiceTest {
 
+    private static final ToolType LADDER = new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false);
+
     @Mock
     private ToolService mockToolService;
 
@@ -38,11 +45,35 @@ class CheckoutServiceTest {
     @Mock
     private AppProperties mockAppProperties;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private CheckoutService checkoutService;
 
+    private long catalogVersion;
+
     @BeforeEach
     void setUp() {
-        checkoutService = new CheckoutService(mockToolService, mockHolidayService, mockAppProperties);
+        meterRegistry = new SimpleMeterRegistry();
+        checkoutService = newCheckoutService(new ReservationService(mockToolService, mockAppProperties, meterRegistry, () -> LocalDate.of(2023, 1, 1)));
+    }
+
+    private CheckoutService newCheckoutService(ReservationService reservationService) {
+        return new CheckoutService(mockToolService, mockHolidayService,
+                new BusinessCalendar(mockHolidayService, mockAppProperties), new ReceiptIdGenerator(),
+                new CheckoutMetrics(meterRegistry, mockAppProperties), new RentalLedger(mockAppProperties),
+                new QuoteCache(mockAppProperties, mockHolidayService, meterRegistry),
+                new AgreementStore(mockAppProperties, meterRegistry), reservationService, mockAppProperties);
+    }
+
+    // For tests that rent the same tool for the same dates more than once, to compare prices
+    private void disableReservations() {
+        AppProperties settings = new AppProperties(Map.of(), Map.of());
+        settings.getReservations().setEnabled(false);
+        checkoutService = newCheckoutService(new ReservationService(mockToolService, settings, meterRegistry));
+    }
+
+    private void givenCatalog(Tool tool, ToolType toolType) {
+        when(mockToolService.getCatalog()).thenReturn(ToolCatalog.compile(Map.of(tool.code(), tool), Map.of(toolType.typeCode(), toolType), ++catalogVersion));
     }
 
     @Test
@@ -57,10 +88,8 @@ class CheckoutServiceTest {
         int rentalDays = 5;
         int discountPercent = 10;
 
-        when(mockToolService.getToolByCode(toolCode)).thenReturn(Optional.of(new Tool(toolCode, toolTypeCode, toolBrand)));
-        when(mockToolService.getToolTypeByTool(any(Tool.class))).thenReturn(Optional.of(new ToolType(toolTypeCode, toolTypeLabel, dailyCharge, true, false, true)));
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
-        when(mockHolidayService.getHolidays(anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2023, 4, 4)));
+        givenCatalog(new Tool(toolCode, toolTypeCode, toolBrand), new ToolType(toolTypeCode, toolTypeLabel, dailyCharge, true, false, true));
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2023, 4, 4)));
         when(mockAppProperties.getStoreId()).thenReturn(1);
         when(mockAppProperties.getTerminalId()).thenReturn(1);
 
@@ -73,6 +102,7 @@ class CheckoutServiceTest {
         assertEquals(toolTypeLabel, rentalAgreement.toolType());
         assertEquals(toolBrand, rentalAgreement.toolBrand());
         assertEquals(checkoutDate.plusDays(rentalDays), rentalAgreement.dueDate());
+        assertEquals(catalogVersion, rentalAgreement.catalogVersion());
     }
 
     @Test
@@ -89,10 +119,8 @@ class CheckoutServiceTest {
         Tool tool = new Tool(toolCode, toolTypeCode, toolBrand);
         ToolType toolType = new ToolType(toolTypeCode, toolTypeLabel, dailyCharge, true, true, false);
 
-        when(mockToolService.getToolByCode(toolCode)).thenReturn(Optional.of(tool));
-        when(mockToolService.getToolTypeByTool(tool)).thenReturn(Optional.of(toolType));
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
-        when(mockHolidayService.getHolidays(anyInt(), anyInt())).thenReturn(new HashSet<>());
+        givenCatalog(tool, toolType);
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(new HashSet<>());
 
         RentalAgreement rentalAgreement = checkoutService.toolRentalCheckout(toolCode, checkoutDate, rentalDays, discountPercent);
 
@@ -107,34 +135,91 @@ class CheckoutServiceTest {
     void toolRentalCheckoutWithNonexistentToolCode() {
 
         String invalidToolCode = "INVALID";
+        givenCatalog(new Tool("LADW", "LADDER", "Werner"), LADDER);
         Exception exception = assertThrows(InvalidToolCodeException.class, () ->
                 checkoutService.toolRentalCheckout(invalidToolCode, LocalDate.now(), 4, 10));
 
         assertTrue(exception.getMessage().contains("Tool code is not valid"));
     }
 
+    /**
+     * Test that a tool whose type is not configured is rejected
+     */
+    @Test
+    void toolRentalCheckoutWithMissingToolType() {
+        Tool tool = new Tool("CHNS", "CHAINSAW", "Stihl");
+        when(mockToolService.getCatalog()).thenReturn(ToolCatalog.compile(Map.of(tool.code(), tool), Map.of(), 1));
+
+        Exception exception = assertThrows(InvalidToolCodeException.class, () ->
+                checkoutService.toolRentalCheckout(tool.code(), LocalDate.now(), 4, 10));
+
+        assertTrue(exception.getMessage().contains("Tool type not found"));
+    }
+
+    /**
+     * Test that a checkout reads the tool catalog once
+     */
+    @Test
+    void toolRentalCheckoutLooksUpCatalogOnce() {
+        String toolCode = "LADW";
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of());
+
+        checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2024, 3, 4), 5, 10);
+
+        verify(mockToolService, times(1)).getCatalog();
+        verifyNoMoreInteractions(mockToolService);
+    }
+
     @Test
     void testInvalidCheckoutDate() {
         String toolCode = "CHNS";
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
         assertThrows(InvalidCheckoutDateException.class, () ->
                 checkoutService.toolRentalCheckout(toolCode, null, 5, 10));
     }
 
+    /**
+     * Test that a checkout before 1583, where Easter-based holidays cannot be calculated, is rejected as an invalid
+     * date instead of failing while it is priced
+     */
+    @Test
+    void testCheckoutDateBeforeGregorianCalendar() {
+        String toolCode = "CHNS";
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
+
+        assertThrows(InvalidCheckoutDateException.class, () ->
+                checkoutService.toolRentalCheckout(toolCode, LocalDate.of(1582, 12, 31), 5, 10));
+        assertDoesNotThrow(() -> checkoutService.validateCheckoutDate(LocalDate.of(1583, 1, 1)));
+    }
+
     @Test
     void testInvalidRentalDays() {
         String toolCode = "CHNS";
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
 
         assertThrows(InvalidRentalDaysException.class, () ->
                 checkoutService.toolRentalCheckout(toolCode, LocalDate.now(), 0, 10));
     }
+
+    /**
+     * Test that rentals longer than the maximum are rejected before they are priced
+     */
+    @Test
+    void testRentalDaysOverMaximum() {
+        String toolCode = "CHNS";
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
+
+        assertThrows(InvalidRentalDaysException.class, () ->
+                checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2024, 1, 1), Integer.MAX_VALUE, 10));
+        assertDoesNotThrow(() -> checkoutService.validateRentalDays(CheckoutService.MAX_RENTAL_DAYS));
+    }
     @Test
     void testInvalidDiscountPercent() {
         String toolCode = "CHNS";
         int rentalDays = 5;
 
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
         assertThrows(InvalidDiscountPercentException.class, () ->
                 checkoutService.toolRentalCheckout(toolCode, LocalDate.now(), rentalDays, -1));
         assertThrows(InvalidDiscountPercentException.class, () ->
@@ -152,13 +237,11 @@ class CheckoutServiceTest {
 
         // Assume these are valid inputs and setup necessary mock responses
         // Mock toolService, holidayService, and appProperties as necessary
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
-        when(mockToolService.getToolByCode(toolCode)).thenReturn(Optional.of(new Tool(toolCode, typeCode, "Stihl")));
-        when(mockToolService.getToolTypeByTool(any(Tool.class))).thenReturn(Optional.of(new ToolType(typeCode, "Chainsaw", dailyCharge, true, false, true)));
+        givenCatalog(new Tool(toolCode, typeCode, "Stihl"), new ToolType(typeCode, "Chainsaw", dailyCharge, true, false, true));
         when(mockAppProperties.getStoreId()).thenReturn(1);
         when(mockAppProperties.getTerminalId()).thenReturn(1);
 
-        when(mockHolidayService.getHolidays(anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2023, 7, 4))); // Example holiday
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2023, 7, 4))); // Example holiday
 
         // Execute
         RentalAgreement agreement = checkoutService.toolRentalCheckout(toolCode, checkoutDate, rentalDays, discountPercent);
@@ -177,9 +260,7 @@ class CheckoutServiceTest {
         dailyCharge = new BigDecimal("1.99");
         rentalDays = 7;
 
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
-        when(mockToolService.getToolByCode(toolCode)).thenReturn(Optional.of(new Tool(toolCode, typeCode, "Werner")));
-        when(mockToolService.getToolTypeByTool(any(Tool.class))).thenReturn(Optional.of(new ToolType(typeCode, "Ladder", dailyCharge, true, false, true)));
+        givenCatalog(new Tool(toolCode, typeCode, "Werner"), new ToolType(typeCode, "Ladder", dailyCharge, true, false, true));
 
         // Execute
         agreement = checkoutService.toolRentalCheckout(toolCode, checkoutDate, rentalDays, discountPercent);
@@ -199,9 +280,7 @@ class CheckoutServiceTest {
         rentalDays = 7;
         checkoutDate = LocalDate.of(2024, 3, 17); // Sunday so 5 charge days
 
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
-        when(mockToolService.getToolByCode(toolCode)).thenReturn(Optional.of(new Tool(toolCode, typeCode, "Ridgid")));
-        when(mockToolService.getToolTypeByTool(any(Tool.class))).thenReturn(Optional.of(new ToolType(typeCode, "Jackhammer", dailyCharge, true, false, true)));
+        givenCatalog(new Tool(toolCode, typeCode, "Ridgid"), new ToolType(typeCode, "Jackhammer", dailyCharge, true, false, true));
 
         // Execute
         agreement = checkoutService.toolRentalCheckout(toolCode, checkoutDate, rentalDays, discountPercent);
@@ -217,6 +296,199 @@ class CheckoutServiceTest {
 
     }
 
+    /**
+     * Test that a rental beyond the business calendar's horizon falls back to the holiday set
+     */
+    @Test
+    void testChargeCalculationOutsideCalendarHorizon() {
+        String toolCode = "JAKR";
+        Tool tool = new Tool(toolCode, "JACKHAMMER", "Ridgid");
+        givenCatalog(tool, new ToolType("JACKHAMMER", "Jackhammer", new BigDecimal("2.99"), true, false, false));
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2200, 7, 4))); // Friday
+
+        // Sunday 06/29/2200 through Sunday 07/06/2200: 5 weekdays, one of them a holiday
+        RentalAgreement agreement = checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2200, 6, 29), 7, 0);
+
+        assertEquals(4, agreement.chargeDays());
+        assertEquals(new BigDecimal("11.96"), agreement.preDiscountCharge());
+        verify(mockHolidayService).getHolidays("US", 2200, 2200);
+    }
+
+    /**
+     * Test the agreement records the holiday rules generation that priced it, pricing again if the rules are replaced meanwhile
+     */
+    @Test
+    void testAgreementRecordsRulesGeneration() {
+        givenCatalog(new Tool("JAKR", "JACKHAMMER", "Ridgid"), new ToolType("JACKHAMMER", "Jackhammer", new BigDecimal("2.99"), true, false, false));
+        AtomicLong rulesGeneration = new AtomicLong(4);
+        when(mockHolidayService.getRulesGeneration()).thenAnswer(invocation -> rulesGeneration.get());
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            // The rules are replaced while the rental is first priced, after the business calendar was built
+            if (invocation.getArgument(1, Integer.class) == 2200) {
+                rulesGeneration.compareAndSet(4, 5);
+            }
+            return Set.of(LocalDate.of(2200, 7, 4));
+        });
+
+        RentalAgreement agreement = checkoutService.toolRentalCheckout("JAKR", LocalDate.of(2200, 6, 29), 7, 0);
+
+        assertEquals(5, agreement.holidayRulesGeneration());
+        assertEquals(4, agreement.chargeDays());
+        verify(mockHolidayService, times(2)).getHolidays("US", 2200, 2200);
+    }
+
+    /**
+     * Test a checkout at a store in another country is charged by that country's holidays and quoted separately
+     */
+    @Test
+    void testCheckoutUsesStoreCountry() {
+        disableReservations();
+        givenCatalog(new Tool("LADW", "LADDER", "Werner"), LADDER);
+        AppProperties.Stores stores = new AppProperties.Stores();
+        stores.setCountries(Map.of(101, "CA"));
+        when(mockAppProperties.getStores()).thenReturn(stores);
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        // Friday 07/04/2200 in the US, Tuesday 07/01/2200 in Canada
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenAnswer(invocation ->
+                Set.of("CA".equals(invocation.getArgument(0)) ? LocalDate.of(2200, 7, 1) : LocalDate.of(2200, 7, 4)));
+
+        // Tuesday 07/01/2200 through Thursday 07/03/2200: the ladder is not charged on holidays
+        RentalAgreement us = checkoutService.toolRentalCheckout("LADW", LocalDate.of(2200, 6, 30), 3, 0);
+        RentalAgreement ca = checkoutService.toolRentalCheckout(101, "LADW", LocalDate.of(2200, 6, 30), 3, 0);
+
+        assertEquals(3, us.chargeDays());
+        assertEquals(2, ca.chargeDays());
+        assertEquals(101, ReceiptIdGenerator.parse(ca.rentalAgreementId()).storeId());
+        verify(mockHolidayService).getHolidays("US", 2200, 2200);
+        verify(mockHolidayService).getHolidays("CA", 2200, 2200);
+    }
+
+    /**
+     * Test a checkout records its phase timings, tool type and amounts, and a failed checkout records its exception
+     */
+    @Test
+    void testCheckoutMetrics() {
+        String toolCode = "LADW";
+        Tool tool = new Tool(toolCode, "LADDER", "Werner");
+        givenCatalog(tool, new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false));
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of());
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        when(mockAppProperties.getTerminalId()).thenReturn(1);
+
+        checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2024, 3, 4), 5, 0);
+        assertThrows(InvalidDiscountPercentException.class, () ->
+                checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2024, 3, 4), 5, 101));
+
+        // The failed checkout gets as far as the lookup
+        assertEquals(2, meterRegistry.get("toolrental.checkout.phase").tag("phase", "lookup").timer().count());
+        for (String phase : new String[] {"validation", "pricing", "charges", "receipt-id", "reservation"}) {
+            assertEquals(1, meterRegistry.get("toolrental.checkout.phase").tag("phase", phase).timer().count(), phase);
+        }
+        assertEquals(1.0, meterRegistry.get("toolrental.checkout.count").tag("toolType", "LADDER").counter().count());
+        assertEquals(5.0, meterRegistry.get("toolrental.checkout.rental.days").summary().totalAmount());
+        assertEquals(9.95, meterRegistry.get("toolrental.checkout.final.charge").summary().totalAmount(), 1e-9);
+        assertEquals(1.0, meterRegistry.get("toolrental.checkout.failures")
+                .tag("exception", "InvalidDiscountPercentException").counter().count());
+    }
+
+    /**
+     * Test a tool cannot be rented again for any day it is already out, and is free again the day after it is due
+     */
+    @Test
+    void testDoubleBookingRejected() {
+        givenCatalog(new Tool("LADW", "LADDER", "Werner"), LADDER);
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of());
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        when(mockAppProperties.getTerminalId()).thenReturn(1);
+
+        RentalAgreement first = checkoutService.toolRentalCheckout("LADW", LocalDate.of(2024, 3, 4), 5, 0);
+
+        for (LocalDate checkoutDate : new LocalDate[] {LocalDate.of(2024, 3, 4), LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 9)}) {
+            ToolUnavailableException e = assertThrows(ToolUnavailableException.class, () ->
+                    checkoutService.toolRentalCheckout("LADW", checkoutDate, 3, 0));
+            assertTrue(e.getMessage().contains("2024-03-04 to 2024-03-09"), e.getMessage());
+        }
+        assertEquals(first.dueDate().plusDays(1), checkoutService.toolRentalCheckout("LADW", LocalDate.of(2024, 3, 10), 3, 0).checkoutDate());
+        assertEquals(LocalDate.of(2024, 2, 29), checkoutService.toolRentalCheckout("LADW", LocalDate.of(2024, 2, 26), 3, 0).dueDate());
+        assertEquals(3.0, meterRegistry.get("toolrental.checkout.failures")
+                .tag("exception", "ToolUnavailableException").counter().count());
+    }
+
+    /**
+     * Test a repeated rental is priced from the quote cache without looking up the holidays again
+     */
+    @Test
+    void testQuoteCached() {
+        // Two ladders, as the same ladder cannot be rented twice for the same dates
+        when(mockToolService.getCatalog()).thenReturn(ToolCatalog.compile(
+                Map.of("LADW", new Tool("LADW", "LADDER", "Werner"), "LADR", new Tool("LADR", "LADDER", "Ridgid")),
+                Map.of("LADDER", LADDER), ++catalogVersion));
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2200, 7, 4)));
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        when(mockAppProperties.getTerminalId()).thenReturn(1);
+
+        RentalAgreement first = checkoutService.toolRentalCheckout("LADW", LocalDate.of(2200, 7, 2), 3, 0);
+        RentalAgreement second = checkoutService.toolRentalCheckout("LADR", LocalDate.of(2200, 7, 2), 3, 10);
+
+        assertEquals(2, first.chargeDays());
+        assertEquals(2, second.chargeDays());
+        assertEquals(new BigDecimal("3.98"), second.preDiscountCharge());
+        assertEquals(new BigDecimal("3.58"), second.finalCharge());
+        verify(mockHolidayService).getHolidays("US", 2200, 2200);
+    }
+
+    /**
+     * Test a rental within the business calendar's horizon is priced from the calendar without a quote cache lookup
+     */
+    @Test
+    void testQuoteCacheSkippedWithinCalendar() {
+        givenCatalog(new Tool("LADW", "LADDER", "Werner"), LADDER);
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of());
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        when(mockAppProperties.getTerminalId()).thenReturn(1);
+        BusinessCalendar calendar = new BusinessCalendar(mockHolidayService, mockAppProperties);
+        LocalDate checkoutDate = LocalDate.of(2024, 3, 4);
+        assertTrue(calendar.covers("US", checkoutDate, checkoutDate.plusDays(5)));
+
+        assertEquals(5, checkoutService.toolRentalCheckout("LADW", checkoutDate, 5, 0).chargeDays());
+        assertEquals(0, meterRegistry.find("toolrental.quote.cache.requests").functionCounters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+
+        checkoutService.toolRentalCheckout("LADW", LocalDate.of(2200, 3, 4), 5, 0);
+        assertEquals(1.0, meterRegistry.get("toolrental.quote.cache.requests").tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Test the amounts calculated in cents match the BigDecimal calculation for a range of charges, rental days and discounts
+     */
+    @Test
+    void testChargeCalculationMatchesBigDecimal() {
+        disableReservations();
+        String toolCode = "CHNS";
+        Tool tool = new Tool(toolCode, "CHAINSAW", "Stihl");
+        when(mockHolidayService.getHolidays(anyString(), anyInt(), anyInt())).thenReturn(Set.of(LocalDate.of(2024, 7, 4)));
+        when(mockAppProperties.getStoreId()).thenReturn(1);
+        when(mockAppProperties.getTerminalId()).thenReturn(1);
+
+        for (String charge : new String[] {"0.01", "1.49", "1.99", "2.99", "17.35", "999.99"}) {
+            BigDecimal dailyCharge = new BigDecimal(charge);
+            givenCatalog(tool, new ToolType("CHAINSAW", "Chainsaw", dailyCharge, true, false, true));
+            for (int rentalDays = 1; rentalDays <= 40; rentalDays += 3) {
+                for (int discountPercent = 0; discountPercent <= 100; discountPercent += 7) {
+                    RentalAgreement agreement = checkoutService.toolRentalCheckout(toolCode, LocalDate.of(2024, 6, 28), rentalDays, discountPercent);
+
+                    BigDecimal preDiscountCharge = dailyCharge.multiply(BigDecimal.valueOf(agreement.chargeDays()));
+                    BigDecimal discountAmount = preDiscountCharge.multiply(BigDecimal.valueOf(discountPercent))
+                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                    String message = charge + " for " + rentalDays + " days at " + discountPercent + "%";
+                    assertEquals(0, preDiscountCharge.compareTo(agreement.preDiscountCharge()), message);
+                    assertEquals(discountAmount, agreement.discountAmount(), message);
+                    assertEquals(0, preDiscountCharge.subtract(discountAmount).compareTo(agreement.finalCharge()), message);
+                }
+            }
+        }
+    }
+
     /**
      * Test generation of receipt ID
      */
@@ -235,7 +507,7 @@ class CheckoutServiceTest {
     @Test
     void toolRentalCheckoutWithInvalidRentalDays() {
         String toolCode = "LADW";
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
         Exception exception = assertThrows(InvalidRentalDaysException.class, () ->
                 checkoutService.toolRentalCheckout(toolCode, LocalDate.now(), -1, 10));
         assertTrue(exception.getMessage().contains("Rental days must be greater than zero"));
@@ -247,7 +519,7 @@ class CheckoutServiceTest {
     @Test
     void toolRentalCheckoutWithInvalidDiscountPercent() {
         String toolCode = "LADW";
-        when(mockToolService.toolExists(toolCode)).thenReturn(true);
+        givenCatalog(new Tool(toolCode, "LADDER", "Werner"), LADDER);
         Exception exception = assertThrows(InvalidDiscountPercentException.class, () ->
                 checkoutService.toolRentalCheckout(toolCode, LocalDate.now(), 5, -5));
 
@@ -0,0 +1,133 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayRulesTest {
+
+    private static final HolidayRule INDEPENDENCE_DAY = new HolidayRule("US", "FIXED_DATE", "Independence Day", 7, 4, null, null, "ADJUST_WEEKEND_TO_CLOSEST_WEEKDAY", null, null);
+    private static final HolidayRule LABOR_DAY = new HolidayRule("US", "FIXED_WEEKDAY", "Labor Day", 9, null, 1, 1, null, null, null);
+    private static final HolidayRule MEMORIAL_DAY = new HolidayRule("US", "LAST_WEEKDAY", "Memorial Day", 5, null, 1, null, null, null, null);
+    private static final HolidayRule THANKSGIVING = new HolidayRule("US", "FIXED_WEEKDAY", "Thanksgiving", 11, null, 4, 4, null, null, null);
+    private static final HolidayRule DAY_AFTER_THANKSGIVING = new HolidayRule("US", "RELATIVE_TO_HOLIDAY", "Day after Thanksgiving", null, null, null, null, null, 1, "Thanksgiving");
+    private static final HolidayRule GOOD_FRIDAY = new HolidayRule("US", "EASTER_RELATIVE", "Good Friday", null, null, null, null, null, -2, null);
+
+    private static LocalDate[] evaluate(HolidayRules rules, int year) {
+        long[] epochDays = new long[rules.size()];
+        rules.evaluate(year, epochDays);
+        LocalDate[] dates = new LocalDate[epochDays.length];
+        for (int i = 0; i < epochDays.length; i++) {
+            dates[i] = LocalDate.ofEpochDay(epochDays[i]);
+        }
+        return dates;
+    }
+
+    /**
+     * Test each rule type against known dates
+     */
+    @Test
+    void testRuleTypes() {
+        HolidayRules rules = HolidayRules.compile(List.of(INDEPENDENCE_DAY, LABOR_DAY, MEMORIAL_DAY, DAY_AFTER_THANKSGIVING, THANKSGIVING, GOOD_FRIDAY));
+
+        assertArrayEquals(new LocalDate[] {
+                LocalDate.of(2024, 7, 4), LocalDate.of(2024, 9, 2), LocalDate.of(2024, 5, 27),
+                LocalDate.of(2024, 11, 29), LocalDate.of(2024, 11, 28), LocalDate.of(2024, 3, 29)}, evaluate(rules, 2024));
+        assertArrayEquals(new LocalDate[] {
+                LocalDate.of(2020, 7, 3), LocalDate.of(2020, 9, 7), LocalDate.of(2020, 5, 25),
+                LocalDate.of(2020, 11, 27), LocalDate.of(2020, 11, 26), LocalDate.of(2020, 4, 10)}, evaluate(rules, 2020));
+        assertEquals(THANKSGIVING, rules.getRule(4));
+    }
+
+    /**
+     * Test Easter Sunday against published dates, including the earliest and latest possible
+     */
+    @Test
+    void testEasterSunday() {
+        assertEquals(LocalDate.of(2024, 3, 31), LocalDate.ofEpochDay(HolidayRules.easterSunday(2024)));
+        assertEquals(LocalDate.of(2025, 4, 20), LocalDate.ofEpochDay(HolidayRules.easterSunday(2025)));
+        assertEquals(LocalDate.of(2008, 3, 23), LocalDate.ofEpochDay(HolidayRules.easterSunday(2008)));
+        assertEquals(LocalDate.of(2038, 4, 25), LocalDate.ofEpochDay(HolidayRules.easterSunday(2038)));
+        assertEquals(LocalDate.of(2285, 3, 22), LocalDate.ofEpochDay(HolidayRules.easterSunday(2285)));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.easterSunday(1500));
+        for (int year = 1950; year <= 2150; year++) {
+            assertEquals(DayOfWeek.SUNDAY, LocalDate.ofEpochDay(HolidayRules.easterSunday(year)).getDayOfWeek());
+        }
+    }
+
+    /**
+     * Test the epoch day arithmetic and weekday rules agree with java.time over the calendar's range
+     */
+    @Test
+    void testMatchesJavaTime() {
+        HolidayRules rules = HolidayRules.compile(List.of(LABOR_DAY, MEMORIAL_DAY,
+                new HolidayRule("US", "FIXED_DATE", "New Year's Day", 1, 1, null, null, "", null, null),
+                new HolidayRule("US", "FIXED_DATE", "Christmas Day", 12, 25, null, null, "ADJUST_WEEKEND_TO_MONDAY", null, null)));
+        for (int year = 1950; year <= 2150; year++) {
+            LocalDate christmas = LocalDate.of(year, 12, 25);
+            if (christmas.getDayOfWeek().getValue() > 5) {
+                christmas = christmas.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+            }
+            assertArrayEquals(new LocalDate[] {
+                    LocalDate.of(year, 9, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.MONDAY)),
+                    LocalDate.of(year, 5, 1).with(TemporalAdjusters.lastInMonth(DayOfWeek.MONDAY)),
+                    LocalDate.of(year, 1, 1),
+                    christmas}, evaluate(rules, year), "Year " + year);
+            assertEquals(LocalDate.of(year, 3, 1).toEpochDay(), HolidayRules.epochDay(year, 3, 1));
+        }
+    }
+
+    /**
+     * Test invalid rules are rejected when compiled
+     */
+    @Test
+    void testInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "FLOATING", "Unknown", 1, 1, null, null, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "FIXED_DATE", "No day", 1, null, null, null, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "FIXED_DATE", "Leap day", 2, 29, null, null, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "FIXED_DATE", "Bad adjuster", 7, 4, null, null, "ADJUST_WEEKEND_TO_TUESDAY", null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "FIXED_WEEKDAY", "Fifth Monday", 9, null, 1, 5, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "LAST_WEEKDAY", "Bad weekday", 5, null, 8, null, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "EASTER_RELATIVE", "No offset", null, null, null, null, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(LABOR_DAY, LABOR_DAY)));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule(null, null, "No type", 1, 1, null, null, null, null, null))));
+    }
+
+    /**
+     * Test relative rules must name a holiday in the same country and must not form a cycle
+     */
+    @Test
+    void testInvalidReferences() {
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(DAY_AFTER_THANKSGIVING)));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(DAY_AFTER_THANKSGIVING,
+                new HolidayRule("CA", "FIXED_WEEKDAY", "Thanksgiving", 10, null, 1, 2, null, null, null))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "RELATIVE_TO_HOLIDAY", "A", null, null, null, null, null, 1, "B"),
+                new HolidayRule("US", "RELATIVE_TO_HOLIDAY", "B", null, null, null, null, null, 1, "A"))));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.compile(List.of(
+                new HolidayRule("US", "RELATIVE_TO_HOLIDAY", "A", null, null, null, null, null, 1, null))));
+    }
+
+    /**
+     * Test no rules compile to an empty rule set
+     */
+    @Test
+    void testNoRules() {
+        assertEquals(0, HolidayRules.compile(null).size());
+        assertEquals(0, evaluate(HolidayRules.compile(List.of()), 2024).length);
+    }
+}
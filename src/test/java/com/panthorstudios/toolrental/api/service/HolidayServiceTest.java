@@ -1,5 +1,6 @@
 package com.panthorstudios.toolrental.api.service;
 
+import com.panthorstudios.toolrental.api.domain.HolidayRule;
 import com.panthorstudios.toolrental.properties.AppProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -92,4 +94,123 @@ class HolidayServiceTest {
         assertEquals(LocalDate.of(2024,9,2), holidayService.calculateHolidayDate(2024, appProperties.getHolidayRulesList().get(1)));
     }
 
+    /**
+     * Test that a year is calculated once and then served from the cache
+     */
+    @Test
+    void testGetHolidays_cachesPerYear() {
+        holidayService.getHolidays(2024, 2024);
+        assertEquals(0, holidayService.getCacheHits());
+        assertEquals(1, holidayService.getCacheMisses());
+
+        Set<LocalDate> holidays = holidayService.getHolidays(2024, 2024);
+        assertEquals(1, holidayService.getCacheHits());
+        assertEquals(1, holidayService.getCacheMisses());
+        assertThrows(UnsupportedOperationException.class, () -> holidays.add(LocalDate.of(2024, 1, 1)));
+    }
+
+    /**
+     * Test that years outside the calendar range are calculated every time rather than cached
+     */
+    @Test
+    void testGetHolidays_yearsOutsideCalendarNotCached() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(appProperties.getHolidayRulesList());
+        properties.getCalendar().setStartYear(2000);
+        properties.getCalendar().setEndYear(2100);
+        HolidayService service = new HolidayService(properties);
+
+        Set<LocalDate> holidays = service.getHolidays(2200, 2200);
+        assertTrue(holidays.contains(LocalDate.of(2200, 7, 4)));
+        assertEquals(holidays, service.getHolidays(2200, 2200));
+        assertEquals(0, service.getCacheHits());
+        assertEquals(2, service.getCacheMisses());
+
+        service.getHolidays(2100, 2100);
+        service.getHolidays(2100, 2100);
+        assertEquals(1, service.getCacheHits());
+    }
+
+    /**
+     * Test that a multi-year range is combined from the cached years
+     */
+    @Test
+    void testGetHolidays_multiYearRangeCombinesCachedYears() {
+        holidayService.getHolidays(2023, 2023);
+        Set<LocalDate> holidays = holidayService.getHolidays(2023, 2024);
+
+        assertEquals(4, holidays.size());
+        assertTrue(holidays.contains(LocalDate.of(2023, 9, 4)));
+        assertTrue(holidays.contains(LocalDate.of(2024, 7, 4)));
+        assertEquals(1, holidayService.getCacheHits());
+        assertEquals(2, holidayService.getCacheMisses());
+    }
+
+    /**
+     * Test that the cache is rebuilt when the holiday rules list is replaced or explicitly invalidated
+     */
+    @Test
+    void testGetHolidays_invalidatedWhenRulesChange() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(List.of(appProperties.getHolidayRulesList().get(0)));
+        HolidayService service = new HolidayService(properties);
+        assertEquals(Set.of(LocalDate.of(2024, 7, 4)), service.getHolidays(2024, 2024));
+
+        properties.setHolidayRulesList(appProperties.getHolidayRulesList());
+        assertEquals(Set.of(LocalDate.of(2024, 7, 4), LocalDate.of(2024, 9, 2)), service.getHolidays(2024, 2024));
+        assertEquals(2, service.getCacheMisses());
+
+        service.invalidateCache();
+        service.getHolidays(2024, 2024);
+        assertEquals(3, service.getCacheMisses());
+    }
+
+    /**
+     * Test that an invalid holiday rule is rejected when the service is created, not when holidays are requested
+     */
+    @Test
+    void testInvalidRuleFailsAtStartup() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(List.of(new HolidayRule("US", "FLOATING", "Unknown", 1, 1, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> new HolidayService(properties));
+    }
+
+    /**
+     * Test that the newer rule types are included in a year's holidays
+     */
+    @Test
+    void testGetHolidays_compiledRuleTypes() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(List.of(
+                new HolidayRule("US", "LAST_WEEKDAY", "Memorial Day", 5, null, 1, null, null, null, null),
+                new HolidayRule("US", "FIXED_WEEKDAY", "Thanksgiving", 11, null, 4, 4, null, null, null),
+                new HolidayRule("US", "RELATIVE_TO_HOLIDAY", "Day after Thanksgiving", null, null, null, null, null, 1, "Thanksgiving"),
+                new HolidayRule("US", "EASTER_RELATIVE", "Good Friday", null, null, null, null, null, -2, null)));
+        HolidayService service = new HolidayService(properties);
+
+        assertEquals(Set.of(LocalDate.of(2024, 5, 27), LocalDate.of(2024, 11, 28), LocalDate.of(2024, 11, 29), LocalDate.of(2024, 3, 29)),
+                service.getHolidays(2024, 2024));
+    }
+
+    /**
+     * Test that each country gets its own rules plus the rules without a country, and a country without rules
+     * gets only the shared ones
+     */
+    @Test
+    void testGetHolidays_perCountry() {
+        AppProperties properties = new AppProperties(appProperties.getToolsMap(), appProperties.getToolTypesMap());
+        properties.setHolidayRulesList(List.of(
+                new HolidayRule(null, "FIXED_DATE", "New Year's Day", 1, 1, null, null, null, null, null),
+                new HolidayRule("US", "FIXED_DATE", "Independence Day", 7, 4, null, null, null, null, null),
+                new HolidayRule("CA", "FIXED_DATE", "Canada Day", 7, 1, null, null, null, null, null),
+                new HolidayRule("CA", "RELATIVE_TO_HOLIDAY", "Day after New Year's Day", null, null, null, null, null, 1, "New Year's Day")));
+        HolidayService service = new HolidayService(properties);
+
+        assertEquals(Set.of("US", "CA"), service.getCountryCodes());
+        assertEquals(Set.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 7, 4)), service.getHolidays("US", 2024, 2024));
+        assertEquals(Set.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), LocalDate.of(2024, 7, 1)), service.getHolidays("CA", 2024, 2024));
+        assertEquals(Set.of(LocalDate.of(2024, 1, 1)), service.getHolidays("MX", 2024, 2024));
+        assertEquals(service.getHolidays("US", 2024, 2024), service.getHolidays(2024, 2024));
+        assertEquals(3, service.getCacheMisses());
+    }
 }
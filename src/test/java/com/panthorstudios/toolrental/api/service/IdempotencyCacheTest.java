@@ -0,0 +1,277 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.RentalAgreement;
+import com.panthorstudios.toolrental.api.domain.RentalAgreementRequest;
+import com.panthorstudios.toolrental.api.exception.IdempotencyKeyReusedException;
+import com.panthorstudios.toolrental.api.exception.InvalidRentalDaysException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private static final RentalAgreementRequest REQUEST = new RentalAgreementRequest("LADW", LocalDate.of(2020, 7, 2), 3, 10);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private IdempotencyCache cache(int maximumSize, long ttlSeconds) {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getIdempotency().setMaximumSize(maximumSize);
+        appProperties.getIdempotency().setTtlSeconds(ttlSeconds);
+        return new IdempotencyCache(appProperties, registry, clock::get);
+    }
+
+    private static RentalAgreement agreement(String id) {
+        return new RentalAgreement(id, "LADW", "Ladder", "Werner", 3, LocalDate.of(2020, 7, 2), 10,
+                LocalDate.of(2020, 7, 5), 2, new BigDecimal("1.99"), new BigDecimal("3.98"),
+                new BigDecimal("0.40"), new BigDecimal("3.58"), 1, 0);
+    }
+
+    /**
+     * Test a replayed key returns the first agreement without checking out again
+     */
+    @Test
+    void testReplay() {
+        IdempotencyCache cache = cache(10, 60);
+        AtomicInteger checkouts = new AtomicInteger();
+
+        RentalAgreement first = cache.getOrCheckout("key-1", REQUEST, () -> agreement("A" + checkouts.incrementAndGet()));
+        RentalAgreement replay = cache.getOrCheckout("key-1", REQUEST, () -> agreement("A" + checkouts.incrementAndGet()));
+        RentalAgreement other = cache.getOrCheckout("key-2", REQUEST, () -> agreement("A" + checkouts.incrementAndGet()));
+
+        assertSame(first, replay);
+        assertEquals("A1", replay.rentalAgreementId());
+        assertEquals("A2", other.rentalAgreementId());
+        assertEquals(2, checkouts.get());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1.0, registry.get("toolrental.idempotency.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, registry.get("toolrental.idempotency.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0, registry.get("toolrental.idempotency.size").gauge().value());
+    }
+
+    /**
+     * Test a key reused for a different request is rejected, and the first agreement is kept for the first request
+     */
+    @Test
+    void testKeyReusedForDifferentRequest() {
+        IdempotencyCache cache = cache(10, 60);
+        cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+
+        RentalAgreementRequest otherRequest = new RentalAgreementRequest("LADW", LocalDate.of(2020, 7, 2), 4, 10);
+        assertThrows(IdempotencyKeyReusedException.class, () -> cache.getOrCheckout("key-1", otherRequest, () -> agreement("A2")));
+        assertEquals("A1", cache.getOrCheckout("key-1", new RentalAgreementRequest("LADW", LocalDate.of(2020, 7, 2), 3, 10),
+                () -> agreement("A3")).rentalAgreementId());
+        assertEquals(1, cache.hitCount());
+    }
+
+    /**
+     * Test concurrent requests with the same key share a single checkout
+     */
+    @Test
+    void testConcurrentDuplicatesCoalesce() throws Exception {
+        IdempotencyCache cache = cache(10, 60);
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch checkoutStarted = new CountDownLatch(1);
+        CountDownLatch releaseCheckout = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<RentalAgreement> owner = executor.submit(() -> cache.getOrCheckout("key-1", REQUEST, () -> {
+                checkouts.incrementAndGet();
+                checkoutStarted.countDown();
+                try {
+                    releaseCheckout.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return agreement("A1");
+            }));
+            assertTrue(checkoutStarted.await(5, TimeUnit.SECONDS));
+            List<Future<RentalAgreement>> duplicates = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                duplicates.add(executor.submit(() -> cache.getOrCheckout("key-1", REQUEST, () -> agreement("A" + (checkouts.incrementAndGet())))));
+            }
+            releaseCheckout.countDown();
+
+            RentalAgreement first = owner.get(5, TimeUnit.SECONDS);
+            for (Future<RentalAgreement> duplicate : duplicates) {
+                assertSame(first, duplicate.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, checkouts.get());
+            assertEquals(7, cache.hitCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test a failed checkout is not remembered and can be retried with the same key
+     */
+    @Test
+    void testFailureNotCached() {
+        IdempotencyCache cache = cache(10, 60);
+
+        assertThrows(InvalidRentalDaysException.class, () -> cache.getOrCheckout("key-1", REQUEST, () -> {
+            throw new InvalidRentalDaysException();
+        }));
+        assertEquals(0, cache.size());
+
+        RentalAgreement retried = cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+        assertEquals("A1", retried.rentalAgreementId());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    /**
+     * Test failed checkouts do not count towards the maximum size, so they never evict remembered keys
+     */
+    @Test
+    void testFailuresDoNotEvict() {
+        IdempotencyCache cache = cache(3, 60);
+        cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+        for (int i = 0; i < 10; i++) {
+            assertThrows(InvalidRentalDaysException.class, () -> cache.getOrCheckout("failing", REQUEST, () -> {
+                throw new InvalidRentalDaysException();
+            }));
+        }
+        cache.getOrCheckout("key-2", REQUEST, () -> agreement("A2"));
+
+        assertEquals(0, cache.evictionCount());
+        assertEquals("A1", cache.getOrCheckout("key-1", REQUEST, () -> agreement("A3")).rentalAgreementId());
+    }
+
+    /**
+     * Test that failed checkouts piling up behind a live key are swept out without it, and the live keys are then
+     * evicted oldest first once the cache is over its maximum size
+     */
+    @Test
+    void testFailedEntriesSweptWithoutEvicting() {
+        IdempotencyCache cache = cache(3, 60);
+        cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+        for (int i = 0; i < 50; i++) {
+            assertThrows(InvalidRentalDaysException.class, () -> cache.getOrCheckout("failing", REQUEST, () -> {
+                throw new InvalidRentalDaysException();
+            }));
+            cache.getOrCheckout("probe", REQUEST, () -> agreement("P"));
+        }
+        assertEquals(0, cache.evictionCount());
+
+        cache.getOrCheckout("key-2", REQUEST, () -> agreement("A2"));
+        cache.getOrCheckout("key-3", REQUEST, () -> agreement("A3"));
+
+        assertEquals(1, cache.evictionCount());
+        assertEquals(3, cache.size());
+        assertEquals("A4", cache.getOrCheckout("key-1", REQUEST, () -> agreement("A4")).rentalAgreementId());
+    }
+
+    /**
+     * Test an entry whose checkout is still running is not evicted when the cache is full or its time is up,
+     * so a retry waits for it instead of checking out again
+     */
+    @Test
+    void testRunningCheckoutNotEvicted() throws Exception {
+        IdempotencyCache cache = cache(1, 60);
+        CountDownLatch checkoutStarted = new CountDownLatch(1);
+        CountDownLatch releaseCheckout = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<RentalAgreement> running = executor.submit(() -> cache.getOrCheckout("key-1", REQUEST, () -> {
+                checkoutStarted.countDown();
+                try {
+                    releaseCheckout.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return agreement("A1");
+            }));
+            assertTrue(checkoutStarted.await(5, TimeUnit.SECONDS));
+            cache.getOrCheckout("key-2", REQUEST, () -> agreement("A2"));
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+            cache.getOrCheckout("key-3", REQUEST, () -> agreement("A3"));
+            assertEquals(0, cache.evictionCount());
+
+            Future<RentalAgreement> retry = executor.submit(() -> cache.getOrCheckout("key-1", REQUEST, () -> agreement("A4")));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.hitCount() == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            releaseCheckout.countDown();
+            assertEquals("A1", running.get(5, TimeUnit.SECONDS).rentalAgreementId());
+            assertEquals("A1", retry.get(5, TimeUnit.SECONDS).rentalAgreementId());
+
+            // Once it has finished, the expired and extra entries go
+            cache.getOrCheckout("key-4", REQUEST, () -> agreement("A5"));
+            assertEquals(1, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test an expired key checks out again
+     */
+    @Test
+    void testExpiry() {
+        IdempotencyCache cache = cache(10, 60);
+        cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+        cache.getOrCheckout("key-2", REQUEST, () -> agreement("A2"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("A1", cache.getOrCheckout("key-1", REQUEST, () -> agreement("A3")).rentalAgreementId());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("A4", cache.getOrCheckout("key-1", REQUEST, () -> agreement("A4")).rentalAgreementId());
+        // key-2 expired at the same time and was evicted with key-1's first entry
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.evictionCount());
+        assertEquals(2.0, registry.get("toolrental.idempotency.evictions").functionCounter().count());
+    }
+
+    /**
+     * Test the oldest keys are evicted once the cache is full
+     */
+    @Test
+    void testMaximumSize() {
+        IdempotencyCache cache = cache(3, 60);
+        for (int i = 1; i <= 5; i++) {
+            String id = "A" + i;
+            cache.getOrCheckout("key-" + i, REQUEST, () -> agreement(id));
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.evictionCount());
+        assertEquals("A6", cache.getOrCheckout("key-1", REQUEST, () -> agreement("A6")).rentalAgreementId());
+        assertEquals("A5", cache.getOrCheckout("key-5", REQUEST, () -> agreement("A7")).rentalAgreementId());
+    }
+
+    /**
+     * Test no meters are registered when metrics are disabled
+     */
+    @Test
+    void testMetricsDisabled() {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getMetrics().setEnabled(false);
+        IdempotencyCache cache = new IdempotencyCache(appProperties, registry);
+
+        cache.getOrCheckout("key-1", REQUEST, () -> agreement("A1"));
+
+        assertEquals(1, cache.missCount());
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
@@ -0,0 +1,204 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteCacheTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2024, 6, 28);
+
+    @Mock
+    private HolidayService mockHolidayService;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger calculations = new AtomicInteger();
+
+    private QuoteCache cache(boolean enabled, int maximumSize) {
+        AppProperties appProperties = new AppProperties(Map.of(), Map.of());
+        appProperties.getQuoteCache().setEnabled(enabled);
+        appProperties.getQuoteCache().setMaximumSize(maximumSize);
+        return new QuoteCache(appProperties, mockHolidayService, registry);
+    }
+
+    private CheckoutService.ChargeDetails quote(QuoteCache cache, long catalogVersion, int rentalDays) {
+        return cache.getQuote(catalogVersion, "US", "LADDER", CHECKOUT_DATE, rentalDays, () -> {
+            calculations.incrementAndGet();
+            return new CheckoutService.ChargeDetails(new Money(199L * rentalDays), rentalDays);
+        });
+    }
+
+    /**
+     * Test a repeated quote is served from the cache
+     */
+    @Test
+    void testHit() {
+        QuoteCache cache = cache(true, 100);
+
+        CheckoutService.ChargeDetails first = quote(cache, 1, 5);
+        CheckoutService.ChargeDetails second = quote(cache, 1, 5);
+        quote(cache, 1, 6);
+
+        assertSame(first, second);
+        assertEquals(2, calculations.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.size());
+        assertEquals(1.0, registry.get("toolrental.quote.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, registry.get("toolrental.quote.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(2.0 * QuoteCache.ESTIMATED_ENTRY_BYTES, registry.get("toolrental.quote.cache.memory").gauge().value());
+    }
+
+    /**
+     * Test that concurrent misses for different rentals never take the cache past its maximum size
+     */
+    @Test
+    void testConcurrentMissesStayWithinMaximumSize() throws InterruptedException {
+        QuoteCache cache = cache(true, 10);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger largestSize = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            int first = thread * 250;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int rentalDays = first + 1; rentalDays <= first + 250; rentalDays++) {
+                    quote(cache, 1, rentalDays);
+                    largestSize.accumulateAndGet(cache.size(), Math::max);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(10, largestSize.get());
+        assertEquals(10, cache.size());
+    }
+
+    /**
+     * Test the cache is dropped when the catalog version or the holiday rules change
+     */
+    @Test
+    void testInvalidation() {
+        QuoteCache cache = cache(true, 100);
+        quote(cache, 1, 5);
+
+        quote(cache, 2, 5);
+        assertEquals(2, calculations.get());
+
+        when(mockHolidayService.getRulesGeneration()).thenReturn(1L);
+        quote(cache, 2, 5);
+        assertEquals(3, calculations.get());
+
+        quote(cache, 2, 5);
+        assertEquals(3, calculations.get());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test the same rental is quoted separately for each country
+     */
+    @Test
+    void testKeyedByCountry() {
+        QuoteCache cache = cache(true, 100);
+        quote(cache, 1, 5);
+
+        cache.getQuote(1, "CA", "LADDER", CHECKOUT_DATE, 5, () -> {
+            calculations.incrementAndGet();
+            return new CheckoutService.ChargeDetails(new Money(199L * 4), 4);
+        });
+        CheckoutService.ChargeDetails us = quote(cache, 1, 5);
+
+        assertEquals(2, calculations.get());
+        assertEquals(5, us.days());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test a quote calculated from an older catalog is not cached
+     */
+    @Test
+    void testOlderCatalogNotCached() {
+        QuoteCache cache = cache(true, 100);
+        quote(cache, 2, 5);
+
+        quote(cache, 1, 6);
+        quote(cache, 1, 6);
+
+        assertEquals(3, calculations.get());
+        assertEquals(1, cache.size());
+        quote(cache, 2, 5);
+        assertEquals(3, calculations.get());
+    }
+
+    /**
+     * Test a full cache keeps its frequently requested quotes rather than admitting one-off requests
+     */
+    @Test
+    void testFrequencyAwareEviction() {
+        QuoteCache cache = cache(true, 4);
+        for (int i = 0; i < 5; i++) {
+            for (int rentalDays = 1; rentalDays <= 4; rentalDays++) {
+                quote(cache, 1, rentalDays);
+            }
+        }
+        assertEquals(4, calculations.get());
+
+        // Requested once each, so none of them displaces a popular quote
+        for (int rentalDays = 100; rentalDays < 110; rentalDays++) {
+            quote(cache, 1, rentalDays);
+        }
+        assertEquals(0, cache.evictionCount());
+        for (int rentalDays = 1; rentalDays <= 4; rentalDays++) {
+            quote(cache, 1, rentalDays);
+        }
+        assertEquals(14, calculations.get());
+
+        // A quote that becomes popular eventually replaces the oldest one
+        for (int i = 0; i < 10; i++) {
+            quote(cache, 1, 200);
+        }
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.evictionCount());
+        int before = calculations.get();
+        quote(cache, 1, 200);
+        assertEquals(before, calculations.get());
+    }
+
+    /**
+     * Test every quote is calculated and nothing is registered when the cache is disabled
+     */
+    @Test
+    void testDisabled() {
+        QuoteCache cache = cache(false, 100);
+
+        quote(cache, 1, 5);
+        quote(cache, 1, 5);
+
+        assertFalse(cache.isEnabled());
+        assertEquals(2, calculations.get());
+        assertEquals(0, cache.size());
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
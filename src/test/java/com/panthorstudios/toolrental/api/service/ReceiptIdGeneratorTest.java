@@ -0,0 +1,143 @@
+package com.panthorstudios.toolrental.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptIdGeneratorTest {
+
+    private final AtomicLong clock = new AtomicLong(1711154921145L); // LU3DGJAX
+    private final ReceiptIdGenerator generator = new ReceiptIdGenerator(clock::get);
+
+    /**
+     * Test that the format matches the TIMESTAMP-SSSTT shape, with zero padding
+     */
+    @Test
+    void format_matchesReceiptShape() {
+        assertEquals("LU3DGJAX-XYZAB", generator.format(1711154921145L, 44027, 371));
+        assertEquals("LU3DGJAX-00101", generator.format(1711154921145L, 1, 1));
+        assertEquals("0-00000", generator.format(0, 0, 0));
+        assertEquals("LU3DGJAX-00101", generator.format(1711154921145L, 1, 1, 0));
+        assertEquals("LU3DGJAX-00101-2S", generator.format(1711154921145L, 1, 1, 100));
+        assertThrows(IllegalArgumentException.class, () -> generator.format(1, -1, 1));
+    }
+
+    /**
+     * Test that checkouts in the same millisecond on one terminal get distinct IDs with the same timestamp
+     */
+    @Test
+    void nextReceiptId_sameMillisecond() {
+        String first = generator.nextReceiptId(1, 1);
+        String second = generator.nextReceiptId(1, 1);
+        String otherTerminal = generator.nextReceiptId(1, 2);
+
+        assertEquals("LU3DGJAX-00101", first);
+        assertEquals("LU3DGJAX-00101-1", second);
+        assertEquals("LU3DGJAX-00102", otherTerminal);
+    }
+
+    /**
+     * Test that IDs keep increasing when the clock moves backwards
+     */
+    @Test
+    void nextReceiptId_clockMovesBackwards() {
+        generator.nextReceiptId(1, 1);
+        clock.addAndGet(-5000);
+        assertEquals(new ReceiptIdGenerator.ReceiptId(1711154921145L, 1, 1, 1), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+        assertEquals(new ReceiptIdGenerator.ReceiptId(1711154921145L, 1, 1, 2), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+
+        clock.set(1711154921200L);
+        assertEquals(new ReceiptIdGenerator.ReceiptId(1711154921200L, 1, 1, 0), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+    }
+
+    /**
+     * Test that timestamps past 2^41 ms (September 2039) still advance with the clock and are formatted as given
+     */
+    @Test
+    void nextReceiptId_farFutureClock() {
+        long later = (1L << 41) + 12345;
+        clock.set(later);
+        assertEquals(new ReceiptIdGenerator.ReceiptId(later, 1, 1, 0), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+        assertEquals(new ReceiptIdGenerator.ReceiptId(later, 1, 1, 1), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+
+        clock.set(later + 1);
+        assertEquals(new ReceiptIdGenerator.ReceiptId(later + 1, 1, 1, 0), ReceiptIdGenerator.parse(generator.nextReceiptId(1, 1)));
+    }
+
+    /**
+     * Test that more than 1000 IDs a millisecond on one terminal keep the timestamp of the clock, and only the
+     * sequence counts up
+     */
+    @Test
+    void nextReceiptId_timestampsFollowClock() {
+        // The clock ticks every 3000 reads, and each ID reads it once
+        AtomicLong reads = new AtomicLong();
+        long start = clock.get();
+        ReceiptIdGenerator fastGenerator = new ReceiptIdGenerator(() -> start + reads.getAndIncrement() / 3000);
+
+        ReceiptIdGenerator.ReceiptId previous = null;
+        long maxSequence = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long before = start + reads.get() / 3000;
+            ReceiptIdGenerator.ReceiptId receiptId = ReceiptIdGenerator.parse(fastGenerator.nextReceiptId(1, 1));
+            assertEquals(before, receiptId.timestampMs());
+            if (previous != null) {
+                assertTrue(receiptId.timestampMs() > previous.timestampMs()
+                        || receiptId.sequence() == previous.sequence() + 1, previous + " then " + receiptId);
+            }
+            maxSequence = Math.max(maxSequence, receiptId.sequence());
+            previous = receiptId;
+        }
+        assertEquals(2999, maxSequence);
+        assertEquals(start + 3, previous.timestampMs());
+    }
+
+    /**
+     * Test that concurrent callers on one terminal never get the same ID
+     */
+    @Test
+    void nextReceiptId_uniqueUnderConcurrency() throws InterruptedException {
+        ReceiptIdGenerator systemClockGenerator = new ReceiptIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 2000; i++) {
+                    ids.add(systemClockGenerator.nextReceiptId(1, 1));
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(16000, ids.size());
+    }
+
+    /**
+     * Test that a formatted ID parses back to its parts
+     */
+    @Test
+    void parse_roundTrip() {
+        assertEquals(new ReceiptIdGenerator.ReceiptId(1711154921145L, 44027, 371, 0), ReceiptIdGenerator.parse("LU3DGJAX-XYZAB"));
+        assertEquals(new ReceiptIdGenerator.ReceiptId(1711154921145L, 44027, 371, 100), ReceiptIdGenerator.parse("LU3DGJAX-XYZAB-2S"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptIdGenerator.parse("LU3DGJAX"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptIdGenerator.parse("LU3DGJAX-XY!AB"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptIdGenerator.parse("LU3DGJAX-XYZAB-"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptIdGenerator.parse("LU3DGJAX-XYZAB--1"));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptIdGenerator.parse("LU3DGJAX-XYZ-1"));
+    }
+}
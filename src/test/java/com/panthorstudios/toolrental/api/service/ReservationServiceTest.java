@@ -0,0 +1,190 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Reservation;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import com.panthorstudios.toolrental.api.exception.ToolUnavailableException;
+import com.panthorstudios.toolrental.properties.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationServiceTest {
+
+    private static final LocalDate MARCH_4 = LocalDate.of(2024, 3, 4);
+
+    private AppProperties appProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private LocalDate today;
+    private ReservationService reservations;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Tool> tools = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tools.put("LAD" + i, new Tool("LAD" + i, "LADDER", "Werner"));
+            tools.put("JAK" + i, new Tool("JAK" + i, "JACKHAMMER", "Ridgid"));
+        }
+        appProperties = new AppProperties(tools, Map.of(
+                "LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false),
+                "JACKHAMMER", new ToolType("JACKHAMMER", "Jackhammer", new BigDecimal("2.99"), true, false, false)));
+        meterRegistry = new SimpleMeterRegistry();
+        today = MARCH_4.minusDays(7);
+        reservations = new ReservationService(new ToolService(appProperties), appProperties, meterRegistry, () -> today);
+    }
+
+    /**
+     * Test a booking blocks every range that shares a day with it, including its first and last days, and a release frees it
+     */
+    @Test
+    void testOverlaps() {
+        Reservation booked = reservations.reserve("LAD1", MARCH_4, MARCH_4.plusDays(5), "A1");
+
+        for (int[] range : new int[][] {{0, 5}, {-3, 0}, {5, 8}, {1, 2}, {-1, 9}}) {
+            assertThrows(ToolUnavailableException.class, () ->
+                    reservations.reserve("LAD1", MARCH_4.plusDays(range[0]), MARCH_4.plusDays(range[1]), "A2"));
+            assertFalse(reservations.isAvailable("LAD1", MARCH_4.plusDays(range[0]), MARCH_4.plusDays(range[1])));
+        }
+        assertNotNull(reservations.reserve("LAD1", MARCH_4.minusDays(3), MARCH_4.minusDays(1), "A3"));
+        assertNotNull(reservations.reserve("LAD1", MARCH_4.plusDays(6), MARCH_4.plusDays(10), "A4"));
+        assertNotNull(reservations.reserve("LAD2", MARCH_4, MARCH_4.plusDays(5), "A5"), "Other tools are not affected");
+        assertEquals(4.0, meterRegistry.get("toolrental.reservations").gauge().value());
+
+        reservations.release(booked);
+        reservations.release(booked);
+        assertTrue(reservations.isAvailable("LAD1", MARCH_4, MARCH_4.plusDays(5)));
+        assertEquals(3.0, meterRegistry.get("toolrental.reservations").gauge().value());
+        assertNotNull(reservations.reserve("LAD1", MARCH_4.plusDays(1), MARCH_4.plusDays(2), "A6"));
+    }
+
+    /**
+     * Test nothing is booked when reservations are disabled
+     */
+    @Test
+    void testDisabled() {
+        appProperties.getReservations().setEnabled(false);
+        ReservationService disabled = new ReservationService(new ToolService(appProperties), appProperties, meterRegistry);
+
+        assertNull(disabled.reserve("LAD1", MARCH_4, MARCH_4.plusDays(5), "A1"));
+        assertNull(disabled.reserve("LAD1", MARCH_4, MARCH_4.plusDays(5), "A2"));
+        assertTrue(disabled.isAvailable("LAD1", MARCH_4, MARCH_4));
+    }
+
+    /**
+     * Test booking a tool drops its bookings whose due date has passed, and a rental that is already over is not booked
+     */
+    @Test
+    void testOverBookingsDropped() {
+        reservations.reserve("LAD1", MARCH_4, MARCH_4.plusDays(2), "A1");
+        reservations.reserve("LAD1", MARCH_4.plusDays(3), MARCH_4.plusDays(5), "A2");
+        Reservation later = reservations.reserve("LAD1", MARCH_4.plusDays(10), MARCH_4.plusDays(12), "A3");
+        assertEquals(3.0, meterRegistry.get("toolrental.reservations").gauge().value());
+
+        today = MARCH_4.plusDays(6);
+        assertNull(reservations.reserve("LAD1", MARCH_4, MARCH_4.plusDays(5), "A4"), "A rental that is over is not booked");
+        assertNotNull(reservations.reserve("LAD1", MARCH_4.plusDays(6), MARCH_4.plusDays(9), "A5"));
+        assertEquals(2.0, meterRegistry.get("toolrental.reservations").gauge().value());
+        assertThrows(ToolUnavailableException.class, () -> reservations.reserve("LAD1", MARCH_4.plusDays(12), MARCH_4.plusDays(14), "A6"));
+
+        reservations.release(later);
+        assertEquals(1.0, meterRegistry.get("toolrental.reservations").gauge().value());
+    }
+
+    /**
+     * Test concurrent bookings of the same tools never overlap, and exactly one of many identical requests wins
+     */
+    @Test
+    void testConcurrentBookings() throws Exception {
+        int threads = 16;
+        ConcurrentLinkedQueue<Reservation> booked = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2000; i++) {
+                        String toolCode = "LAD" + random.nextInt(3);
+                        LocalDate checkoutDate = MARCH_4.plusDays(random.nextInt(365));
+                        try {
+                            booked.add(reservations.reserve(toolCode, checkoutDate, checkoutDate.plusDays(1 + random.nextInt(6)), thread + "-" + i));
+                        } catch (ToolUnavailableException e) {
+                            // Lost to another booking
+                        }
+                    }
+                    try {
+                        booked.add(reservations.reserve("JAK1", MARCH_4, MARCH_4.plusDays(3), thread + "-same"));
+                    } catch (ToolUnavailableException e) {
+                        // Lost to another thread
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, List<Reservation>> byTool = new HashMap<>();
+        booked.forEach(reservation -> byTool.computeIfAbsent(reservation.toolCode(), code -> new ArrayList<>()).add(reservation));
+        assertEquals(1, byTool.get("JAK1").size());
+        for (List<Reservation> toolReservations : byTool.values()) {
+            toolReservations.sort((a, b) -> a.checkoutDate().compareTo(b.checkoutDate()));
+            for (int i = 1; i < toolReservations.size(); i++) {
+                assertTrue(toolReservations.get(i).checkoutDate().isAfter(toolReservations.get(i - 1).dueDate()),
+                        toolReservations.get(i - 1) + " overlaps " + toolReservations.get(i));
+            }
+        }
+        assertEquals(booked.size(), meterRegistry.get("toolrental.reservations").gauge().value());
+    }
+
+    /**
+     * Test the free tools of a type are paged in code order, skipping tools booked for any day of the range
+     */
+    @Test
+    void testFindAvailable() {
+        reservations.reserve("LAD1", MARCH_4, MARCH_4.plusDays(5), "A1");
+        reservations.reserve("LAD4", MARCH_4.plusDays(5), MARCH_4.plusDays(8), "A2");
+        reservations.reserve("JAK2", MARCH_4, MARCH_4.plusDays(5), "A3");
+
+        List<String> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            ToolPage page = reservations.findAvailable("LADDER", MARCH_4.plusDays(2), MARCH_4.plusDays(5), cursor, 3);
+            assertTrue(page.tools().size() <= 3);
+            page.tools().forEach(tool -> found.add(tool.code()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("LAD0", "LAD2", "LAD3", "LAD5", "LAD6", "LAD7", "LAD8", "LAD9"), found);
+
+        assertEquals(9, reservations.findAvailable("LADDER", MARCH_4.plusDays(6), MARCH_4.plusDays(6), null, 50).tools().size());
+        assertEquals(18, reservations.findAvailable(null, MARCH_4, MARCH_4, null, 50).tools().size());
+        assertTrue(reservations.findAvailable("NONE", MARCH_4, MARCH_4, null, 50).tools().isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> reservations.findAvailable("LADDER", MARCH_4, MARCH_4.minusDays(1), null, 50));
+        assertThrows(IllegalArgumentException.class, () -> reservations.findAvailable("LADDER", null, MARCH_4, null, 50));
+        assertThrows(IllegalArgumentException.class, () -> reservations.findAvailable("LADDER", MARCH_4, MARCH_4, null, 0));
+    }
+}
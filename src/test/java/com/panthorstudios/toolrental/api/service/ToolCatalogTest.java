@@ -0,0 +1,141 @@
+package com.panthorstudios.toolrental.api.service;
+
+import com.panthorstudios.toolrental.api.domain.Money;
+import com.panthorstudios.toolrental.api.domain.Tool;
+import com.panthorstudios.toolrental.api.domain.ToolPage;
+import com.panthorstudios.toolrental.api.domain.ToolType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolCatalogTest {
+
+    private static final ToolType LADDER = new ToolType("LADDER", "Ladder", new BigDecimal("1.99"), true, true, false);
+    private static final ToolType JACKHAMMER = new ToolType("JACKHAMMER", "Jackhammer", new BigDecimal("2.99"), true, false, false);
+
+    private static final Map<String, Tool> TOOLS = Map.of(
+            "LADW", new Tool("LADW", "LADDER", "Werner"),
+            "JAKR", new Tool("JAKR", "JACKHAMMER", "Ridgid"),
+            "JAKD", new Tool("JAKD", "JACKHAMMER", "DeWalt"));
+
+    /**
+     * Test each entry is linked to its tool type, charge mask, daily rate and label
+     */
+    @Test
+    void testEntries() {
+        ToolCatalog catalog = ToolCatalog.compile(TOOLS, Map.of("LADDER", LADDER, "JACKHAMMER", JACKHAMMER), 3);
+
+        ToolCatalog.Entry entry = catalog.getEntry("JAKR");
+        assertEquals(TOOLS.get("JAKR"), entry.tool());
+        assertSame(JACKHAMMER, entry.toolType());
+        assertEquals(BusinessCalendar.chargeMask(JACKHAMMER), entry.chargeMask());
+        assertEquals(new Money(299), entry.dailyRate());
+        assertEquals("Jackhammer", entry.label());
+        assertSame(entry.dailyRate(), catalog.getEntry("JAKD").dailyRate());
+        assertEquals(3, catalog.getVersion());
+        assertEquals(List.of("JAKD", "JAKR", "LADW"), catalog.getToolCodes());
+        assertEquals(3, catalog.getTools().size());
+        assertEquals(2, catalog.getToolTypes().size());
+    }
+
+    /**
+     * Test unknown and null codes are not found
+     */
+    @Test
+    void testMissing() {
+        ToolCatalog catalog = ToolCatalog.compile(TOOLS, Map.of("LADDER", LADDER), 1);
+
+        assertNull(catalog.getEntry("NONE"));
+        assertNull(catalog.getEntry(null));
+        assertNull(catalog.getToolType(null));
+        // A tool whose type is not configured is in the catalog without a tool type
+        assertNotNull(catalog.getEntry("JAKR"));
+        assertNull(catalog.getEntry("JAKR").toolType());
+    }
+
+    /**
+     * Test a catalog can be compiled from missing maps
+     */
+    @Test
+    void testEmpty() {
+        ToolCatalog catalog = ToolCatalog.compile(null, null, 1);
+
+        assertTrue(catalog.getToolCodes().isEmpty());
+        assertNull(catalog.getEntry("LADW"));
+    }
+
+    /**
+     * Test each filter, alone and together, and that brands match ignoring case
+     */
+    @Test
+    void testSearch() {
+        ToolCatalog catalog = ToolCatalog.compile(TOOLS, Map.of("LADDER", LADDER, "JACKHAMMER", JACKHAMMER), 1);
+
+        assertEquals(List.of("JAKD", "JAKR"), codes(catalog.search("JACKHAMMER", null, null, null, 10)));
+        assertEquals(List.of("JAKD"), codes(catalog.search("JACKHAMMER", "dewalt", null, null, 10)));
+        assertEquals(List.of("LADW"), codes(catalog.search(null, "WERNER", null, null, 10)));
+        assertEquals(List.of("JAKD", "JAKR"), codes(catalog.search(null, null, "JA", null, 10)));
+        assertEquals(List.of("JAKR"), codes(catalog.search(null, null, "JAKR", null, 10)));
+        assertEquals(List.of(), codes(catalog.search("LADDER", "Ridgid", null, null, 10)));
+        assertEquals(List.of(), codes(catalog.search("NONE", null, null, null, 10)));
+        assertEquals(List.of(), codes(catalog.search(null, null, "ZZ", null, 10)));
+        assertNull(catalog.search(null, null, null, null, 3).nextCursor(), "A full last page has no next page");
+    }
+
+    /**
+     * Test paging through a large catalog returns every matching tool once, in code order
+     */
+    @Test
+    void testSearchPages() {
+        Map<String, Tool> tools = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String code = String.format("T%05d", i);
+            tools.put(code, new Tool(code, i % 3 == 0 ? "LADDER" : "JACKHAMMER", i % 7 == 0 ? "Werner" : "Ridgid"));
+        }
+        ToolCatalog catalog = ToolCatalog.compile(tools, Map.of("LADDER", LADDER, "JACKHAMMER", JACKHAMMER), 1);
+
+        String[][] searches = {{null, null, null}, {"LADDER", null, null}, {null, "werner", null},
+                {"LADDER", "Werner", null}, {"JACKHAMMER", "Ridgid", "T01"}, {null, null, "T049"}};
+        for (String[] search : searches) {
+            List<String> expected = tools.values().stream()
+                    .filter(tool -> search[0] == null || search[0].equals(tool.typeCode()))
+                    .filter(tool -> search[1] == null || search[1].equalsIgnoreCase(tool.brand()))
+                    .filter(tool -> search[2] == null || tool.code().startsWith(search[2]))
+                    .map(Tool::code)
+                    .sorted()
+                    .toList();
+            List<String> found = new ArrayList<>();
+            String cursor = null;
+            do {
+                ToolPage page = catalog.search(search[0], search[1], search[2], cursor, 37);
+                assertTrue(page.tools().size() <= 37);
+                found.addAll(codes(page));
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            assertEquals(expected, found, Arrays.toString(search));
+        }
+    }
+
+    /**
+     * Test a page size outside 1 to the maximum is rejected
+     */
+    @Test
+    void testSearchLimit() {
+        ToolCatalog catalog = ToolCatalog.compile(TOOLS, Map.of("LADDER", LADDER), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> catalog.search(null, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> catalog.search(null, null, null, null, ToolCatalog.MAX_PAGE_SIZE + 1));
+        assertEquals(3, catalog.search(null, null, null, null, ToolCatalog.MAX_PAGE_SIZE).tools().size());
+    }
+
+    private static List<String> codes(ToolPage page) {
+        return page.tools().stream().map(Tool::code).toList();
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -187,4 +189,43 @@ class ToolServiceTest {
     void testToolExists_nullToolType() {
         assertFalse(toolService.toolExists(null));
     }
-}
\ No newline at end of file
+    /**
+     * Test the catalog links each tool to its tool type
+     */
+    @Test
+    void testGetCatalog() {
+        ToolCatalog.Entry entry = toolService.getCatalog().getEntry("JAKD");
+        assertNotNull(entry);
+        assertEquals("DeWalt", entry.tool().brand());
+        assertSame(appProperties.getToolTypesMap().get("JACKHAMMER"), entry.toolType());
+        assertSame(toolService.getCatalog(), toolService.getCatalog());
+    }
+    /**
+     * Test reloading publishes a new catalog with the next version
+     */
+    @Test
+    void testReload() {
+        ToolCatalog before = toolService.getCatalog();
+        ToolCatalog after = toolService.reload();
+        assertNotSame(before, after);
+        assertSame(after, toolService.getCatalog());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(before.getToolCodes(), after.getToolCodes());
+    }
+
+    /**
+     * Test a catalog that does not compile replaces nothing, and the step before publishing does not run
+     */
+    @Test
+    void testReplaceThatDoesNotCompileChangesNothing() {
+        ToolCatalog before = toolService.getCatalog();
+        AtomicBoolean stepRan = new AtomicBoolean();
+
+        assertThrows(ArithmeticException.class, () -> toolService.replace(Map.of("LADW", new Tool("LADW", "LADDER", "Werner")),
+                Map.of("LADDER", new ToolType("LADDER", "Ladder", new BigDecimal("1.999"), true, true, false)), () -> stepRan.set(true)));
+
+        assertFalse(stepRan.get());
+        assertSame(before, toolService.getCatalog());
+        assertEquals(appProperties.getToolsMap().size(), toolService.getAllTools().size());
+    }
+}
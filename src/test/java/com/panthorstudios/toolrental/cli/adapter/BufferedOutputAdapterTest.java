@@ -0,0 +1,151 @@
+package com.panthorstudios.toolrental.cli.adapter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferedOutputAdapterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+    private BufferedOutputAdapter outputService;
+
+    @BeforeEach
+    public void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        outputService = new BufferedOutputAdapter(new PrintStream(outContent, true), new PrintStream(errContent, true), 256);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        outputService.close();
+    }
+
+    /**
+     * Test that a prompt is written before print returns
+     */
+    @Test
+    public void print_ShouldWritePromptImmediately() {
+        // Act
+        outputService.printLine("Rental Agreement Generator");
+        outputService.print("Enter tool code: ");
+
+        // Assert
+        assertEquals("Rental Agreement Generator" + NL + "Enter tool code: ", outContent.toString(),
+                "The prompt and the lines before it should be written when print returns.");
+    }
+
+    /**
+     * Test that lines are written in order once flushed, including more than the buffer holds
+     */
+    @Test
+    public void printLine_ShouldWriteAllLinesInOrder() {
+        // Arrange
+        StringBuilder expected = new StringBuilder();
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            outputService.printLine("Line " + i);
+            outputService.printLine();
+            expected.append("Line ").append(i).append(NL).append(NL);
+        }
+        outputService.flush();
+
+        // Assert
+        assertEquals(expected.toString(), outContent.toString(), "Every line should be written once, in order.");
+    }
+
+    /**
+     * Test that lines left in the buffer are written by the writer thread without a flush
+     */
+    @Test
+    public void printLine_ShouldBeDrainedWithoutFlush() throws InterruptedException {
+        // Act
+        outputService.printLine("Agreement");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (outContent.size() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(BufferedOutputAdapter.DRAIN_INTERVAL_MS);
+        }
+
+        // Assert
+        assertEquals("Agreement" + NL, outContent.toString(), "The writer should drain the buffer on its own.");
+    }
+
+    /**
+     * Test that an error is written to stderr after the output printed before it
+     */
+    @Test
+    public void printError_ShouldFlushOutputFirst() {
+        // Act
+        outputService.printLine("Processing");
+        outputService.printError("Error message");
+
+        // Assert
+        assertEquals("Processing" + NL, outContent.toString(), "Buffered output should be written before the error.");
+        assertEquals("Error message" + NL, errContent.toString(), "The error should be written to stderr.");
+    }
+
+    /**
+     * Test that closing writes everything buffered, and later output is written directly
+     */
+    @Test
+    public void close_ShouldDrainBuffer() {
+        // Act
+        outputService.printLine("Before close");
+        outputService.close();
+        outputService.printLine("After close");
+
+        // Assert
+        assertEquals("Before close" + NL + "After close" + NL, outContent.toString(), "No output should be lost when closing.");
+    }
+
+    /**
+     * Test that lines printed by several threads are each written whole
+     */
+    @Test
+    public void printLine_ShouldNotInterleaveLines() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        try {
+            List<Future<?>> printers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                String line = String.valueOf(thread).repeat(40);
+                printers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        outputService.printLine(line);
+                    }
+                }));
+            }
+            for (Future<?> printer : printers) {
+                printer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        outputService.flush();
+
+        // Assert
+        String[] lines = outContent.toString().split(NL);
+        assertEquals(2000, lines.length, "Every line should be written.");
+        for (String line : lines) {
+            assertTrue(line.matches("([0-3])\\1{39}"), "Lines should not be interleaved: " + line);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.panthorstudios.toolrental.cli.controller;
+
+import com.panthorstudios.toolrental.api.service.BatchCheckoutService;
+import com.panthorstudios.toolrental.cli.adapter.OutputAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchCliControllerTest {
+
+    @Mock
+    private BatchCheckoutService batchCheckoutService;
+
+    @Mock
+    private OutputAdapter outputAdapter;
+
+    @InjectMocks
+    private BatchCliController batchCliController;
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Test a JSON file is handed to the JSON reader and the totals are printed
+     */
+    @Test
+    void execute_JsonInput() throws Exception {
+        Path input = Files.writeString(directory.resolve("requests.json"), "﻿  [{\"toolCode\":\"LADW\"}]");
+        when(batchCheckoutService.checkout(any(InputStream.class), any(OutputStream.class)))
+                .thenReturn(new BatchCheckoutService.BatchSummary(1200, 3));
+
+        assertTrue(batchCliController.execute(input.toString(), directory.resolve("out.ndjson").toString()));
+
+        verify(batchCheckoutService, never()).checkoutCsv(any(), any());
+        verify(outputAdapter).printLine(startsWith("Processed 1,200 requests in "));
+        verify(outputAdapter).printLine("Agreements: 1,197  Errors: 3");
+        assertTrue(Files.exists(directory.resolve("out.ndjson")));
+    }
+
+    /**
+     * Test a CSV file is handed to the CSV reader from its first line
+     */
+    @Test
+    void execute_CsvInput() throws Exception {
+        Path input = Files.writeString(directory.resolve("requests.csv"), "toolCode,checkoutDate,rentalDays,discountPercent\n");
+        when(batchCheckoutService.checkoutCsv(any(BufferedReader.class), any(OutputStream.class))).thenAnswer(invocation -> {
+            BufferedReader reader = invocation.getArgument(0);
+            assertEquals("toolCode,checkoutDate,rentalDays,discountPercent", reader.readLine());
+            return new BatchCheckoutService.BatchSummary(0, 0);
+        });
+
+        assertTrue(batchCliController.execute(input.toString(), directory.resolve("out.ndjson").toString()));
+
+        verify(batchCheckoutService, never()).checkout(any(InputStream.class), any());
+    }
+
+    /**
+     * Test missing options and unreadable files are reported as errors
+     */
+    @Test
+    void execute_Errors() {
+        assertFalse(batchCliController.execute(null, "out.ndjson"));
+        verify(outputAdapter).printError("Batch mode needs --input and --output files.");
+
+        assertFalse(batchCliController.execute(directory.resolve("missing.csv").toString(), directory.resolve("out.ndjson").toString()));
+        verify(outputAdapter).printError(startsWith("Batch failed: "));
+        verifyNoInteractions(batchCheckoutService);
+    }
+}
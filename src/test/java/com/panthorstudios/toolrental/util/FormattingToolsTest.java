@@ -0,0 +1,76 @@
+package com.panthorstudios.toolrental.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FormattingToolsTest {
+
+    private static final int[] INTEGERS = {0, 1, -1, 9, 10, 99, 100, 999, 1000, -1000, 1001, 12345, 999999, 1000000,
+            -1234567, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    private static final String[] AMOUNTS = {"0", "0.00", "0.001", "0.01", "0.05", "-0.05", "1.99", "2.999", "-2.991",
+            "999.995", "1000", "1234.5", "2000000.99", "-2000000.45", "1E+3", "1E-7", "123456789012345.67",
+            "1234567890123456.78", "98765432109876543210.12", "-98765432109876543210.129"};
+
+    private static void assertMatchesFormatter(Locale locale) {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        Locale.setDefault(Locale.Category.FORMAT, locale);
+        try {
+            for (int value : INTEGERS) {
+                assertEquals(String.format(FormattingTools.INTEGER_COMMA_FORMAT, value), FormattingTools.formatIntegerWithCommas(value), locale + " " + value);
+                assertEquals(String.format(FormattingTools.INTEGER_PERCENTAGE_FORMAT, value), FormattingTools.formatPercentage(value), locale + " " + value);
+            }
+            for (String amount : AMOUNTS) {
+                BigDecimal value = new BigDecimal(amount);
+                assertEquals(String.format(FormattingTools.US_MONEY_FORMAT, value.setScale(2, RoundingMode.UP)),
+                        FormattingTools.formatMoney(value), locale + " " + amount);
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    /**
+     * Test the hand-written number formats match String.format in a locale they are written for
+     */
+    @Test
+    void testMatchesFormatterInUsLocale() {
+        assertMatchesFormatter(Locale.US);
+        assertMatchesFormatter(Locale.UK);
+    }
+
+    /**
+     * Test numbers in locales with other separators or digits are still formatted as String.format formats them
+     */
+    @Test
+    void testMatchesFormatterInOtherLocales() {
+        assertMatchesFormatter(Locale.GERMANY);
+        assertMatchesFormatter(Locale.FRANCE);
+        assertMatchesFormatter(Locale.forLanguageTag("de-CH"));
+        assertMatchesFormatter(Locale.forLanguageTag("ar-EG-u-nu-arab"));
+        assertMatchesFormatter(Locale.forLanguageTag("hi-IN"));
+    }
+
+    /**
+     * Test the short date matches the date formatter, including years outside this century
+     */
+    @Test
+    void testShortDateMatchesFormatter() {
+        for (LocalDate date = LocalDate.of(1899, 12, 25); date.isBefore(LocalDate.of(2101, 1, 10)); date = date.plusDays(13)) {
+            StringBuilder text = new StringBuilder();
+            FormattingTools.appendShortDate(text, date);
+            assertEquals(date.format(FormattingTools.SHORT_DATE_FORMATTER), text.toString());
+        }
+        for (LocalDate date : new LocalDate[] {LocalDate.of(1, 1, 1), LocalDate.of(0, 2, 29), LocalDate.of(-45, 3, 15), LocalDate.of(12345, 6, 7)}) {
+            StringBuilder text = new StringBuilder();
+            FormattingTools.appendShortDate(text, date);
+            assertEquals(date.format(FormattingTools.SHORT_DATE_FORMATTER), text.toString());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.panthorstudios.toolrental.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedParallelProcessorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that results arrive in input order even when tasks finish out of order
+     */
+    @Test
+    public void process_preservesInputOrder() {
+        OrderedParallelProcessor<Integer, Integer> processor = new OrderedParallelProcessor<>(executor, 16);
+        List<Integer> results = new ArrayList<>();
+
+        long count = processor.process(IntStream.range(0, 500).iterator(), i -> {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return i * 2;
+        }, results::add);
+
+        assertEquals(500, count);
+        assertEquals(IntStream.range(0, 500).map(i -> i * 2).boxed().toList(), results);
+    }
+
+    /**
+     * Test that no more than maxInFlight inputs are read ahead of the sink
+     */
+    @Test
+    public void process_boundsInputsInFlight() {
+        OrderedParallelProcessor<Integer, Integer> processor = new OrderedParallelProcessor<>(executor, 4);
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        Iterator<Integer> inputs = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < 100;
+            }
+
+            @Override
+            public Integer next() {
+                assertTrue(read.get() - consumed.get() <= 4, "Read too far ahead of the sink");
+                return read.getAndIncrement();
+            }
+        };
+
+        processor.process(inputs, i -> i, i -> consumed.incrementAndGet());
+
+        assertEquals(100, consumed.get());
+    }
+
+    /**
+     * Test that a task failure is rethrown to the caller
+     */
+    @Test
+    public void process_rethrowsTaskFailure() {
+        OrderedParallelProcessor<Integer, Integer> processor = new OrderedParallelProcessor<>(executor, 4);
+        assertThrows(IllegalStateException.class, () -> processor.process(List.of(1, 2, 3).iterator(), i -> {
+            if (i == 2) {
+                throw new IllegalStateException("boom");
+            }
+            return i;
+        }, i -> { }));
+    }
+}
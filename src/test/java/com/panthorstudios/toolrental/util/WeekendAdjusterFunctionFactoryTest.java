@@ -3,6 +3,7 @@ package com.panthorstudios.toolrental.util;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class WeekendAdjusterFunctionFactoryTest {
@@ -70,5 +71,20 @@ public class WeekendAdjusterFunctionFactoryTest {
         String invalidCode = "INVALID_CODE";
         assertNull(WeekendAdjusterFunctionFactory.getAdjusterFunction(invalidCode));
     }
-}
 
+    /**
+     * Test that the epoch day adjusters move every day of the week the same way as the date functions
+     */
+    @Test
+    public void testEpochDayAdjustersMatchFunctions() {
+        for (String code : new String[] {"ADJUST_WEEKEND_TO_CLOSEST_WEEKDAY", "ADJUST_WEEKEND_TO_MONDAY", "ADJUST_WEEKEND_TO_FRIDAY"}) {
+            Function<LocalDate, LocalDate> adjuster = WeekendAdjusterFunctionFactory.getAdjusterFunction(code);
+            LongUnaryOperator epochDayAdjuster = WeekendAdjusterFunctionFactory.getEpochDayAdjuster(code);
+            for (LocalDate date = friday.minusDays(7); date.isBefore(monday.plusDays(7)); date = date.plusDays(1)) {
+                assertEquals(adjuster.apply(date), LocalDate.ofEpochDay(epochDayAdjuster.applyAsLong(date.toEpochDay())), code + " " + date);
+                assertEquals(date.getDayOfWeek().getValue(), WeekendAdjusterFunctionFactory.dayOfWeek(date.toEpochDay()));
+            }
+        }
+        assertNull(WeekendAdjusterFunctionFactory.getEpochDayAdjuster("ADJUST_WEEKEND_TO_TUESDAY"));
+    }
+}